@@ -0,0 +1,55 @@
+package g56583.atl.ascii.DesignPattern.Command;
+
+import g56583.atl.ascii.model.AsciiPaint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the Add/Move/Color/Group command cycle on a drawing already
+ * holding some shapes. Each operation executes the four commands, undoes them, redoes them
+ * and undoes them again, which leaves the drawing with the same number of shapes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandCycleBenchmark {
+    @Param({"10", "1000"})
+    private int shapes;
+
+    private AsciiPaint paint;
+
+    @Setup
+    public void setUp() {
+        paint = new AsciiPaint(500, 500);
+        for (int i = 0; i < shapes; i++) {
+            paint.newCircle(i * 7 % 500, i * 13 % 500, 1 + i % 9, 'C');
+        }
+    }
+
+    @Benchmark
+    public AsciiPaint commandCycle() {
+        Command[] commands = {
+                new Add(paint, new String[]{"add", "rectangle", "10", "20", "30", "40", "r"}),
+                new Move(paint, 0, 3, -2),
+                new Color(paint, new String[]{"color", "0", "b"}),
+                new Group(paint, new String[]{"1", "2"}),
+        };
+        for (Command command : commands) {
+            command.execute();
+        }
+        for (int i = commands.length - 1; i >= 0; i--) {
+            commands[i].undo();
+        }
+        for (Command command : commands) {
+            command.redo();
+        }
+        for (int i = commands.length - 1; i >= 0; i--) {
+            commands[i].undo();
+        }
+        return paint;
+    }
+}
@@ -0,0 +1,67 @@
+package g56583.atl.ascii.DesignPattern.Composite;
+
+import g56583.atl.ascii.model.Circle;
+import g56583.atl.ascii.model.Point;
+import g56583.atl.ascii.model.Rectangle;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Composite.isInside on groups nested at various depths. Every level holds a few
+ * shapes next to the nested group, so that a probe walks down the whole tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompositeBenchmark {
+    private static final int SIZE = 64;
+
+    @Param({"1", "8", "64"})
+    private int depth;
+
+    private Composite root;
+
+    @Setup
+    public void setUp() {
+        Composite level = new Composite('a');
+        level.add(new Circle(new Point(SIZE / 2.0, SIZE / 2.0), 3, 'c'));
+        for (int i = 1; i < depth; i++) {
+            Composite parent = new Composite((char) ('a' + i % 26));
+            parent.add(new Rectangle(new Point(i % SIZE, i % SIZE), 2, 2, 'r'));
+            parent.add(new Circle(new Point(SIZE - i % SIZE, i % SIZE), 1.5, 'c'));
+            parent.add(level);
+            level = parent;
+        }
+        root = level;
+    }
+
+    @Benchmark
+    public int isInsidePoint() {
+        int count = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (root.isInside(new Point(x, y))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int isInsideCoordinates() {
+        int count = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (root.isInside(x, y)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,53 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+
+import java.util.Random;
+
+/**
+ * Builds the random drawings shared by the benchmarks. A fixed seed keeps the drawings
+ * identical from one run to the next, so that the results can be compared.
+ */
+final class BenchmarkDrawings {
+    private static final long SEED = 56583;
+
+    private BenchmarkDrawings() {
+    }
+
+    /**
+     * Fills a drawing of the given size with shapes whose size is proportional to the canvas,
+     * about one tenth of them being grouped two by two.
+     *
+     * @param width  The width of the drawing.
+     * @param height The height of the drawing.
+     * @param count  The number of shapes.
+     * @return The drawing.
+     */
+    static Drawing random(int width, int height, int count) {
+        Random random = new Random(SEED);
+        Drawing drawing = new Drawing(width, height);
+        int size = Math.max(2, Math.min(width, height) / 20);
+        for (int i = 0; i < count; i++) {
+            if (i % 10 == 9) {
+                Composite group = new Composite((char) ('a' + random.nextInt(26)));
+                group.add(shape(random, width, height, size));
+                group.add(shape(random, width, height, size));
+                drawing.addComponent(group);
+            } else {
+                drawing.addShape(shape(random, width, height, size));
+            }
+        }
+        return drawing;
+    }
+
+    private static Component shape(Random random, int width, int height, int size) {
+        char color = (char) ('A' + random.nextInt(26));
+        Point corner = new Point(random.nextInt(width), random.nextInt(height));
+        return switch (random.nextInt(3)) {
+            case 0 -> new Circle(corner, 1 + random.nextInt(size), color);
+            case 1 -> new Rectangle(corner, 1 + random.nextInt(2 * size), 1 + random.nextInt(size), color);
+            default -> new Line(corner, new Point(corner.getX() + random.nextInt(4 * size), corner.getY()), color);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package g56583.atl.ascii.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Drawing.getShapeAt on random points of drawings of various shape counts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetShapeAtBenchmark {
+    private static final int SIZE = 1000;
+    private static final int PROBES = 1024;
+
+    @Param({"10", "1000", "10000"})
+    private int shapes;
+
+    private Drawing drawing;
+    private Point[] probes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        drawing = BenchmarkDrawings.random(SIZE, SIZE, shapes);
+        Random random = new Random(7);
+        probes = new Point[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = new Point(random.nextDouble() * SIZE, random.nextDouble() * SIZE);
+        }
+    }
+
+    @Benchmark
+    public Shape getShapeAt() {
+        next = (next + 1) & (PROBES - 1);
+        return drawing.getShapeAt(probes[next]);
+    }
+}
@@ -0,0 +1,67 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares hit testing through a point created for every probe with the primitive
+ * coordinates overload, over every cell of a 100x100 grid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IsInsideBenchmark {
+    private static final int SIZE = 100;
+
+    @Param({"circle", "line", "rectangle", "group"})
+    private String shape;
+
+    private Shape target;
+
+    @Setup
+    public void setUp() {
+        target = switch (shape) {
+            case "circle" -> new Circle(new Point(50, 50), 30, 'c');
+            case "line" -> new Line(new Point(3, 7), new Point(91, 64), 'l');
+            case "rectangle" -> new Rectangle(new Point(20, 20), 40, 30, 'r');
+            default -> {
+                Composite group = new Composite('g');
+                for (int i = 0; i < 8; i++) {
+                    group.add(new Circle(new Point(10 + 10 * i, 10 + 10 * i), 6, 'c'));
+                }
+                yield group;
+            }
+        };
+    }
+
+    @Benchmark
+    public int pointProbe() {
+        int count = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (target.isInside(new Point(x, y))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int primitiveProbe() {
+        int count = 0;
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if (target.isInside(x, y)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
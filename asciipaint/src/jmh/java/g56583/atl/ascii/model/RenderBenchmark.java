@@ -0,0 +1,56 @@
+package g56583.atl.ascii.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rendering of a drawing into ASCII art across canvas sizes and shape counts:
+ * a full rendering, a rendering after a small move through the cached frame of AsciiPaint,
+ * and a full rendering in parallel bands.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderBenchmark {
+    @Param({"100", "1000", "4000"})
+    private int size;
+
+    @Param({"10", "100", "1000"})
+    private int shapes;
+
+    private AsciiPaint paint;
+    private ParallelRenderer parallel;
+    private double step;
+
+    @Setup
+    public void setUp() {
+        paint = new AsciiPaint();
+        paint.setDrawing(BenchmarkDrawings.random(size, size, shapes));
+        paint.asAscii();
+        parallel = new ParallelRenderer(ForkJoinPool.commonPool(), 0);
+        step = 1;
+    }
+
+    @Benchmark
+    public String fullRender() {
+        return new Rasterizer(paint.getDrawing()).render();
+    }
+
+    @Benchmark
+    public String asAsciiAfterMove() {
+        // Moves the first shape back and forth, so that the drawing does not drift.
+        paint.getDrawing().moveShape(0, step, step);
+        step = -step;
+        return paint.asAscii();
+    }
+
+    @Benchmark
+    public String parallelRender() {
+        return parallel.render(paint.getDrawing());
+    }
+}
@@ -0,0 +1,41 @@
+package g56583.atl.ascii.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the backends of the loops of the rasterizer over the rows on a full rendering,
+ * across canvas sizes and shape counts. The scalar backend is the one of asAscii by default.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class RowBackendBenchmark {
+    @Param({"1000", "4000"})
+    private int size;
+
+    @Param({"10", "100", "1000"})
+    private int shapes;
+
+    @Param({"SCALAR", "VECTOR"})
+    private RowBackend backend;
+
+    private Drawing drawing;
+
+    @Setup
+    public void setUp() {
+        if (!backend.isAvailable()) {
+            throw new IllegalStateException("The " + backend + " backend is not available");
+        }
+        drawing = BenchmarkDrawings.random(size, size, shapes);
+    }
+
+    @Benchmark
+    public String fullRender() {
+        return new Rasterizer(drawing, backend).render();
+    }
+}
@@ -22,15 +22,32 @@ public class Add implements Command {
         this.inputs = inputs;
     }
 
+    /**
+     * Constructs a new Add command adding an already built shape.
+     *
+     * @param asciiPaint the specified asciiPaint parameters.
+     * @param shape      the shape to add.
+     */
+    public Add(AsciiPaint asciiPaint, Shape shape) {
+        if (shape == null) {
+            throw new IllegalArgumentException("Given shape is null");
+        }
+        this.asciiPaint = asciiPaint;
+        this.inputs = null;
+        this.addedShape = shape;
+    }
+
     @Override
     public void execute() {
-        String shapeType = inputs[1];
-        switch (shapeType) {
-            case "circle" -> addedShape = createCircle();
-            case "rectangle" -> addedShape = createRectangle();
-            case "square" -> addedShape = createSquare();
-            case "line" -> addedShape = createLine();
-            default -> throw new InvalidShapeTypeException("Invalid shape type: " + shapeType);
+        if (inputs != null) {
+            String shapeType = inputs[1];
+            switch (shapeType) {
+                case "circle" -> addedShape = createCircle();
+                case "rectangle" -> addedShape = createRectangle();
+                case "square" -> addedShape = createSquare();
+                case "line" -> addedShape = createLine();
+                default -> throw new InvalidShapeTypeException("Invalid shape type: " + shapeType);
+            }
         }
         asciiPaint.addShape(addedShape);
     }
@@ -103,6 +120,11 @@ public class Add implements Command {
         }
     }
 
+    @Override
+    public long footprint() {
+        return addedShape == null ? 32 : 32 + History.footprint(addedShape);
+    }
+
     /**
      * Custom exception class for invalid shape types.
      */
@@ -0,0 +1,62 @@
+package g56583.atl.ascii.DesignPattern.Command;
+
+import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Shape;
+
+/**
+ * The AddAll class represents a command adding many already built shapes at once, as done by
+ * generators. The shapes are added as one change of the drawing and kept in an array, instead
+ * of a command each.
+ */
+public class AddAll implements Command {
+    private final AsciiPaint paint;
+    private final Shape[] shapes;
+
+    /**
+     * Constructs a command adding the given shapes, in their order.
+     *
+     * @param paint  the AsciiPaint instance the shapes are added to.
+     * @param shapes the shapes to add.
+     * @throws IllegalArgumentException if the array or one of the shapes is null.
+     */
+    public AddAll(AsciiPaint paint, Shape... shapes) {
+        if (shapes == null) {
+            throw new IllegalArgumentException("Given shapes are null");
+        }
+        for (Shape shape : shapes) {
+            if (shape == null) {
+                throw new IllegalArgumentException("Given shape is null");
+            }
+        }
+        this.paint = paint;
+        this.shapes = shapes.clone();
+    }
+
+    @Override
+    public void execute() {
+        paint.addShapes(shapes);
+    }
+
+    @Override
+    public void undo() {
+        paint.batch(() -> {
+            for (int i = shapes.length - 1; i >= 0; i--) {
+                paint.removeShape(shapes[i]);
+            }
+        });
+    }
+
+    @Override
+    public void redo() {
+        execute();
+    }
+
+    @Override
+    public long footprint() {
+        long size = 32;
+        for (Shape shape : shapes) {
+            size += 8 + History.footprint(shape);
+        }
+        return size;
+    }
+}
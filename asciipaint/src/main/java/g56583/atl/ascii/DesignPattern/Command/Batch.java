@@ -0,0 +1,78 @@
+package g56583.atl.ascii.DesignPattern.Command;
+
+import g56583.atl.ascii.model.AsciiPaint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Batch class represents a command made of other commands, executed, undone and redone
+ * as one step of the history. The drawing counts them as one change: its version increases
+ * once and the areas they change are rendered again at once.
+ * A batch is a transaction: if one of its commands fails, the commands executed before it
+ * are undone, so that the drawing is left as it was, and the failure is thrown again.
+ */
+public class Batch implements Command {
+    private final AsciiPaint paint;
+    private final List<Command> commands;
+
+    /**
+     * Constructs a batch of the given commands, executed in their order.
+     *
+     * @param paint    the AsciiPaint instance the commands apply to.
+     * @param commands the commands of the batch.
+     * @throws IllegalArgumentException if the list or one of the commands is null.
+     */
+    public Batch(AsciiPaint paint, List<Command> commands) {
+        if (commands == null || commands.contains(null)) {
+            throw new IllegalArgumentException("Given commands are null");
+        }
+        this.paint = paint;
+        this.commands = new ArrayList<>(commands);
+    }
+
+    @Override
+    public void execute() {
+        paint.batch(() -> {
+            int done = 0;
+            try {
+                for (Command command : commands) {
+                    command.execute();
+                    done++;
+                }
+            } catch (RuntimeException e) {
+                for (int i = done - 1; i >= 0; i--) {
+                    commands.get(i).undo();
+                }
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public void undo() {
+        paint.batch(() -> {
+            for (int i = commands.size() - 1; i >= 0; i--) {
+                commands.get(i).undo();
+            }
+        });
+    }
+
+    @Override
+    public void redo() {
+        paint.batch(() -> {
+            for (Command command : commands) {
+                command.redo();
+            }
+        });
+    }
+
+    @Override
+    public long footprint() {
+        long size = 48;
+        for (Command command : commands) {
+            size += 8 + command.footprint();
+        }
+        return size;
+    }
+}
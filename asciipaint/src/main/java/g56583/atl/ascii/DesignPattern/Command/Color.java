@@ -1,16 +1,20 @@
 package g56583.atl.ascii.DesignPattern.Command;
 
 import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Shape;
 
 /**
  * The Color class implements the Command interface to handle color changes of shapes in an AsciiPaint instance.
  * It changes the color of a specific shape based on the shape index and the new color provided.
+ * The drawing replaces a recolored shape with a copy, so the command keeps the shape before and
+ * after the change and puts them back without copying them.
  */
 public class Color implements Command {
     private final AsciiPaint asciiPaint;
     private final int shapeIndex;
     private final char newColor;
-    private char oldColor;
+    private Shape previousState;
+    private Shape recoloredState;
 
     /**
      * Constructs a new Color command with a reference to AsciiPaint and the input parameters for changing color.
@@ -24,11 +28,25 @@ public class Color implements Command {
         this.newColor = validateColor(inputs[2]);
     }
 
+    /**
+     * Constructs a new Color command with already parsed parameters.
+     *
+     * @param asciiPaint The AsciiPaint instance in which the shape's color will be changed.
+     * @param shapeIndex The index of the shape or group.
+     * @param newColor   The new color, a letter from A to Z.
+     */
+    public Color(AsciiPaint asciiPaint, int shapeIndex, char newColor) {
+        this.asciiPaint = asciiPaint;
+        this.shapeIndex = shapeIndex;
+        this.newColor = validateColor(String.valueOf(newColor));
+    }
+
     @Override
     public void execute() {
         try {
-            oldColor = asciiPaint.getColorOfShape(shapeIndex);
+            previousState = asciiPaint.getShapeOrGroupAt(shapeIndex);
             asciiPaint.changeShapeColor(shapeIndex, newColor);
+            recoloredState = asciiPaint.getShapeOrGroupAt(shapeIndex);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid shape index or color.");
         }
@@ -49,12 +67,17 @@ public class Color implements Command {
 
     @Override
     public void undo() {
-        asciiPaint.changeShapeColor(shapeIndex, oldColor);
+        asciiPaint.replaceShapeOrGroup(shapeIndex, previousState);
     }
 
     @Override
     public void redo() {
-        asciiPaint.changeShapeColor(shapeIndex, newColor);
+        asciiPaint.replaceShapeOrGroup(shapeIndex, recoloredState);
+    }
+
+    @Override
+    public long footprint() {
+        return previousState == null ? 48 : 48 + History.footprint(previousState);
     }
 
 
@@ -0,0 +1,93 @@
+package g56583.atl.ascii.DesignPattern.Command;
+
+import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Shape;
+
+/**
+ * The ColorAll class represents a command giving the same color to many shapes or groups, as
+ * one change of the drawing. Like Color, it keeps the shapes before and after the change, in
+ * arrays, and puts them back without copying them.
+ */
+public class ColorAll implements Command {
+    private final AsciiPaint paint;
+    private final int[] indices;
+    private final char newColor;
+    private Shape[] previousStates;
+    private Shape[] recoloredStates;
+
+    /**
+     * Constructs a command changing the color of the shapes or groups at the given indices.
+     *
+     * @param paint    the AsciiPaint instance of the shapes.
+     * @param indices  the indices of the shapes, or of the groups after the shapes.
+     * @param newColor the new color, a letter from A to Z.
+     * @throws IllegalArgumentException if the indices are null or the color is not a letter.
+     */
+    public ColorAll(AsciiPaint paint, int[] indices, char newColor) {
+        if (indices == null) {
+            throw new IllegalArgumentException("Given indices are null");
+        }
+        if (!String.valueOf(newColor).matches("[A-Za-z]")) {
+            throw new IllegalArgumentException("Invalid color. Color must be a single letter from A to Z.");
+        }
+        this.paint = paint;
+        this.indices = indices.clone();
+        this.newColor = Character.toUpperCase(newColor);
+    }
+
+    /**
+     * Recolors every shape, after checking all the indices, so that an invalid one changes
+     * nothing.
+     *
+     * @throws IllegalArgumentException if an index is invalid.
+     */
+    @Override
+    public void execute() {
+        int count = paint.getShapes().size() + paint.getComponents().size();
+        for (int index : indices) {
+            if (index < 0 || index >= count) {
+                throw new IllegalArgumentException("Invalid index: " + index);
+            }
+        }
+        Shape[] previous = new Shape[indices.length];
+        Shape[] recolored = new Shape[indices.length];
+        paint.batch(() -> {
+            for (int i = 0; i < indices.length; i++) {
+                previous[i] = paint.getShapeOrGroupAt(indices[i]);
+                paint.changeShapeColor(indices[i], newColor);
+                recolored[i] = paint.getShapeOrGroupAt(indices[i]);
+            }
+        });
+        previousStates = previous;
+        recoloredStates = recolored;
+    }
+
+    @Override
+    public void undo() {
+        paint.batch(() -> {
+            for (int i = indices.length - 1; i >= 0; i--) {
+                paint.replaceShapeOrGroup(indices[i], previousStates[i]);
+            }
+        });
+    }
+
+    @Override
+    public void redo() {
+        paint.batch(() -> {
+            for (int i = 0; i < indices.length; i++) {
+                paint.replaceShapeOrGroup(indices[i], recoloredStates[i]);
+            }
+        });
+    }
+
+    @Override
+    public long footprint() {
+        long size = 48 + 4L * indices.length;
+        if (previousStates != null) {
+            for (Shape shape : previousStates) {
+                size += 16 + History.footprint(shape);
+            }
+        }
+        return size;
+    }
+}
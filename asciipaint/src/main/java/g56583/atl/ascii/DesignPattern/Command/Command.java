@@ -15,4 +15,13 @@ public interface Command {
      * redoes the specified command
      */
     void redo();
+
+    /**
+     * Estimates the memory kept by the command to be undone and redone.
+     *
+     * @return The estimated size of the command, in bytes.
+     */
+    default long footprint() {
+        return 48;
+    }
 }
@@ -43,4 +43,9 @@ public class Create implements Command {
         asciiPaint.createNewDrawing(width, height);
 
     }
+
+    @Override
+    public long footprint() {
+        return previousDrawing == null ? 32 : 32 + History.footprint(previousDrawing);
+    }
 }
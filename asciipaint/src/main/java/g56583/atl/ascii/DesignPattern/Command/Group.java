@@ -35,6 +35,18 @@ public class Group implements Command {
         this.previousGroup = null;
     }
 
+    /**
+     * Constructs a Group command with the specified AsciiPaint and list of indices.
+     *
+     * @param paint   the AsciiPaint instance representing the ASCII art drawing.
+     * @param indices the indices of shapes to be grouped.
+     */
+    public Group(AsciiPaint paint, List<Integer> indices) {
+        this.paint = paint;
+        this.indices = new ArrayList<>(indices);
+        this.previousGroup = null;
+    }
+
     @Override
     public void execute() {
         if (indices.isEmpty()) {
@@ -61,7 +73,12 @@ public class Group implements Command {
     @Override
     public void redo() {
         if (originalShapes != null) {
-            paint.recreateGroup(originalShapes, previousGroup.getColor());
+            previousGroup = paint.recreateGroup(originalShapes, previousGroup.getColor());
         }
     }
+
+    @Override
+    public long footprint() {
+        return 64 + 24L * indices.size();
+    }
 }
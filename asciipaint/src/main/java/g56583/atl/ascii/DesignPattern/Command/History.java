@@ -0,0 +1,276 @@
+package g56583.atl.ascii.DesignPattern.Command;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Drawing;
+import g56583.atl.ascii.model.Shape;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * The History class keeps the commands that can be undone and redone, within a memory budget.
+ * Every few commands, it also keeps a checkpoint: a snapshot of the drawing. When the history
+ * grows over its budget, the oldest commands that lie before a checkpoint are forgotten first,
+ * so the old history is kept as checkpoints only and undo jumps from one to the other, while
+ * the recent history can still be undone command by command. The oldest checkpoints are
+ * forgotten last. The sizes are estimates, see footprint.
+ */
+public class History {
+    /**
+     * The default memory budget, in bytes.
+     */
+    public static final long DEFAULT_BUDGET = 16L << 20;
+    /**
+     * The default number of commands between two checkpoints.
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 256;
+
+    private final AsciiPaint paint;
+    private final long budget;
+    private final int checkpointInterval;
+    private final Deque<Entry> undoEntries = new ArrayDeque<>();
+    private final Deque<Entry> redoEntries = new ArrayDeque<>();
+    private long footprint;
+    private long position;
+    private int sinceCheckpoint;
+
+    /**
+     * Constructs a history with the default budget and checkpoint interval.
+     *
+     * @param paint The AsciiPaint the commands apply to.
+     */
+    public History(AsciiPaint paint) {
+        this(paint, DEFAULT_BUDGET, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Constructs a history.
+     *
+     * @param paint              The AsciiPaint the commands apply to.
+     * @param budget             The memory the history may use, in bytes.
+     * @param checkpointInterval The number of commands between two checkpoints.
+     * @throws IllegalArgumentException If the paint is null or a number is not positive.
+     */
+    public History(AsciiPaint paint, long budget, int checkpointInterval) {
+        if (paint == null) {
+            throw new IllegalArgumentException("Given paint is null");
+        }
+        if (budget <= 0 || checkpointInterval <= 0) {
+            throw new IllegalArgumentException("The budget and the checkpoint interval should be more than 0.");
+        }
+        this.paint = paint;
+        this.budget = budget;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Executes a command and records it, forgetting the commands that were undone.
+     * Nothing is recorded if the command fails.
+     *
+     * @param command The command to execute.
+     */
+    public void execute(Command command) {
+        command.execute();
+        for (Entry entry : redoEntries) {
+            footprint -= entry.footprint();
+        }
+        redoEntries.clear();
+        push(new Step(command, command.footprint()));
+        position++;
+        if (++sinceCheckpoint == checkpointInterval) {
+            Drawing drawing = paint.getDrawing().snapshot();
+            push(new Checkpoint(drawing, position, snapshotFootprint(drawing)));
+            sinceCheckpoint = 0;
+        }
+        evict();
+    }
+
+    /**
+     * Undoes the last command. If the commands before it were forgotten, goes back to the
+     * last checkpoint kept instead.
+     *
+     * @return False if there was nothing to undo.
+     */
+    public boolean undo() {
+        while (!undoEntries.isEmpty()) {
+            Entry entry = undoEntries.removeLast();
+            if (entry instanceof Step step) {
+                step.command().undo();
+                position--;
+                redoEntries.push(step);
+                return true;
+            }
+            Checkpoint checkpoint = (Checkpoint) entry;
+            if (checkpoint.position() == position) {
+                // The drawing is in the state of the checkpoint already.
+                redoEntries.push(checkpoint);
+            } else {
+                Drawing current = paint.getDrawing();
+                paint.setDrawing(checkpoint.drawing().snapshot());
+                Jump jump = new Jump(checkpoint, current, position, checkpoint.footprint() + footprint(current));
+                footprint += jump.footprint() - checkpoint.footprint();
+                redoEntries.push(jump);
+                position = checkpoint.position();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Redoes the last command undone, or comes back from a checkpoint.
+     *
+     * @return False if there was nothing to redo.
+     */
+    public boolean redo() {
+        while (!redoEntries.isEmpty()) {
+            Entry entry = redoEntries.pop();
+            if (entry instanceof Step step) {
+                step.command().redo();
+                position++;
+                undoEntries.addLast(step);
+                return true;
+            } else if (entry instanceof Jump jump) {
+                paint.setDrawing(jump.drawing());
+                position = jump.position();
+                footprint -= jump.footprint() - jump.checkpoint().footprint();
+                undoEntries.addLast(jump.checkpoint());
+                return true;
+            }
+            undoEntries.addLast(entry);
+        }
+        return false;
+    }
+
+    /**
+     * Forgets every command, for instance when the drawing is replaced.
+     */
+    public void clear() {
+        undoEntries.clear();
+        redoEntries.clear();
+        footprint = 0;
+        position = 0;
+        sinceCheckpoint = 0;
+    }
+
+    /**
+     * Gets the estimated memory used by the history.
+     *
+     * @return The estimated size of the history, in bytes.
+     */
+    public long getFootprint() {
+        return footprint;
+    }
+
+    /**
+     * Gets the memory budget of the history.
+     *
+     * @return The budget, in bytes.
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Estimates the memory used by a shape, with its children for a group. A group is
+     * estimated from the number of components below it, without asking for its children,
+     * which would make moved copies of the children of a moved group.
+     *
+     * @param shape The shape.
+     * @return The estimated size of the shape, in bytes.
+     */
+    public static long footprint(Shape shape) {
+        long size = 64;
+        if (shape instanceof Composite group) {
+            size += (8 + 64L) * group.getDescendantCount();
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the memory used by a drawing, with its shapes and its spatial index.
+     *
+     * @param drawing The drawing.
+     * @return The estimated size of the drawing, in bytes.
+     */
+    public static long footprint(Drawing drawing) {
+        long size = 256;
+        for (Shape shape : drawing.getShapes()) {
+            size += 64 + footprint(shape);
+        }
+        for (Component component : drawing.getComponents()) {
+            size += 64 + footprint(component);
+        }
+        return size;
+    }
+
+    /**
+     * Estimates the memory kept by a snapshot: its shapes are shared with the drawing, and so
+     * are the nodes of its lists and index, but for those the drawing replaces by changing.
+     */
+    private static long snapshotFootprint(Drawing snapshot) {
+        return 256 + 16L * (snapshot.getShapes().size() + snapshot.getComponents().size());
+    }
+
+    private void push(Entry entry) {
+        undoEntries.addLast(entry);
+        footprint += entry.footprint();
+    }
+
+    /**
+     * Forgets entries until the history fits in its budget: first the oldest command that has
+     * a checkpoint after it, then the oldest entry.
+     */
+    private void evict() {
+        while (footprint > budget && !undoEntries.isEmpty()) {
+            Iterator<Entry> entries = undoEntries.iterator();
+            Step oldest = null;
+            boolean covered = false;
+            while (entries.hasNext() && !covered) {
+                Entry entry = entries.next();
+                if (entry instanceof Step step && oldest == null) {
+                    oldest = step;
+                } else if (entry instanceof Checkpoint && oldest != null) {
+                    covered = true;
+                }
+            }
+            Entry evicted = covered ? oldest : undoEntries.getFirst();
+            // The entries are distinct objects, look for this one and not for an equal one.
+            for (Iterator<Entry> it = undoEntries.iterator(); it.hasNext(); ) {
+                if (it.next() == evicted) {
+                    it.remove();
+                    break;
+                }
+            }
+            footprint -= evicted.footprint();
+        }
+    }
+
+    /**
+     * An entry of the history.
+     */
+    private sealed interface Entry permits Step, Checkpoint, Jump {
+        long footprint();
+    }
+
+    /**
+     * A command executed.
+     */
+    private record Step(Command command, long footprint) implements Entry {
+    }
+
+    /**
+     * A copy of the drawing after the given number of commands.
+     */
+    private record Checkpoint(Drawing drawing, long position, long footprint) implements Entry {
+    }
+
+    /**
+     * A jump back to a checkpoint, keeping the drawing to come back to.
+     */
+    private record Jump(Checkpoint checkpoint, Drawing drawing, long position, long footprint) implements Entry {
+    }
+}
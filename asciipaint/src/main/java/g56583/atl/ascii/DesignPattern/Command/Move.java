@@ -6,12 +6,15 @@ import g56583.atl.ascii.model.Shape;
 /**
  * The Move class represents a command that moves a shape or a group of shapes in an ASCII art drawing.
  * It implements the Command interface and provides methods to execute, undo, and redo the movement operation.
+ * The drawing replaces a moved shape with a moved copy, so the command keeps the shape before
+ * and after the move and puts them back without copying them.
  */
 public class Move implements Command {
     private final AsciiPaint paint;
     private final int shapeIndex;
     private final double dx, dy;
     private Shape previousState;
+    private Shape movedState;
 
     /**
      * Constructor for Move command.
@@ -30,8 +33,9 @@ public class Move implements Command {
 
     @Override
     public void execute() {
-        previousState = paint.getShapeAt(shapeIndex).copy();
+        previousState = paint.getShapeAt(shapeIndex);
         paint.moveShape(shapeIndex, dx, dy);
+        movedState = paint.getShapeAt(shapeIndex);
     }
 
     @Override
@@ -41,6 +45,11 @@ public class Move implements Command {
 
     @Override
     public void redo() {
-        paint.moveShape(shapeIndex, dx, dy);
+        paint.replaceShape(shapeIndex, movedState);
+    }
+
+    @Override
+    public long footprint() {
+        return previousState == null ? 48 : 48 + History.footprint(previousState);
     }
 }
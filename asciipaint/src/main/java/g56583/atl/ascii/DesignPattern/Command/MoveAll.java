@@ -0,0 +1,92 @@
+package g56583.atl.ascii.DesignPattern.Command;
+
+import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Shape;
+
+/**
+ * The MoveAll class represents a command moving many shapes or groups by the same distances,
+ * as one change of the drawing. Like Move, it keeps the shapes before and after the move, in
+ * arrays, and puts them back without copying them.
+ */
+public class MoveAll implements Command {
+    private final AsciiPaint paint;
+    private final int[] indices;
+    private final double dx, dy;
+    private Shape[] previousStates;
+    private Shape[] movedStates;
+
+    /**
+     * Constructs a command moving the shapes or groups at the given indices.
+     *
+     * @param paint   the AsciiPaint instance of the shapes.
+     * @param indices the indices of the shapes, or of the groups after the shapes.
+     * @param dx      the horizontal movement distance.
+     * @param dy      the vertical movement distance.
+     * @throws IllegalArgumentException if the indices are null.
+     */
+    public MoveAll(AsciiPaint paint, int[] indices, double dx, double dy) {
+        if (indices == null) {
+            throw new IllegalArgumentException("Given indices are null");
+        }
+        this.paint = paint;
+        this.indices = indices.clone();
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    /**
+     * Moves every shape, after checking all the indices, so that an invalid one changes nothing.
+     *
+     * @throws IllegalArgumentException if an index is invalid.
+     */
+    @Override
+    public void execute() {
+        int count = paint.getShapes().size() + paint.getComponents().size();
+        for (int index : indices) {
+            if (index < 0 || index >= count) {
+                throw new IllegalArgumentException("Invalid index: " + index);
+            }
+        }
+        Shape[] previous = new Shape[indices.length];
+        Shape[] moved = new Shape[indices.length];
+        paint.batch(() -> {
+            for (int i = 0; i < indices.length; i++) {
+                previous[i] = paint.getShapeOrGroupAt(indices[i]);
+                moved[i] = previous[i].copy();
+                moved[i].move(dx, dy);
+                paint.replaceShapeOrGroup(indices[i], moved[i]);
+            }
+        });
+        previousStates = previous;
+        movedStates = moved;
+    }
+
+    @Override
+    public void undo() {
+        paint.batch(() -> {
+            for (int i = indices.length - 1; i >= 0; i--) {
+                paint.replaceShapeOrGroup(indices[i], previousStates[i]);
+            }
+        });
+    }
+
+    @Override
+    public void redo() {
+        paint.batch(() -> {
+            for (int i = 0; i < indices.length; i++) {
+                paint.replaceShapeOrGroup(indices[i], movedStates[i]);
+            }
+        });
+    }
+
+    @Override
+    public long footprint() {
+        long size = 48 + 4L * indices.length;
+        if (previousStates != null) {
+            for (Shape shape : previousStates) {
+                size += 16 + History.footprint(shape);
+            }
+        }
+        return size;
+    }
+}
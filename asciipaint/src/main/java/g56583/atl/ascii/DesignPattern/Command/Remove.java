@@ -41,4 +41,9 @@ public class Remove implements Command {
     public void redo() {
         execute();
     }
+
+    @Override
+    public long footprint() {
+        return removedShape == null ? 32 : 32 + History.footprint(removedShape);
+    }
 }
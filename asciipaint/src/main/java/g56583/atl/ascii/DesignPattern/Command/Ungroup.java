@@ -38,4 +38,9 @@ public class Ungroup implements Command {
     public void redo() {
         execute();
     }
+
+    @Override
+    public long footprint() {
+        return originalGroup == null ? 32 : 32 + History.footprint(originalGroup);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,249 @@
+package g56583.atl.ascii.DesignPattern.Composite;
+
+import g56583.atl.ascii.model.Bounds;
+import g56583.atl.ascii.model.SpanSink;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A bounding volume hierarchy over the children of a composite: a binary tree whose nodes keep
+ * the bounds of the children below them, so that a point or a row only visits the children whose
+ * bounds it meets. Nested composites answer through their own tree, which makes the whole group
+ * a hierarchy of bounds over its shapes.
+ * The tree is immutable and can thus be shared by the copies of a composite. Children added after
+ * it was built are kept in a short list, checked one by one, until they are worth a new tree.
+ */
+final class BoundsTree {
+    private static final int LEAF_SIZE = 4;
+    private static final int MIN_PENDING = 8;
+
+    private final Component[] items;
+    private final Bounds[] itemBounds;
+    private final double[] boxes;
+    private final int[] firstItem;
+    private final int[] lastItem;
+    private final int[] right;
+    private final int size;
+    private final Pending pending;
+    private final int pendingCount;
+    private final Bounds union;
+
+    private BoundsTree(Component[] items, Bounds[] itemBounds, double[] boxes, int[] firstItem,
+                       int[] lastItem, int[] right, int size, Pending pending, int pendingCount, Bounds union) {
+        this.items = items;
+        this.itemBounds = itemBounds;
+        this.boxes = boxes;
+        this.firstItem = firstItem;
+        this.lastItem = lastItem;
+        this.right = right;
+        this.size = size;
+        this.pending = pending;
+        this.pendingCount = pendingCount;
+        this.union = union;
+    }
+
+    /**
+     * Builds the tree of the given children. Children with empty bounds cover no point
+     * and are left out.
+     *
+     * @param children The children of a composite.
+     * @return The tree of their bounds.
+     */
+    static BoundsTree of(List<Component> children) {
+        Entry[] entries = new Entry[children.size()];
+        int count = 0;
+        Bounds union = Bounds.EMPTY;
+        for (Component child : children) {
+            Bounds bounds = child.bounds();
+            union = union.union(bounds);
+            if (!bounds.isEmpty()) {
+                entries[count++] = new Entry(child, bounds);
+            }
+        }
+        int nodes = Math.max(1, 2 * count);
+        BoundsTree tree = new BoundsTree(new Component[count], new Bounds[count], new double[4 * nodes],
+                new int[nodes], new int[nodes], new int[nodes], count, null, 0, union);
+        if (count > 0) {
+            tree.build(entries, 0, count, 0);
+        }
+        return tree;
+    }
+
+    /**
+     * Builds the subtree of the given entries, from the given node, in preorder: the left
+     * subtree of a node follows it, and the index of the right one is kept.
+     *
+     * @return The index following the last node of the subtree.
+     */
+    private int build(Entry[] entries, int from, int to, int node) {
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            Bounds bounds = entries[i].bounds;
+            minX = Math.min(minX, bounds.getMinX());
+            minY = Math.min(minY, bounds.getMinY());
+            maxX = Math.max(maxX, bounds.getMaxX());
+            maxY = Math.max(maxY, bounds.getMaxY());
+        }
+        boxes[4 * node] = minX;
+        boxes[4 * node + 1] = minY;
+        boxes[4 * node + 2] = maxX;
+        boxes[4 * node + 3] = maxY;
+        if (to - from <= LEAF_SIZE) {
+            for (int i = from; i < to; i++) {
+                items[i] = entries[i].child;
+                itemBounds[i] = entries[i].bounds;
+            }
+            firstItem[node] = from;
+            lastItem[node] = to;
+            right[node] = -1;
+            return node + 1;
+        }
+        // Splits the entries in two halves along the longest side of their bounds.
+        Comparator<Entry> order = maxX - minX >= maxY - minY
+                ? Comparator.comparingDouble(Entry::centerX)
+                : Comparator.comparingDouble(Entry::centerY);
+        Arrays.sort(entries, from, to, order);
+        int middle = (from + to) >>> 1;
+        int next = build(entries, from, middle, node + 1);
+        right[node] = next;
+        return build(entries, middle, to, next);
+    }
+
+    /**
+     * Gets the tree with one more child. The child is kept aside, unless enough children were
+     * added since the tree was built, in which case the tree of all the children is built again.
+     *
+     * @param child    The added child.
+     * @param children All the children, the added one included.
+     * @return The tree of the children.
+     */
+    BoundsTree plus(Component child, List<Component> children) {
+        if (pendingCount + 1 > Math.max(MIN_PENDING, size / 8)) {
+            return of(children);
+        }
+        Bounds bounds = child.bounds();
+        Pending added = bounds.isEmpty() ? pending : new Pending(child, bounds, pending);
+        return new BoundsTree(items, itemBounds, boxes, firstItem, lastItem, right, size,
+                added, added == pending ? pendingCount : pendingCount + 1, union.union(bounds));
+    }
+
+    /**
+     * Gets the union of the bounds of the children.
+     *
+     * @return The bounds of all the children.
+     */
+    Bounds union() {
+        return union;
+    }
+
+    /**
+     * Checks if the point of the given coordinates is inside any of the children.
+     *
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return True if a child contains the point.
+     */
+    boolean contains(double x, double y) {
+        if (!union.contains(x, y)) {
+            return false;
+        }
+        for (Pending added = pending; added != null; added = added.next) {
+            if (added.bounds.contains(x, y) && added.child.isInside(x, y)) {
+                return true;
+            }
+        }
+        return size > 0 && contains(0, x, y);
+    }
+
+    /**
+     * Checks if the point is inside any of the children below a node. The tree is balanced, so
+     * the recursion is as deep as the logarithm of the number of children, and it allocates
+     * nothing, unlike a stack per probe.
+     */
+    private boolean contains(int node, double x, double y) {
+        int box = 4 * node;
+        if (x < boxes[box] || y < boxes[box + 1] || x > boxes[box + 2] || y > boxes[box + 3]) {
+            return false;
+        }
+        if (right[node] < 0) {
+            for (int i = firstItem[node]; i < lastItem[node]; i++) {
+                if (itemBounds[i].contains(x, y) && items[i].isInside(x, y)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return contains(node + 1, x, y) || contains(right[node], x, y);
+    }
+
+    /**
+     * Reports the spans of the children whose bounds meet the given part of a row.
+     *
+     * @param y    The row to rasterize.
+     * @param minX The first column to consider (inclusive).
+     * @param maxX The last column to consider (inclusive).
+     * @param sink The sink receiving the covered spans.
+     */
+    void spans(int y, int minX, int maxX, SpanSink sink) {
+        if (!(union.getMinY() <= y && y <= union.getMaxY())) {
+            return;
+        }
+        for (Pending added = pending; added != null; added = added.next) {
+            if (meets(added.bounds, y, minX, maxX)) {
+                added.child.spans(y, minX, maxX, sink);
+            }
+        }
+        if (size > 0) {
+            spans(0, y, minX, maxX, sink);
+        }
+    }
+
+    /**
+     * Reports the spans of the children below a node, recursively as contains does.
+     */
+    private void spans(int node, int y, int minX, int maxX, SpanSink sink) {
+        int box = 4 * node;
+        if (boxes[box + 1] > y || y > boxes[box + 3] || boxes[box] > maxX || minX > boxes[box + 2]) {
+            return;
+        }
+        if (right[node] < 0) {
+            for (int i = firstItem[node]; i < lastItem[node]; i++) {
+                if (meets(itemBounds[i], y, minX, maxX)) {
+                    items[i].spans(y, minX, maxX, sink);
+                }
+            }
+            return;
+        }
+        spans(node + 1, y, minX, maxX, sink);
+        spans(right[node], y, minX, maxX, sink);
+    }
+
+    private static boolean meets(Bounds bounds, int y, int minX, int maxX) {
+        return bounds.getMinY() <= y && y <= bounds.getMaxY()
+                && bounds.getMinX() <= maxX && minX <= bounds.getMaxX();
+    }
+
+    /**
+     * A child and its bounds, while the tree is built.
+     */
+    private record Entry(Component child, Bounds bounds) {
+        double centerX() {
+            return bounds.getMinX() / 2 + bounds.getMaxX() / 2;
+        }
+
+        double centerY() {
+            return bounds.getMinY() / 2 + bounds.getMaxY() / 2;
+        }
+    }
+
+    /**
+     * The children added since the tree was built, the last one first.
+     */
+    private record Pending(Component child, Bounds bounds, Pending next) {
+    }
+}
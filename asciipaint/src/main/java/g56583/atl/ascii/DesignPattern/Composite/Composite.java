@@ -1,17 +1,34 @@
 package g56583.atl.ascii.DesignPattern.Composite;
 
-import g56583.atl.ascii.model.Point;
+import g56583.atl.ascii.model.Bounds;
+import g56583.atl.ascii.model.SpanSink;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The Composite class represents a composite shape in the Composite design pattern.
  * It extends the Component class and can contain other Component instances,
  * including other Composites, thus forming a tree structure of shapes.
+ * The children are never changed by the composite. Moving it only adds to an offset, applied
+ * to the children when they are asked for: the children are then replaced with moved copies,
+ * so that the copies sharing them are left unchanged. Copies of a composite can thus share
+ * their children, and copying one costs a list of references instead of a copy of the whole tree.
+ * The children are indexed by their bounds, so that a point or a row only visits the children
+ * it may meet, at every level of nested groups.
+ * Freezing a composite freezes its children, and the moved copies it makes of them.
  */
 public class Composite extends Component {
-    private final List<Component> children ;
+    private final List<Component> children;
+    private double offsetX;
+    private double offsetY;
+    private BoundsTree tree;
+    private Moved moved;
+    private int descendants;
+    private boolean childrenFrozen = true;
+    private final AtomicReference<OffsetSink> offsetSink = new AtomicReference<>();
 
     /**
      * Constructs a Composite object with the specified color.
@@ -23,68 +40,260 @@ public class Composite extends Component {
         this.children = new ArrayList<>();
     }
 
+    /**
+     * Constructs a copy of a composite, sharing its children.
+     *
+     * @param other The composite to copy.
+     */
     public Composite(Composite other) {
         super(other.getColor());
-        this.children = new ArrayList<>();
-        for (Component child : other.getChildren()) {
-            this.children.add(child.copy());
-        }
+        this.children = new ArrayList<>(other.children);
+        this.offsetX = other.offsetX;
+        this.offsetY = other.offsetY;
+        this.tree = other.tree;
+        this.moved = other.moved;
+        this.descendants = other.descendants;
+        this.childrenFrozen = other.childrenFrozen;
     }
 
 
     /**
-     * Adds a child component to this composite.
+     * Adds a child component to this composite. The index of the children is updated rather
+     * than built again.
      *
      * @param component The component to be added.
+     * @throws IllegalStateException If the composite is frozen.
      */
     public void add(Component component) {
+        checkChangeable();
+        if (offsetX != 0 || offsetY != 0) {
+            // The added child is not moved: the other ones are, before it joins them.
+            Moved current = movedChildren();
+            children.clear();
+            children.addAll(current.children);
+            tree = current.tree;
+            offsetX = 0;
+            offsetY = 0;
+            moved = null;
+            childrenFrozen = false;
+        }
         children.add(component);
+        childrenFrozen &= component.isFrozen();
+        descendants += 1 + (component instanceof Composite group ? group.descendants : 0);
+        if (tree != null) {
+            tree = tree.plus(component, children);
+        }
     }
 
     /**
      * Gets the list of child components in this composite.
      *
-     * @return A list of child components.
+     * @return A read-only view of the list of child components.
      */
     public List<Component> getChildren() {
-        return children;
+        if (offsetX == 0 && offsetY == 0) {
+            return Collections.unmodifiableList(children);
+        }
+        return movedChildren().children;
+    }
+
+    /**
+     * Gets the number of components below this composite: its children, the children of the
+     * composites among them, and so on. The number is kept as the children are added, without
+     * asking for them, so that it does not make the moved copies of the children.
+     *
+     * @return The number of components below this composite.
+     */
+    public int getDescendantCount() {
+        return descendants;
     }
 
     /**
-     * Moves the composite and all its children by the specified distances.
+     * Moves the composite and all its children by the specified distances. The children are
+     * moved when they are asked for, so that moving a group costs the same whatever its size.
      *
      * @param dx The horizontal distance to move the composite.
      * @param dy The vertical distance to move the composite.
      */
     @Override
     public void move(double dx, double dy) {
-        for (Component child : children) {
-            child.move(dx, dy);
+        checkChangeable();
+        offsetX += dx;
+        offsetY += dy;
+        moved = null;
+    }
+
+    /**
+     * Gets the union of the bounds of the children, empty when the composite has no child.
+     * The bounds are computed once, kept when a child is added and moved with the composite.
+     *
+     * @return The bounds of the composite.
+     */
+    @Override
+    public Bounds bounds() {
+        if (isShifted()) {
+            return tree().union().translate(offsetX, offsetY);
         }
+        return movedTree().union();
     }
 
     /**
-     * Checks if a given point is inside any of the child components of this composite.
+     * Checks if the point of the given coordinates is inside any of the child components
+     * of this composite.
      *
-     * @param p The point to be checked.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
      * @return True if the point is inside any child component, false otherwise.
      */
     @Override
-    public boolean isInside(Point p) {
-        for (Component child : children) {
-            if (child.isInside(p)) {
-                return true;
+    public boolean isInside(double x, double y) {
+        if (isShifted()) {
+            return tree().contains(x - offsetX, y - offsetY);
+        }
+        return movedTree().contains(x, y);
+    }
+
+    /**
+     * Reports the spans of every child on the given row. Spans of overlapping children
+     * may overlap as well.
+     *
+     * @param y    The row to rasterize.
+     * @param minX The first column to consider (inclusive).
+     * @param maxX The last column to consider (inclusive).
+     * @param sink The sink receiving the covered spans.
+     */
+    @Override
+    public void spans(int y, int minX, int maxX, SpanSink sink) {
+        if (offsetX == 0 && offsetY == 0) {
+            tree().spans(y, minX, maxX, sink);
+        } else if (isShifted()) {
+            int dx = (int) offsetX;
+            int dy = (int) offsetY;
+            // The sink is taken while in use, so that rows drawn by other threads make their own.
+            OffsetSink shifted = offsetSink.getAndSet(null);
+            if (shifted == null) {
+                shifted = new OffsetSink();
             }
+            shifted.target = sink;
+            shifted.dx = dx;
+            tree().spans(y - dy, minX - dx, maxX - dx, shifted);
+            shifted.target = null;
+            offsetSink.set(shifted);
+        } else {
+            movedTree().spans(y, minX, maxX, sink);
         }
-        return false;
     }
 
     @Override
     public Composite copy() {
-        Composite copy = new Composite(this.getColor());
-        for (Component child : this.children) {
-            copy.add(child.copy());
+        return new Composite(this);
+    }
+
+    /**
+     * Freezes the composite and its children. The children are frozen once: the copies of
+     * a frozen composite know that theirs are, so that freezing a moved copy costs nothing
+     * more than freezing the composite itself.
+     */
+    @Override
+    public void freeze() {
+        if (!childrenFrozen) {
+            for (Component child : children) {
+                child.freeze();
+            }
+            childrenFrozen = true;
+        }
+        Moved current = moved;
+        if (current != null) {
+            for (Component child : current.children) {
+                child.freeze();
+            }
+        }
+        super.freeze();
+    }
+
+    /**
+     * Checks if the children can be asked in their own coordinates: the offset is a whole
+     * number of cells, so that moving a point back is exact.
+     *
+     * @return True if the offset is made of small integers.
+     */
+    private boolean isShifted() {
+        return offsetX == (int) offsetX && offsetY == (int) offsetY
+                && Math.abs(offsetX) < 1 << 30 && Math.abs(offsetY) < 1 << 30;
+    }
+
+    /**
+     * Gets the index of the children, not moved, building it if needed.
+     *
+     * @return The bounds tree of the children.
+     */
+    private BoundsTree tree() {
+        BoundsTree current = tree;
+        if (current == null) {
+            current = BoundsTree.of(children);
+            tree = current;
+        }
+        return current;
+    }
+
+    /**
+     * Gets the moved copies of the children, making them if needed.
+     *
+     * @return The moved children, without their index.
+     */
+    private Moved movedChildren() {
+        Moved current = moved;
+        if (current == null) {
+            List<Component> copies = new ArrayList<>(children.size());
+            for (Component child : children) {
+                Component copy = child.copy();
+                copy.move(offsetX, offsetY);
+                if (isFrozen()) {
+                    copy.freeze();
+                }
+                copies.add(copy);
+            }
+            current = new Moved(Collections.unmodifiableList(copies), null);
+            moved = current;
+        }
+        return current;
+    }
+
+    /**
+     * Gets the index of the moved copies of the children, building it if needed.
+     *
+     * @return The bounds tree of the moved children.
+     */
+    private BoundsTree movedTree() {
+        if (offsetX == 0 && offsetY == 0) {
+            return tree();
+        }
+        Moved current = movedChildren();
+        if (current.tree == null) {
+            current = new Moved(current.children, BoundsTree.of(current.children));
+            moved = current;
+        }
+        return current.tree;
+    }
+
+    /**
+     * The children moved by the offset of the composite, and their index once it is needed.
+     * It is immutable, so that concurrent readers see either none or a complete one.
+     */
+    private record Moved(List<Component> children, BoundsTree tree) {
+    }
+
+    /**
+     * Moves the spans of the children by the offset of the composite, kept to be reused from a
+     * row to the next.
+     */
+    private static final class OffsetSink implements SpanSink {
+        private SpanSink target;
+        private int dx;
+
+        @Override
+        public void span(int from, int to) {
+            target.span(from + dx, to + dx);
         }
-        return copy;
     }
-}
\ No newline at end of file
+}
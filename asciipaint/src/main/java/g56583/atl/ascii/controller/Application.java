@@ -2,10 +2,16 @@ package g56583.atl.ascii.controller;
 
 import g56583.atl.ascii.DesignPattern.Command.*;
 import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.DrawingFile;
 import g56583.atl.ascii.view.View;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.Stack;
 
 /**
  * The main controller class for the AsciiPaint application.
@@ -14,8 +20,7 @@ import java.util.Stack;
 public class Application {
     private AsciiPaint paint;
     private final View view;
-    private final Stack<Command> undoStack = new Stack<>();
-    private final Stack<Command> redoStack = new Stack<>();
+    private History history;
 
     /**
      * Constructs an Application instance with the specified view.
@@ -39,7 +44,8 @@ public class Application {
         view.showCommand();
         view.displayInformation(paint);
         while (!exit) {
-            String command = view.askCommand("Enter a command").toLowerCase();
+            String input = view.askCommand("Enter a command");
+            String command = input.toLowerCase();
             String[] elements = command.split(" ");
 
             switch (elements[0]) {
@@ -57,20 +63,10 @@ public class Application {
                 case "remove" -> handleRemoveCommand(elements);
                 case "group" -> handleGroupCommand(elements);
                 case "ungroup" -> handleUngroupCommand(elements);
-                case "undo" -> {
-                    if (!undoStack.isEmpty()) {
-                        Command com = undoStack.pop();
-                        com.undo();
-                        redoStack.push(com);
-                    }
-                }
-                case "redo" -> {
-                    if (!redoStack.isEmpty()) {
-                        Command com = redoStack.pop();
-                        com.redo();
-                        undoStack.push(com);
-                    }
-                }
+                case "save" -> handleSaveCommand(input.split(" "));
+                case "load" -> handleLoadCommand(input.split(" "));
+                case "undo" -> history.undo();
+                case "redo" -> history.redo();
                 default -> view.displayError("Invalid command. Type 'help' for instructions.");
             }
         }
@@ -89,9 +85,7 @@ public class Application {
                 throw new IllegalArgumentException("Invalid command format. Use 'group index'");
             }
             Group groupCommand = new Group(paint, Arrays.copyOfRange(elements, 1, elements.length));
-            groupCommand.execute();
-            undoStack.push(groupCommand);
-            redoStack.clear();
+            history.execute(groupCommand);
             view.success();
         } catch (NumberFormatException e) {
             view.displayError("Invalid group index format. Use 'group index'");
@@ -116,9 +110,7 @@ public class Application {
         try {
             int groupIndex = Integer.parseInt(elements[1]);
             Ungroup ungroupCommand = new Ungroup(paint, groupIndex);
-            ungroupCommand.execute();
-            undoStack.push(ungroupCommand);
-            redoStack.clear();
+            history.execute(ungroupCommand);
             view.success();
         } catch (NumberFormatException e) {
             view.displayError("Invalid group index format.");
@@ -127,6 +119,46 @@ public class Application {
         }
     }
 
+    /**
+     * Handles the 'save' command by writing the drawing to a file.
+     *
+     * @param elements An array of strings representing the command elements, with their case kept,
+     *                 where the second element is the path of the file.
+     */
+    private void handleSaveCommand(String[] elements) {
+        if (elements.length != 2) {
+            view.displayError("Invalid command format. Use 'save file'");
+            return;
+        }
+        try {
+            DrawingFile.save(paint.getDrawing(), Path.of(elements[1]));
+            view.success();
+        } catch (IOException | RuntimeException e) {
+            view.displayError("Cannot save the drawing: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles the 'load' command by replacing the drawing with the one saved in a file.
+     * The history is cleared, since its commands refer to the shapes of the previous drawing.
+     *
+     * @param elements An array of strings representing the command elements, with their case kept,
+     *                 where the second element is the path of the file.
+     */
+    private void handleLoadCommand(String[] elements) {
+        if (elements.length != 2) {
+            view.displayError("Invalid command format. Use 'load file'");
+            return;
+        }
+        try {
+            paint.setDrawing(DrawingFile.load(Path.of(elements[1])));
+            history.clear();
+            view.success();
+        } catch (IOException | RuntimeException e) {
+            view.displayError("Cannot load the drawing: " + e.getMessage());
+        }
+    }
+
     /**
      * Initializes the application by setting up the view and prompting the user
      * for the dimensions of the drawing canvas.
@@ -171,6 +203,7 @@ public class Application {
      */
     public void setPaint(AsciiPaint paint) {
         this.paint = paint;
+        this.history = new History(paint);
     }
 
     /**
@@ -185,9 +218,7 @@ public class Application {
         }
         try {
             Color changeColorCommand = new Color(paint, elements);
-            changeColorCommand.execute();
-            undoStack.push(changeColorCommand);
-            redoStack.clear();
+            history.execute(changeColorCommand);
             view.success();
         } catch (RuntimeException e) {
             view.displayError(e.getMessage());
@@ -209,9 +240,7 @@ public class Application {
             int width = Integer.parseInt(elements[1]);
             int height = Integer.parseInt(elements[2]);
             Create createCommand = new Create(paint, width, height);
-            createCommand.execute();
-            undoStack.push(createCommand);
-            redoStack.clear();
+            history.execute(createCommand);
 
             view.success();
         } catch (NumberFormatException e) {
@@ -238,9 +267,7 @@ public class Application {
             double dy = Double.parseDouble(elements[3]);
 
             Move moveCommand = new Move(paint, shapeIndex, dx, dy);
-            moveCommand.execute();
-            undoStack.push(moveCommand);
-            redoStack.clear();
+            history.execute(moveCommand);
 
             view.success();
         } catch (NumberFormatException e) {
@@ -264,9 +291,7 @@ public class Application {
         try {
             int shapeIndex = Integer.parseInt(elements[1]);
             Remove removeCommand = new Remove(paint, shapeIndex);
-            removeCommand.execute();
-            undoStack.push(removeCommand);
-            redoStack.clear();
+            history.execute(removeCommand);
 
             view.success();
         } catch (NumberFormatException e) {
@@ -279,16 +304,61 @@ public class Application {
 
     /**
      * The main method to start the AsciiPaint application.
+     * Given the path of a script, the application runs it without interaction instead, and
+     * given '--serve' and a port, it starts a render server.
      *
-     * @param args Command-line arguments (not used in this application).
+     * @param args Command-line arguments: nothing, the path of a script to run, or '--serve'
+     *             and the port of the render server.
      */
     public static void main(String[] args) {
+        if (args.length == 2 && args[0].equals("--serve")) {
+            serve(args[1]);
+            return;
+        }
+        if (args.length == 1) {
+            runScript(Path.of(args[0]));
+            return;
+        }
         View view = new View();
         Application controller = new Application(view);
         controller.start();
         controller.controller();
     }
 
+    /**
+     * Runs a script of commands, writing only what its 'show' and 'list' commands and its
+     * errors produce.
+     *
+     * @param script The path of the script.
+     */
+    private static void runScript(Path script) {
+        // The writer is only flushed, closing it would close the console.
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+        try {
+            new ScriptRunner(new AsciiPaint(), out).run(script);
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Cannot run the script: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a render server, which answers requests until the process is killed.
+     *
+     * @param port The port of the server.
+     */
+    private static void serve(String port) {
+        try {
+            RenderServer server = new RenderServer(new InetSocketAddress(Integer.parseInt(port)));
+            server.start();
+            System.out.println("Rendering drawings on http://localhost:" + server.getPort() + "/drawings");
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid port: " + port);
+        } catch (IOException e) {
+            System.err.println("Cannot start the server: " + e.getMessage());
+        }
+    }
+
     /**
      * Handles the "add" command by adding a shape to the AsciiPaint model.
      *
@@ -301,9 +371,7 @@ public class Application {
         }
         try {
             Add addCommand = new Add(paint, elements);
-            addCommand.execute();
-            undoStack.push(addCommand);
-            redoStack.clear();
+            history.execute(addCommand);
             view.success();
         } catch (IllegalArgumentException e) {
             view.displayError(e.getMessage());
@@ -0,0 +1,388 @@
+package g56583.atl.ascii.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Drawing;
+import g56583.atl.ascii.model.Rasterizer;
+import g56583.atl.ascii.model.RenderCache;
+import g56583.atl.ascii.model.SharedPaint;
+import g56583.atl.ascii.model.Viewport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * A headless HTTP server rendering named AsciiPaint drawings kept in memory. Each request is
+ * handled by its own virtual thread, and every drawing is a SharedPaint, so renders never wait
+ * for the commands. The last frame rendered of each drawing is kept with the version it shows:
+ * the requests for the same version share it, and only one of them renders a new version.
+ * <ul>
+ *     <li>GET /drawings lists the names of the drawings, one per line.</li>
+ *     <li>PUT /drawings/name?width=w&amp;height=h creates an empty drawing, 25x25 by default.</li>
+ *     <li>GET /drawings/name renders the drawing, with an ETag made of the drawing and its version.
+ *     The query
+ *     x=..&amp;y=..&amp;width=..&amp;height=..&amp;scale=.. renders a window on the drawing instead, all
+ *     of them being optional.</li>
+ *     <li>POST /drawings/name runs the commands of the body, with the syntax of the scripts,
+ *     and answers what the 'show' and 'list' commands and the errors write. Files cannot be
+ *     saved nor loaded.</li>
+ *     <li>DELETE /drawings/name forgets the drawing.</li>
+ * </ul>
+ * The drawings created and the windows rendered through requests, by PUT, GET or the 'create'
+ * and 'view' commands, have at most MAX_CELLS cells, so that no request makes the server
+ * allocate a frame of any size.
+ */
+public class RenderServer {
+    /**
+     * The largest script accepted, in bytes.
+     */
+    public static final int MAX_SCRIPT = 1 << 20;
+    /**
+     * The largest number of cells of a drawing or of a window asked for by a request.
+     */
+    public static final long MAX_CELLS = 1 << 22;
+    private static final String PREFIX = "/drawings";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentMap<String, Entry> drawings = new ConcurrentHashMap<>();
+    private final RenderCache windows = new RenderCache(1024);
+    // The drawings of the server, replaced ones included, are told apart in the ETags. The ids
+    // start at random so that the tags of another run of the server do not match either.
+    private final AtomicLong entries = new AtomicLong(ThreadLocalRandom.current().nextLong());
+
+    /**
+     * Constructs a server listening to the given address, which is not started yet.
+     *
+     * @param address The address, with the port 0 for any free port.
+     * @throws IOException If the address cannot be bound.
+     */
+    public RenderServer(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 1024);
+        server.createContext(PREFIX, this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting for at most the given delay for the requests being answered.
+     *
+     * @param delay The delay, in seconds.
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.close();
+    }
+
+    /**
+     * Gets the port the server listens to.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Adds a drawing or replaces the drawing of the same name.
+     *
+     * @param name  The name of the drawing: letters, digits, '-' and '_'.
+     * @param paint The AsciiPaint of the drawing, which must not be used anymore but by the server.
+     * @return The drawing shared with the server.
+     * @throws IllegalArgumentException If the name is invalid or the paint is null.
+     */
+    public SharedPaint put(String name, AsciiPaint paint) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid drawing name: " + name);
+        }
+        SharedPaint shared = new SharedPaint(paint);
+        drawings.put(name, new Entry(entries.getAndIncrement(), shared));
+        return shared;
+    }
+
+    /**
+     * Gets the last frame of a drawing, rendering it if the drawing changed since.
+     *
+     * @param name The name of the drawing.
+     * @return The frame, in UTF-8, or null if there is no such drawing.
+     */
+    byte[] render(String name) {
+        Entry entry = drawings.get(name);
+        return entry == null ? null : entry.frame().bytes();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                route(exchange);
+            } catch (RuntimeException e) {
+                // If the answer was sent already, the client sees it truncated instead.
+                send(exchange, 500, e + "\n");
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        URI uri = exchange.getRequestURI();
+        String path = uri.getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals(PREFIX) || path.equals(PREFIX + "/")) {
+            if (method.equals("GET")) {
+                List<String> names = new ArrayList<>(drawings.keySet());
+                Collections.sort(names);
+                StringBuilder list = new StringBuilder();
+                for (String name : names) {
+                    list.append(name).append('\n');
+                }
+                send(exchange, 200, list.toString());
+            } else {
+                send(exchange, 405, "Method not allowed: " + method + "\n");
+            }
+            return;
+        }
+        String name = path.substring(PREFIX.length() + 1);
+        if (!path.startsWith(PREFIX + "/") || !NAME.matcher(name).matches()) {
+            send(exchange, 404, "No such drawing: " + path + "\n");
+            return;
+        }
+        switch (method) {
+            case "GET" -> get(exchange, name, uri.getRawQuery());
+            case "PUT" -> create(exchange, name, uri.getRawQuery());
+            case "POST" -> run(exchange, name);
+            case "DELETE" -> send(exchange, drawings.remove(name) == null ? 404 : 204, null);
+            default -> send(exchange, 405, "Method not allowed: " + method + "\n");
+        }
+    }
+
+    /**
+     * Answers the last frame of a drawing or of a window on it, or nothing if the client has
+     * it already.
+     */
+    private void get(HttpExchange exchange, String name, String query) throws IOException {
+        Entry entry = drawings.get(name);
+        if (entry == null) {
+            send(exchange, 404, "No such drawing: " + name + "\n");
+            return;
+        }
+        Frame frame;
+        if (query == null || query.isEmpty()) {
+            frame = entry.frame();
+        } else {
+            SharedPaint.Version current = entry.paint().current();
+            String window;
+            try {
+                window = windows.render(current.drawing(), viewport(parse(query), current.drawing()));
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+            frame = new Frame(current.version(), window.getBytes(StandardCharsets.UTF_8));
+        }
+        String tag = "\"" + Long.toHexString(entry.id()) + "-" + frame.version() + "\"";
+        exchange.getResponseHeaders().set("ETag", tag);
+        if (tag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, frame.bytes().length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(frame.bytes());
+        }
+    }
+
+    /**
+     * Creates an empty drawing of the size given in the query.
+     */
+    private void create(HttpExchange exchange, String name, String query) throws IOException {
+        int width = 25;
+        int height = 25;
+        try {
+            Map<String, String> parameters = parse(query);
+            if (parameters.containsKey("width")) {
+                width = Integer.parseInt(parameters.get("width"));
+            }
+            if (parameters.containsKey("height")) {
+                height = Integer.parseInt(parameters.get("height"));
+            }
+            checkCells(width, height);
+            put(name, new AsciiPaint(width, height));
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, e.getMessage() + "\n");
+            return;
+        }
+        send(exchange, 201, null);
+    }
+
+    /**
+     * Runs the script of the request body on a drawing. The body is read before taking the
+     * lock, so a slow client never holds the other writers.
+     */
+    private void run(HttpExchange exchange, String name) throws IOException {
+        Entry entry = drawings.get(name);
+        if (entry == null) {
+            send(exchange, 404, "No such drawing: " + name + "\n");
+            return;
+        }
+        String script;
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_SCRIPT + 1);
+            if (bytes.length > MAX_SCRIPT) {
+                send(exchange, 413, "The script is longer than " + MAX_SCRIPT + " bytes.\n");
+                return;
+            }
+            script = new String(bytes, StandardCharsets.UTF_8);
+        }
+        StringBuilder out = new StringBuilder();
+        int[] errors = new int[1];
+        entry.paint().write((paint, history) -> {
+            ScriptRunner runner = new ScriptRunner(paint, history, out, false, MAX_CELLS);
+            runner.run(new StringReader(script));
+            errors[0] = runner.getErrors();
+        });
+        send(exchange, errors[0] == 0 ? 200 : 400, out.toString());
+    }
+
+    /**
+     * Reads the window given in a query, by default the whole drawing.
+     */
+    private static Viewport viewport(Map<String, String> parameters, Drawing drawing) {
+        int scale = integer(parameters, "scale", 1);
+        if (scale <= 0) {
+            throw new IllegalArgumentException("The scale should be more than 0.");
+        }
+        int width = integer(parameters, "width", Math.ceilDiv(drawing.getWidth(), scale));
+        int height = integer(parameters, "height", Math.ceilDiv(drawing.getHeight(), scale));
+        checkCells(width, height);
+        return new Viewport(integer(parameters, "x", 0), integer(parameters, "y", 0), width, height, scale);
+    }
+
+    /**
+     * Checks that a drawing or a window of the given size has at most MAX_CELLS cells.
+     */
+    private static void checkCells(int width, int height) {
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("The size " + width + "x" + height + " is more than "
+                    + MAX_CELLS + " cells.");
+        }
+    }
+
+    private static int integer(Map<String, String> parameters, String name, int byDefault) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return byDefault;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static Map<String, String> parse(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static void send(HttpExchange exchange, int status, String text) throws IOException {
+        if (text == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    /**
+     * A frame rendered and the version of the drawing it shows.
+     */
+    private record Frame(long version, byte[] bytes) {
+    }
+
+    /**
+     * A drawing with its last frame.
+     */
+    private static final class Entry {
+        private final long id;
+        private final SharedPaint paint;
+        // A lock rather than synchronized, which would pin the virtual threads rendering.
+        private final ReentrantLock rendering = new ReentrantLock();
+        private volatile Frame frame;
+
+        private Entry(long id, SharedPaint paint) {
+            this.id = id;
+            this.paint = paint;
+        }
+
+        private long id() {
+            return id;
+        }
+
+        private SharedPaint paint() {
+            return paint;
+        }
+
+        /**
+         * Gets the last frame, rendering the current version if the frame is older. The
+         * requests arriving while it renders wait for it instead of rendering it again.
+         */
+        private Frame frame() {
+            long version = paint.getVersion();
+            Frame last = frame;
+            if (last != null && last.version() >= version) {
+                return last;
+            }
+            rendering.lock();
+            try {
+                last = frame;
+                if (last == null || last.version() < version) {
+                    SharedPaint.Version current = paint.current();
+                    String ascii = new Rasterizer(current.drawing()).render();
+                    last = new Frame(current.version(), ascii.getBytes(StandardCharsets.UTF_8));
+                    frame = last;
+                }
+                return last;
+            } finally {
+                rendering.unlock();
+            }
+        }
+    }
+}
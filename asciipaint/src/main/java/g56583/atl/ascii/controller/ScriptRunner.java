@@ -0,0 +1,232 @@
+package g56583.atl.ascii.controller;
+
+import g56583.atl.ascii.DesignPattern.Command.*;
+import g56583.atl.ascii.model.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a script of AsciiPaint commands without interaction, one command per line, with the
+ * syntax of the console: add, move, color, remove, group, ungroup, create, undo, redo, save,
+ * load, show, list and exit. 'view x y width height [scale]' shows a window on the drawing,
+ * zoomed out when given a scale. Nothing is written for a successful command: only 'show',
+ * 'view' and 'list' write to the output, and an invalid command writes an error giving its
+ * line before the script goes on. The drawing is 25x25 until a 'create' or a 'load' command.
+ */
+public class ScriptRunner {
+    private final AsciiPaint paint;
+    private final Appendable out;
+    private final History history;
+    private final boolean files;
+    private final long maxCells;
+    private final List<Integer> indices = new ArrayList<>();
+    private int errors;
+
+    /**
+     * Constructs a runner applying the commands to the given AsciiPaint.
+     *
+     * @param paint The AsciiPaint the commands apply to.
+     * @param out   The output of the 'show' and 'list' commands and of the errors.
+     */
+    public ScriptRunner(AsciiPaint paint, Appendable out) {
+        this(paint, new History(paint), out, true, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a runner recording the commands in an existing history.
+     *
+     * @param paint    The AsciiPaint the commands apply to.
+     * @param history  The history of the AsciiPaint.
+     * @param out      The output of the 'show' and 'list' commands and of the errors.
+     * @param files    False to refuse the 'save' and 'load' commands.
+     * @param maxCells The largest number of cells of the drawings created and of the windows
+     *                 shown by the commands.
+     */
+    ScriptRunner(AsciiPaint paint, History history, Appendable out, boolean files, long maxCells) {
+        if (paint == null || history == null || out == null) {
+            throw new IllegalArgumentException("Given paint, history or output is null");
+        }
+        this.paint = paint;
+        this.out = out;
+        this.history = history;
+        this.files = files;
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * Runs the script of the given file.
+     *
+     * @param script The path of the script.
+     * @throws IOException If the script cannot be read or the output fails.
+     */
+    public void run(Path script) throws IOException {
+        try (Reader reader = Files.newBufferedReader(script)) {
+            run(reader);
+        }
+    }
+
+    /**
+     * Runs the script read from the given reader, until its end or an 'exit' command.
+     *
+     * @param script The script.
+     * @throws IOException If the script cannot be read or the output fails.
+     */
+    public void run(Reader script) throws IOException {
+        ScriptTokenizer tokens = new ScriptTokenizer(script);
+        while (tokens.nextLine()) {
+            tokens.next();
+            if (tokens.is("exit")) {
+                return;
+            }
+            try {
+                apply(tokens);
+            } catch (RuntimeException | IOException e) {
+                errors++;
+                out.append("Line ").append(String.valueOf(tokens.lineNumber())).append(": ")
+                        .append(String.valueOf(e.getMessage())).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Gets the number of commands that failed so far.
+     *
+     * @return The number of errors.
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Applies the command whose name was just read.
+     */
+    private void apply(ScriptTokenizer tokens) throws IOException {
+        if (tokens.is("add")) {
+            execute(tokens, new Add(paint, readShape(tokens)));
+        } else if (tokens.is("move")) {
+            execute(tokens, new Move(paint, tokens.nextInt(), tokens.nextDouble(), tokens.nextDouble()));
+        } else if (tokens.is("color")) {
+            execute(tokens, new Color(paint, tokens.nextInt(), tokens.nextChar()));
+        } else if (tokens.is("remove")) {
+            execute(tokens, new Remove(paint, tokens.nextInt()));
+        } else if (tokens.is("group")) {
+            indices.clear();
+            do {
+                indices.add(tokens.nextInt());
+            } while (tokens.hasToken());
+            execute(tokens, new Group(paint, indices));
+        } else if (tokens.is("ungroup")) {
+            execute(tokens, new Ungroup(paint, tokens.nextInt()));
+        } else if (tokens.is("create")) {
+            int width = tokens.nextInt();
+            int height = tokens.nextInt();
+            checkCells(width, height);
+            execute(tokens, new Create(paint, width, height));
+        } else if (tokens.is("undo")) {
+            end(tokens);
+            history.undo();
+        } else if (tokens.is("redo")) {
+            end(tokens);
+            history.redo();
+        } else if (tokens.is("show")) {
+            end(tokens);
+            paint.show(out);
+            out.append('\n');
+        } else if (tokens.is("view")) {
+            int x = tokens.nextInt();
+            int y = tokens.nextInt();
+            int width = tokens.nextInt();
+            int height = tokens.nextInt();
+            int scale = tokens.hasToken() ? tokens.nextInt() : 1;
+            end(tokens);
+            checkCells(width, height);
+            out.append(paint.asAscii(new Viewport(x, y, width, height, scale))).append('\n');
+        } else if (tokens.is("list")) {
+            end(tokens);
+            out.append(paint.getShapesList()).append('\n');
+        } else if (!files && (tokens.is("save") || tokens.is("load"))) {
+            throw new IllegalArgumentException("Files cannot be used here: " + tokens.text());
+        } else if (tokens.is("save")) {
+            Path path = Path.of(tokens.nextText());
+            end(tokens);
+            DrawingFile.save(paint.getDrawing(), path);
+        } else if (tokens.is("load")) {
+            Path path = Path.of(tokens.nextText());
+            end(tokens);
+            paint.setDrawing(DrawingFile.load(path));
+            history.clear();
+        } else {
+            throw new IllegalArgumentException("Invalid command: " + tokens.text());
+        }
+    }
+
+    /**
+     * Checks that a drawing or a window of the given size is not larger than allowed.
+     */
+    private void checkCells(int width, int height) {
+        if ((long) width * height > maxCells) {
+            throw new IllegalArgumentException("The size " + width + "x" + height + " is more than "
+                    + maxCells + " cells.");
+        }
+    }
+
+    /**
+     * Checks that the current line holds no more parameter.
+     */
+    private static void end(ScriptTokenizer tokens) throws IOException {
+        if (tokens.hasToken()) {
+            throw new IllegalArgumentException("Too many parameters");
+        }
+    }
+
+    /**
+     * Executes a command whose parameters were all read and records it in the history.
+     */
+    private void execute(ScriptTokenizer tokens, Command command) throws IOException {
+        end(tokens);
+        history.execute(command);
+    }
+
+    /**
+     * Reads the shape of an 'add' command, with the same parameters as in the console.
+     */
+    private static Shape readShape(ScriptTokenizer tokens) throws IOException {
+        tokens.next();
+        if (tokens.is("circle")) {
+            Point center = new Point(tokens.nextInt(), tokens.nextInt());
+            return new Circle(center, tokens.nextDouble(), readColor(tokens));
+        } else if (tokens.is("rectangle")) {
+            Point corner = new Point(tokens.nextInt(), tokens.nextInt());
+            double width = tokens.nextDouble();
+            double height = tokens.nextDouble();
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("The width and the height should be more than 0.");
+            }
+            return new Rectangle(corner, width, height, readColor(tokens));
+        } else if (tokens.is("square")) {
+            Point corner = new Point(tokens.nextInt(), tokens.nextInt());
+            return new Square(corner, tokens.nextDouble(), readColor(tokens));
+        } else if (tokens.is("line")) {
+            Point start = new Point(tokens.nextInt(), tokens.nextInt());
+            Point end = new Point(tokens.nextInt(), tokens.nextInt());
+            return new Line(start, end, readColor(tokens));
+        }
+        throw new Add.InvalidShapeTypeException("Invalid shape type: " + tokens.text());
+    }
+
+    /**
+     * Reads a color, a letter turned to upper case as the console does.
+     */
+    private static char readColor(ScriptTokenizer tokens) throws IOException {
+        char color = tokens.nextChar();
+        if (!(color >= 'A' && color <= 'Z' || color >= 'a' && color <= 'z')) {
+            throw new IllegalArgumentException("Invalid color. Color must be a single letter from A to Z.");
+        }
+        return Character.toUpperCase(color);
+    }
+}
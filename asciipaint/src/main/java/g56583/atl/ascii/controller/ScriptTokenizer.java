@@ -0,0 +1,251 @@
+package g56583.atl.ascii.controller;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a script into lines of space-separated tokens, reading the script through one buffer.
+ * Tokens are kept in a reused buffer and converted to numbers directly from their characters,
+ * so that reading a command creates no string. Lines starting with '#' are comments.
+ */
+class ScriptTokenizer {
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[1 << 16];
+    private int position;
+    private int limit;
+    private char[] token = new char[64];
+    private int length;
+    private int line;
+    private boolean started;
+
+    /**
+     * Constructs a tokenizer reading the given script.
+     *
+     * @param reader The script to read.
+     */
+    ScriptTokenizer(Reader reader) {
+        if (reader == null) {
+            throw new IllegalArgumentException("Given reader is null");
+        }
+        this.reader = reader;
+    }
+
+    /**
+     * Moves to the next line holding a command, skipping what remains of the current line,
+     * the blank lines and the comments.
+     *
+     * @return False if the end of the script is reached.
+     * @throws IOException If the script cannot be read.
+     */
+    boolean nextLine() throws IOException {
+        if (started) {
+            skipLine();
+        }
+        started = true;
+        while (true) {
+            int c = peek();
+            if (c == EOF) {
+                return false;
+            }
+            line++;
+            skipBlanks();
+            c = peek();
+            if (c != '\n' && c != '#' && c != EOF) {
+                return true;
+            }
+            skipLine();
+        }
+    }
+
+    /**
+     * Gets the number of the current line, starting at 1.
+     *
+     * @return The number of the current line.
+     */
+    int lineNumber() {
+        return line;
+    }
+
+    /**
+     * Checks if the current line holds another token.
+     *
+     * @return True if a token remains on the line.
+     * @throws IOException If the script cannot be read.
+     */
+    boolean hasToken() throws IOException {
+        skipBlanks();
+        int c = peek();
+        return c != '\n' && c != EOF;
+    }
+
+    /**
+     * Reads the next token of the current line.
+     *
+     * @throws IOException              If the script cannot be read.
+     * @throws IllegalArgumentException If the line has no more token.
+     */
+    void next() throws IOException {
+        if (!hasToken()) {
+            throw new IllegalArgumentException("Missing parameter");
+        }
+        length = 0;
+        for (int c = peek(); c != ' ' && c != '\t' && c != '\r' && c != '\n' && c != EOF; c = peek()) {
+            if (length == token.length) {
+                char[] larger = new char[length * 2];
+                System.arraycopy(token, 0, larger, 0, length);
+                token = larger;
+            }
+            token[length++] = (char) c;
+            position++;
+        }
+    }
+
+    /**
+     * Checks if the last token read is the given word, ignoring the case.
+     *
+     * @param word The word, in lower case.
+     * @return True if the token is the word.
+     */
+    boolean is(String word) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(token[i]) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next token as an integer.
+     *
+     * @return The integer.
+     * @throws IOException              If the script cannot be read.
+     * @throws IllegalArgumentException If the token is not an integer.
+     */
+    int nextInt() throws IOException {
+        next();
+        int i = 0;
+        boolean negative = token[0] == '-';
+        if (negative || token[0] == '+') {
+            i++;
+        }
+        if (i == length) {
+            throw notANumber();
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw notANumber();
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw notANumber();
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw notANumber();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the next token as a decimal number. Integers are converted directly, other
+     * numbers are parsed by Double.parseDouble.
+     *
+     * @return The number.
+     * @throws IOException              If the script cannot be read.
+     * @throws IllegalArgumentException If the token is not a number.
+     */
+    double nextDouble() throws IOException {
+        next();
+        boolean integer = length <= 10;
+        for (int i = 0; i < length && integer; i++) {
+            integer = token[i] >= '0' && token[i] <= '9' || i == 0 && token[i] == '-' && length > 1;
+        }
+        if (integer) {
+            long value = 0;
+            for (int i = token[0] == '-' ? 1 : 0; i < length; i++) {
+                value = value * 10 + token[i] - '0';
+            }
+            return token[0] == '-' ? -value : value;
+        }
+        try {
+            return Double.parseDouble(new String(token, 0, length));
+        } catch (NumberFormatException e) {
+            throw notANumber();
+        }
+    }
+
+    /**
+     * Reads the next token as a single character.
+     *
+     * @return The character.
+     * @throws IOException              If the script cannot be read.
+     * @throws IllegalArgumentException If the token is longer than one character.
+     */
+    char nextChar() throws IOException {
+        next();
+        if (length != 1) {
+            throw new IllegalArgumentException("A single character is expected: " + text());
+        }
+        return token[0];
+    }
+
+    /**
+     * Reads the next token as a string, for the few parameters that are not numbers.
+     *
+     * @return The token.
+     * @throws IOException If the script cannot be read.
+     */
+    String nextText() throws IOException {
+        next();
+        return text();
+    }
+
+    /**
+     * Gets the last token read as a string.
+     *
+     * @return The token.
+     */
+    String text() {
+        return new String(token, 0, length);
+    }
+
+    private IllegalArgumentException notANumber() {
+        return new IllegalArgumentException("Not a number: " + text());
+    }
+
+    private void skipBlanks() throws IOException {
+        for (int c = peek(); c == ' ' || c == '\t' || c == '\r'; c = peek()) {
+            position++;
+        }
+    }
+
+    private void skipLine() throws IOException {
+        for (int c = peek(); c != EOF; c = peek()) {
+            position++;
+            if (c == '\n') {
+                return;
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position];
+    }
+}
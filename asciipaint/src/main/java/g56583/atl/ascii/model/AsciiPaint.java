@@ -3,15 +3,28 @@ package g56583.atl.ascii.model;
 import g56583.atl.ascii.DesignPattern.Composite.Component;
 import g56583.atl.ascii.DesignPattern.Composite.Composite;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Represents an ASCII art drawing application.
  */
 public class AsciiPaint {
+    /**
+     * The number of cells above which show does not keep a frame of the drawing.
+     */
+    private static final long FRAME_LIMIT = 1 << 22;
+
     private Drawing drawing;
+    private final FrameBuffer frame = new FrameBuffer();
+    private final RenderCache cache = new RenderCache();
+    private RenderedDrawing rendered;
+    private Drawing listed;
+    private long listedVersion;
+    private String list;
 
     /**
      * Constructs an empty AsciiPaint object with no initial drawing.
@@ -95,41 +108,99 @@ public class AsciiPaint {
 
     /**
      * Converts the current drawing to an ASCII art representation.
+     * The previous rendering is kept and only the areas changed since are rendered again.
      *
      * @return The ASCII art representation of the drawing.
      */
     public String asAscii() {
-        StringBuilder sb = new StringBuilder();
-        List<Shape> reversedShapes = new ArrayList<>(drawing.getShapes());
-        Collections.reverse(reversedShapes);
-        List<Component> reversedComponents = new ArrayList<>(drawing.getComponents());
-        Collections.reverse(reversedComponents);
-
-        for (int i = 0; i < drawing.getHeight(); i++) {
-            for (int j = 0; j < drawing.getWidth(); j++) {
-                Point p = new Point(j, i);
-                char colorChar = ' ';
-
-                for (Component component : reversedComponents) {
-                    if (component.isInside(p)) {
-                        colorChar = component.getColor();
-                        break;
-                    }
-                }
-                if (colorChar == ' ') {
-                    for (Shape shape : reversedShapes) {
-                        if (shape.isInside(p)) {
-                            colorChar = shape.getColor();
-                            break;
-                        }
-                    }
-                }
-                sb.append(colorChar);
-            }
-            sb.append('\n');
+        return frame.render(drawing);
+    }
+
+    /**
+     * Gets a lazy view on the ASCII art representation of the current drawing, which renders
+     * each row the first time it is read and keeps it until the drawing changes it. The view
+     * is kept for the next calls while the drawing is the same.
+     *
+     * @return The lazy representation of the drawing.
+     */
+    public RenderedDrawing asRendered() {
+        if (rendered == null || rendered.getDrawing() != drawing) {
+            rendered = new RenderedDrawing(drawing);
         }
-        return sb.toString();
+        return rendered;
+    }
+
+    /**
+     * Converts the current drawing to runs of cells of the same color, which keeps large and
+     * mostly blank drawings small.
+     *
+     * @return The run-length rendering of the drawing.
+     */
+    public RunLengthRaster asRunLength() {
+        return new Rasterizer(drawing).renderRuns();
     }
+
+    /**
+     * Converts a window on the current drawing to an ASCII art representation. The renderings
+     * of the last windows are kept as long as the drawing does not change.
+     *
+     * @param viewport The window to render.
+     * @return The ASCII art representation of the window.
+     */
+    public String asAscii(Viewport viewport) {
+        return cache.render(drawing, viewport);
+    }
+
+    /**
+     * Writes the ASCII art representation of the current drawing to the given output, to show
+     * it. The frame kept by asAscii is brought up to date, only the areas changed since being
+     * rendered again, and written as is. A drawing of more than FRAME_LIMIT cells is not kept
+     * in a frame, its rows are rendered as they are written as renderTo does.
+     *
+     * @param out The output receiving the drawing, for example a Writer or a PrintStream.
+     * @throws IOException If the output fails.
+     */
+    public void show(Appendable out) throws IOException {
+        if ((long) drawing.getWidth() * drawing.getHeight() > FRAME_LIMIT) {
+            renderTo(out);
+        } else {
+            frame.renderTo(drawing, out);
+        }
+    }
+
+    /**
+     * Writes the ASCII art representation of the current drawing to the given output, row
+     * after row, without building it in memory. Suited to exports, and to drawings too large
+     * for asAscii.
+     *
+     * @param out The output receiving the drawing, for example a Writer or a PrintStream.
+     * @throws IOException If the output fails.
+     */
+    public void renderTo(Appendable out) throws IOException {
+        new Rasterizer(drawing).renderTo(out);
+    }
+
+    /**
+     * Writes the ASCII art representation of the current drawing to the given channel, encoded
+     * in UTF-8, row after row, without building it in memory.
+     *
+     * @param channel The channel receiving the drawing, for example a FileChannel.
+     * @throws IOException If the channel fails.
+     */
+    public void renderTo(WritableByteChannel channel) throws IOException {
+        new Rasterizer(drawing).renderTo(channel);
+    }
+
+    /**
+     * Sets the number of cells from which a whole drawing is rendered in parallel.
+     *
+     * @param threshold The number of cells, 0 to always render in parallel.
+     * @throws IllegalArgumentException If the threshold is negative.
+     */
+    public void setParallelThreshold(int threshold) {
+        frame.setRenderer(new ParallelRenderer(ForkJoinPool.commonPool(), threshold));
+    }
+
     /**
      * Changes the color of a shape at the specified index in the drawing.
      *
@@ -143,29 +214,32 @@ public class AsciiPaint {
             throw new IllegalArgumentException("Invalid shape index: " + shapeIndex);
         }
         if (shapeIndex < this.getShapes().size()) {
-            Shape shape = this.getShapes().get(shapeIndex);
-            if (shape instanceof ColoredShape) {
-                ((ColoredShape) shape).setColor(newColor);
-            }
+            drawing.recolorShape(shapeIndex, newColor);
         } else {
-            int groupIndex = shapeIndex - this.getShapes().size();
-            Composite group = (Composite) this.getComponents().get(groupIndex);
-            group.setColor(newColor);
-            for (Component component : group.getChildren()) {
-                if (component instanceof ColoredShape) {
-                    component.setColor(newColor);
-                }
-            }
+            drawing.recolorComponent(shapeIndex - this.getShapes().size(), newColor);
         }
     }
 
 
     /**
-     * Returns a list of shapes and groups in the drawing,
+     * Returns a list of shapes and groups in the drawing, kept as long as the drawing does not
+     * change.
      *
      * @return a list of shapes and groups in the drawing,
      */
     public String getShapesList() {
+        if (drawing != listed || drawing.getVersion() != listedVersion) {
+            list = listShapes();
+            listed = drawing;
+            listedVersion = drawing.getVersion();
+        }
+        return list;
+    }
+
+    /**
+     * Builds the list of shapes and groups in the drawing.
+     */
+    private String listShapes() {
         StringBuilder sb = new StringBuilder("List of Shapes:\n");
         int index = 0;
         for (Shape shape : drawing.getShapes()) {
@@ -241,7 +315,7 @@ public class AsciiPaint {
             if (index < this.getShapes().size()) {
                 Component shape = (Component) this.getShapes().get(index);
                 group.add(shape);
-                this.getShapes().remove(index);
+                drawing.removeShape(index);
             } else {
                 throw new IllegalArgumentException("Invalid index: " + index);
             }
@@ -282,8 +356,7 @@ public class AsciiPaint {
             throw new IllegalArgumentException("Invalid shape index: " + shapeIndex);
         }
         if (shapeIndex < this.getShapes().size()) {
-            Shape shape = this.getShapes().get(shapeIndex);
-            shape.move(dx, dy);
+            drawing.moveShape(shapeIndex, dx, dy);
         } else {
             moveGroup(shapeIndex, dx, dy);
         }
@@ -300,8 +373,7 @@ public class AsciiPaint {
     private void moveGroup(int groupIndex, double dx, double dy) {
         int actualIndex = groupIndex - this.getShapes().size();
         if (actualIndex >= 0 && actualIndex < this.getComponents().size()) {
-            Component group = this.getComponents().get(actualIndex);
-            group.move(dx, dy);
+            drawing.moveComponent(actualIndex, dx, dy);
         } else {
             throw new IllegalArgumentException("Invalid group index.");
         }
@@ -333,7 +405,7 @@ public class AsciiPaint {
             drawing.addShape(component);
         }
 
-        getComponents().remove(actualIndex);
+        drawing.removeComponent(actualIndex);
     }
 
     /**
@@ -345,6 +417,27 @@ public class AsciiPaint {
         drawing.addShape(addedShape);
     }
 
+    /**
+     * Adds shapes to the drawing, in their order, as one change.
+     *
+     * @param addedShapes The shapes to add.
+     * @throws IllegalArgumentException If the array or one of the shapes is null.
+     */
+    public void addShapes(Shape... addedShapes) {
+        drawing.addShapes(addedShapes);
+    }
+
+    /**
+     * Makes the given changes to the drawing as one: its version increases once, and the
+     * areas they change are rendered again at once.
+     *
+     * @param changes The changes to make, calling the methods of this AsciiPaint.
+     * @throws IllegalArgumentException If the changes are null.
+     */
+    public void batch(Runnable changes) {
+        drawing.batch(changes);
+    }
+
     /**
      * Removes a shape or group from the drawing.
      *
@@ -380,7 +473,7 @@ public class AsciiPaint {
             drawing.addShape(component);
         }
 
-        drawing.getComponents().remove(group);
+        drawing.removeComponent(group);
     }
 
     /**
@@ -423,6 +516,42 @@ public class AsciiPaint {
         return getShapes().get(index);
     }
 
+    /**
+     * Retrieves a shape, or a group for an index after the shapes, as the commands number them.
+     *
+     * @param index The index of the shape or group.
+     * @return The shape or group at the specified index.
+     * @throws IllegalArgumentException If the specified index is invalid.
+     */
+    public Shape getShapeOrGroupAt(int index) {
+        if (index >= 0 && index < getShapes().size()) {
+            return getShapes().get(index);
+        } else if (index >= 0 && index < getShapes().size() + getComponents().size()) {
+            return getComponents().get(index - getShapes().size());
+        }
+        throw new IllegalArgumentException("Invalid index: " + index);
+    }
+
+    /**
+     * Replaces a shape, or a group for an index after the shapes, as the commands number them.
+     *
+     * @param index    The index of the shape or group.
+     * @param newShape The new shape, a component for a group.
+     * @throws IllegalArgumentException If the specified index is invalid or the shape is null.
+     */
+    public void replaceShapeOrGroup(int index, Shape newShape) {
+        if (newShape == null) {
+            throw new IllegalArgumentException("New shape cannot be null");
+        }
+        if (index >= 0 && index < getShapes().size()) {
+            drawing.replaceShape(index, newShape);
+        } else if (index >= 0 && index < getShapes().size() + getComponents().size()) {
+            drawing.replaceComponent(index - getShapes().size(), (Component) newShape);
+        } else {
+            throw new IllegalArgumentException("Invalid index: " + index);
+        }
+    }
+
     /**
      * Replaces a shape or group in the drawing with a new shape or group.
      *
@@ -436,9 +565,17 @@ public class AsciiPaint {
         if (newShape == null) {
             throw new IllegalArgumentException("New shape cannot be null");
         }
-        getShapes().set(index, newShape);
+        drawing.replaceShape(index, newShape);
     }
-    public void recreateGroup(List<Shape> originalShapes, char color) {
+
+    /**
+     * Groups again the given shapes, as done before by createGroup.
+     *
+     * @param originalShapes The shapes to group.
+     * @param color          The color of the group.
+     * @return the recreated group.
+     */
+    public Composite recreateGroup(List<Shape> originalShapes, char color) {
         Composite group = new Composite(color);
         for (Shape shape : originalShapes) {
             group.add((Component) shape);
@@ -446,5 +583,6 @@ public class AsciiPaint {
         }
 
         drawing.addComponent(group); // Ajoute le groupe reconstitué
+        return group;
     }
 }
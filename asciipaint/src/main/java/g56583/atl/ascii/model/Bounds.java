@@ -0,0 +1,154 @@
+package g56583.atl.ascii.model;
+
+import java.util.Objects;
+
+/**
+ * Represents the axis-aligned bounding box of a shape: every point inside the shape
+ * is also inside its bounds. The box may be empty or extend to infinity.
+ */
+public final class Bounds {
+    /**
+     * Bounds containing no point at all.
+     */
+    public static final Bounds EMPTY = new Bounds(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    /**
+     * Bounds containing every point of the plane.
+     */
+    public static final Bounds INFINITE = new Bounds(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    /**
+     * Constructs the bounds with the given limits, all of them included.
+     *
+     * @param minX The smallest x-coordinate.
+     * @param minY The smallest y-coordinate.
+     * @param maxX The largest x-coordinate.
+     * @param maxY The largest y-coordinate.
+     */
+    public Bounds(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Gets the smallest x-coordinate of the bounds.
+     *
+     * @return The smallest x-coordinate.
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * Gets the smallest y-coordinate of the bounds.
+     *
+     * @return The smallest y-coordinate.
+     */
+    public double getMinY() {
+        return minY;
+    }
+
+    /**
+     * Gets the largest x-coordinate of the bounds.
+     *
+     * @return The largest x-coordinate.
+     */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Gets the largest y-coordinate of the bounds.
+     *
+     * @return The largest y-coordinate.
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Checks if the bounds contain no point.
+     *
+     * @return True if the bounds are empty.
+     */
+    public boolean isEmpty() {
+        return !(minX <= maxX && minY <= maxY);
+    }
+
+    /**
+     * Checks if the given coordinates are inside the bounds.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return True if the point (x, y) is inside the bounds.
+     */
+    public boolean contains(double x, double y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * Checks if these bounds and the other ones share at least one point.
+     *
+     * @param other The other bounds.
+     * @return True if the two bounds intersect.
+     */
+    public boolean intersects(Bounds other) {
+        return !isEmpty() && !other.isEmpty()
+                && minX <= other.maxX && other.minX <= maxX
+                && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    /**
+     * Computes the smallest bounds containing both these bounds and the other ones.
+     *
+     * @param other The other bounds.
+     * @return The union of the two bounds.
+     */
+    public Bounds union(Bounds other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        return new Bounds(Math.min(minX, other.minX), Math.min(minY, other.minY),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY));
+    }
+
+    /**
+     * Computes these bounds moved by the given distances. Empty bounds stay empty.
+     *
+     * @param dx The horizontal distance.
+     * @param dy The vertical distance.
+     * @return The moved bounds.
+     */
+    public Bounds translate(double dx, double dy) {
+        if (isEmpty() || (dx == 0 && dy == 0)) {
+            return this;
+        }
+        return new Bounds(minX + dx, minY + dy, maxX + dx, maxY + dy);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Bounds bounds = (Bounds) obj;
+        return Double.compare(bounds.minX, minX) == 0 && Double.compare(bounds.minY, minY) == 0
+                && Double.compare(bounds.maxX, maxX) == 0 && Double.compare(bounds.maxY, maxY) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minX, minY, maxX, maxY);
+    }
+}
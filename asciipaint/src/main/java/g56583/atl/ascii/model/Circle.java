@@ -6,8 +6,15 @@ import g56583.atl.ascii.DesignPattern.Composite.Component;
  * Represents a circle shape with a center point and a radius.
  */
 public class Circle extends Component {
+    /**
+     * The largest radius and distance from the origin of the center of a circle whose cells
+     * are computed with integers.
+     */
+    private static final long EXACT_RADIUS = 1L << 29;
+
     private final Point center;
     private final double radius;
+    private final double radiusSquared;
 
     /**
      * Constructs a circle with the given information.
@@ -26,19 +33,116 @@ public class Circle extends Component {
         }
         this.center = new Point(center);
         this.radius = radius;
+        this.radiusSquared = radius * radius;
+    }
+
+    @Override
+    public boolean isInside(double x, double y) {
+        return isInside(center.getX(), center.getY(), radiusSquared, x, y);
     }
 
     @Override
-    public boolean isInside(Point p) {
-        if (p == null) {
-            throw new IllegalArgumentException("The given point is null");
+    public void spans(int y, int minX, int maxX, SpanSink sink) {
+        spans(center.getX(), center.getY(), radiusSquared, y, minX, maxX, sink);
+    }
+
+    /**
+     * Checks if a point is inside the circle of the given center and squared radius. Shared
+     * with the shape tables, which keep circles as numbers. A cell of a circle centered on a
+     * cell is tested with integers only.
+     */
+    static boolean isInside(double centerX, double centerY, double radiusSquared, double x, double y) {
+        if (isExact(centerX, centerY, radiusSquared) && x == Math.rint(x) && y == Math.rint(y)
+                && Math.abs(x - centerX) <= EXACT_RADIUS && Math.abs(y - centerY) <= EXACT_RADIUS) {
+            long dx = (long) (x - centerX);
+            long dy = (long) (y - centerY);
+            return dx * dx + dy * dy <= (long) radiusSquared;
+        }
+        double dx = x - centerX;
+        double dy = y - centerY;
+        return dx * dx + dy * dy <= radiusSquared;
+    }
+
+    /**
+     * Reports the span of the circle of the given center and squared radius on a row. For a
+     * circle centered on a cell, the half width of the span is the integer square root of what
+     * the row leaves of the squared radius: the cells of the disk test x^2 + y^2 <= r^2, done
+     * with integers, so the cells are the same as with the test in doubles.
+     */
+    static void spans(double centerX, double centerY, double radiusSquared, int y, int minX, int maxX, SpanSink sink) {
+        if (isExact(centerX, centerY, radiusSquared)) {
+            long dy = y - (long) centerY;
+            if (Math.abs(dy) > EXACT_RADIUS) {
+                return;
+            }
+            long rest = (long) radiusSquared - dy * dy;
+            if (rest < 0) {
+                return;
+            }
+            long half = (long) Math.sqrt(rest);
+            while (half * half > rest) {
+                half--;
+            }
+            while ((half + 1) * (half + 1) <= rest) {
+                half++;
+            }
+            long lo = Math.max((long) centerX - half, minX);
+            long hi = Math.min((long) centerX + half, maxX);
+            if (lo <= hi) {
+                sink.span((int) lo, (int) hi);
+            }
+            return;
         }
-        double eqCircle = Math.pow(p.getX() - center.getX(), 2) + Math.pow(p.getY() - center.getY(), 2);
-        return eqCircle <= Math.pow(radius, 2);
+        double dy = y - centerY;
+        double rest = radiusSquared - dy * dy;
+        if (rest < 0) {
+            return;
+        }
+        double half = Math.sqrt(rest);
+        double left = centerX - half;
+        double right = centerX + half;
+        if (right < minX - 1 || left > maxX + 1) {
+            return;
+        }
+        // The square root is only an estimate, the bounds are then fixed with the exact test.
+        int lo = (int) Math.max(Math.ceil(left), minX);
+        int hi = (int) Math.min(Math.floor(right), maxX);
+        while (lo > minX && isInside(centerX, centerY, radiusSquared, lo - 1, y)) {
+            lo--;
+        }
+        while (hi < maxX && isInside(centerX, centerY, radiusSquared, hi + 1, y)) {
+            hi++;
+        }
+        while (lo <= hi && !isInside(centerX, centerY, radiusSquared, lo, y)) {
+            lo++;
+        }
+        while (hi >= lo && !isInside(centerX, centerY, radiusSquared, hi, y)) {
+            hi--;
+        }
+        if (lo <= hi) {
+            sink.span(lo, hi);
+        }
+    }
+
+    /**
+     * Checks if the cells of a circle can be computed with integers: its center is a cell and
+     * it is small enough for the squares of the distances to fit.
+     */
+    private static boolean isExact(double centerX, double centerY, double radiusSquared) {
+        return centerX == Math.rint(centerX) && centerY == Math.rint(centerY)
+                && Math.abs(centerX) <= EXACT_RADIUS && Math.abs(centerY) <= EXACT_RADIUS
+                && radiusSquared <= (double) EXACT_RADIUS * EXACT_RADIUS;
+    }
+
+    @Override
+    public Bounds bounds() {
+        return new Bounds(center.getX() - radius, center.getY() - radius,
+                center.getX() + radius, center.getY() + radius);
     }
 
     @Override
     public void move(double dx, double dy) {
+        checkChangeable();
         center.move(dx, dy);
     }
 
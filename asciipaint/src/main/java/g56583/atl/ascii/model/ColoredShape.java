@@ -3,9 +3,13 @@ package g56583.atl.ascii.model;
 /**
  * An abstract class representing a colored shape that implements the Shape interface.
  * This class provides functionality for setting and retrieving the color of a shape.
+ * A shape can be frozen, after which moving or coloring it throws: a drawing freezes the
+ * shapes it holds, which its snapshots share, and changes them by replacing them with
+ * changed copies. A copy of a frozen shape is not frozen.
  */
 public abstract class ColoredShape implements Shape {
     private char color;
+    private boolean frozen;
 
     /**
      * Constructs a ColoredShape object with the specified color.
@@ -32,9 +36,55 @@ public abstract class ColoredShape implements Shape {
      * @param color The character representing the new color of the shape.
      */
     public void setColor(char color) {
+        checkChangeable();
         this.color = color;
     }
 
+    /**
+     * Makes the shape read-only, for good.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * Checks if the shape is read-only.
+     *
+     * @return True if the shape was frozen.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Checks that the shape may be changed, before a change.
+     *
+     * @throws IllegalStateException If the shape is frozen.
+     */
+    protected final void checkChangeable() {
+        if (frozen) {
+            throw new IllegalStateException("The shape is held by a drawing, change a copy of it instead");
+        }
+    }
+
+    /**
+     * Checks if a given point is inside the shape.
+     *
+     * @param p The point to check for inclusion.
+     * @return True if the point is inside the shape, false otherwise.
+     * @throws IllegalArgumentException If the given point is null.
+     */
+    @Override
+    public boolean isInside(Point p) {
+        if (p == null) {
+            throw new IllegalArgumentException("Given point is null");
+        }
+        return isInside(p.getX(), p.getY());
+    }
+
+    @Override
+    public abstract boolean isInside(double x, double y);
+
     @Override
     public abstract ColoredShape copy();
 }
@@ -0,0 +1,153 @@
+package g56583.atl.ascii.model;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts cells covered by shapes and shown by drawings without rendering them: the counts are
+ * sums of lengths of spans and runs, row by row, so no frame is allocated and the work follows
+ * the number of rows and of spans rather than the number of cells.
+ */
+public final class Coverage {
+    private Coverage() {
+    }
+
+    /**
+     * Counts the cells covered by a shape.
+     *
+     * @param shape The shape.
+     * @return The number of covered cells.
+     * @throws IllegalArgumentException If the shape is null or its bounds are not limited.
+     */
+    public static long area(Shape shape) {
+        int[] box = box(shape);
+        RowSpans spans = new RowSpans();
+        long area = 0;
+        for (long y = box[1]; y <= box[3]; y++) {
+            spans.load(shape, (int) y, box[0], box[2]);
+            area += spans.cells();
+        }
+        return area;
+    }
+
+    /**
+     * Counts the cells covered by both of two shapes.
+     *
+     * @param first  The first shape.
+     * @param second The second shape.
+     * @return The number of cells covered by both shapes.
+     * @throws IllegalArgumentException If a shape is null or the bounds of both are not limited.
+     */
+    public static long overlap(Shape first, Shape second) {
+        if (first == null || second == null) {
+            throw new IllegalArgumentException("Given shape is null");
+        }
+        Bounds bounds = first.bounds();
+        Bounds other = second.bounds();
+        if (!bounds.intersects(other)) {
+            return 0;
+        }
+        Bounds common = new Bounds(Math.max(bounds.getMinX(), other.getMinX()), Math.max(bounds.getMinY(), other.getMinY()),
+                Math.min(bounds.getMaxX(), other.getMaxX()), Math.min(bounds.getMaxY(), other.getMaxY()));
+        int[] box = box(common);
+        RowSpans spans = new RowSpans();
+        RowSpans otherSpans = new RowSpans();
+        long overlap = 0;
+        for (long y = box[1]; y <= box[3]; y++) {
+            spans.load(first, (int) y, box[0], box[2]);
+            if (spans.count() == 0) {
+                continue;
+            }
+            otherSpans.load(second, (int) y, box[0], box[2]);
+            int i = 0;
+            int j = 0;
+            while (i < spans.count() && j < otherSpans.count()) {
+                int from = Math.max(spans.from(i), otherSpans.from(j));
+                int to = Math.min(spans.to(i), otherSpans.to(j));
+                if (from <= to) {
+                    overlap += (long) to - from + 1;
+                }
+                if (spans.to(i) < otherSpans.to(j)) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return overlap;
+    }
+
+    /**
+     * Counts the cells of a drawing shown with each color, blank cells excepted.
+     *
+     * @param drawing The drawing.
+     * @return The number of cells of each color, by color.
+     * @throws IllegalArgumentException If the drawing is null.
+     */
+    public static Map<Character, Long> areaByColor(Drawing drawing) {
+        Map<Character, Long> areas = new TreeMap<>();
+        // The ASCII colors are counted in an array, the other ones straight in the map.
+        long[] counts = new long[128];
+        new Rasterizer(drawing).visibleRuns((y, from, to, color, owner) -> {
+            if (color < counts.length) {
+                counts[color] += to - from + 1;
+            } else {
+                areas.merge(color, (long) to - from + 1, Long::sum);
+            }
+        });
+        for (int color = 0; color < counts.length; color++) {
+            if (counts[color] > 0 && color != ' ') {
+                areas.put((char) color, counts[color]);
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * Counts the cells of a drawing where each of its shapes and groups is the topmost one,
+     * the one whose color is shown. The shapes and groups that show no cell are left out, as
+     * well as the shapes of the table of the drawing.
+     *
+     * @param drawing The drawing.
+     * @return The number of shown cells, by shape or group, compared by identity.
+     * @throws IllegalArgumentException If the drawing is null.
+     */
+    public static Map<Shape, Long> visibleArea(Drawing drawing) {
+        Map<Shape, Long> areas = new IdentityHashMap<>();
+        new Rasterizer(drawing).visibleRuns((y, from, to, color, owner) -> {
+            if (owner != null) {
+                areas.merge(owner, (long) to - from + 1, Long::sum);
+            }
+        });
+        return areas;
+    }
+
+    /**
+     * Gets the cells of the bounds of a shape, as {minX, minY, maxX, maxY}.
+     */
+    private static int[] box(Shape shape) {
+        if (shape == null) {
+            throw new IllegalArgumentException("Given shape is null");
+        }
+        return box(shape.bounds());
+    }
+
+    /**
+     * Gets the cells of bounds, as {minX, minY, maxX, maxY}, an empty box for empty bounds.
+     */
+    private static int[] box(Bounds bounds) {
+        if (bounds.isEmpty()) {
+            return new int[]{0, 0, -1, -1};
+        }
+        if (Double.isInfinite(bounds.getMinX()) || Double.isInfinite(bounds.getMinY())
+                || Double.isInfinite(bounds.getMaxX()) || Double.isInfinite(bounds.getMaxY())) {
+            throw new IllegalArgumentException("The bounds of the shape are not limited");
+        }
+        return new int[]{
+                (int) Math.ceil(Math.max(bounds.getMinX(), Integer.MIN_VALUE)),
+                (int) Math.ceil(Math.max(bounds.getMinY(), Integer.MIN_VALUE)),
+                (int) Math.floor(Math.min(bounds.getMaxX(), Integer.MAX_VALUE)),
+                (int) Math.floor(Math.min(bounds.getMaxY(), Integer.MAX_VALUE))};
+    }
+}
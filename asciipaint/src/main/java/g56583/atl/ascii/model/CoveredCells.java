@@ -0,0 +1,135 @@
+package g56583.atl.ascii.model;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Iterates over the cells covered by a shape, row by row from the top and from left to right
+ * in a row, each cell once. A cell is packed in a long by pack and read back with x and y.
+ * The cells are built from the spans of the shape on each row of its bounds, never by testing
+ * the cells one by one, so the work follows the number of rows and of covered cells: a line
+ * costs its length and a circle its area. The spans of the children of a group may overlap,
+ * they are merged first.
+ * The shape must not change during the iteration.
+ */
+public final class CoveredCells implements PrimitiveIterator.OfLong {
+    private final Shape shape;
+    private final int minX;
+    private final int maxX;
+    private final long maxY;
+    private long y;
+    private int row;
+    private final RowSpans spans = new RowSpans();
+    private int span;
+    private long x;
+    private long end = -1;
+
+    /**
+     * Constructs an iterator over every cell covered by the given shape.
+     *
+     * @param shape The shape.
+     * @throws IllegalArgumentException If the shape is null or its bounds are not limited.
+     */
+    public CoveredCells(Shape shape) {
+        this(shape, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        Bounds bounds = shape.bounds();
+        if (!bounds.isEmpty() && (Double.isInfinite(bounds.getMinX()) || Double.isInfinite(bounds.getMinY())
+                || Double.isInfinite(bounds.getMaxX()) || Double.isInfinite(bounds.getMaxY()))) {
+            throw new IllegalArgumentException("The bounds of the shape are not limited, give a window");
+        }
+    }
+
+    /**
+     * Constructs an iterator over the cells covered by the given shape inside a window.
+     *
+     * @param shape The shape.
+     * @param minX  The first column of the window (inclusive).
+     * @param minY  The first row of the window (inclusive).
+     * @param maxX  The last column of the window (inclusive).
+     * @param maxY  The last row of the window (inclusive).
+     * @throws IllegalArgumentException If the shape is null.
+     */
+    public CoveredCells(Shape shape, int minX, int minY, int maxX, int maxY) {
+        if (shape == null) {
+            throw new IllegalArgumentException("Given shape is null");
+        }
+        this.shape = shape;
+        Bounds bounds = shape.bounds();
+        if (bounds.isEmpty()) {
+            this.minX = 0;
+            this.maxX = -1;
+            this.y = 0;
+            this.maxY = -1;
+            return;
+        }
+        this.minX = (int) Math.max(minX, Math.ceil(Math.max(bounds.getMinX(), Integer.MIN_VALUE)));
+        this.maxX = (int) Math.min(maxX, Math.floor(Math.min(bounds.getMaxX(), Integer.MAX_VALUE)));
+        this.y = (long) Math.max(minY, Math.ceil(Math.max(bounds.getMinY(), Integer.MIN_VALUE)));
+        this.maxY = this.minX <= this.maxX
+                ? (long) Math.min(maxY, Math.floor(Math.min(bounds.getMaxY(), Integer.MAX_VALUE))) : this.y - 1;
+    }
+
+    /**
+     * Packs the coordinates of a cell in a long, the row in the high half.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The packed cell.
+     */
+    public static long pack(int x, int y) {
+        return (long) y << 32 | (x & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the column of a packed cell.
+     *
+     * @param cell The packed cell.
+     * @return The column of the cell.
+     */
+    public static int x(long cell) {
+        return (int) cell;
+    }
+
+    /**
+     * Gets the row of a packed cell.
+     *
+     * @param cell The packed cell.
+     * @return The row of the cell.
+     */
+    public static int y(long cell) {
+        return (int) (cell >> 32);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (x > end) {
+            if (span < spans.count()) {
+                x = spans.from(span);
+                end = spans.to(span);
+                span++;
+            } else if (y <= maxY) {
+                loadRow();
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long nextLong() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return pack((int) x++, row);
+    }
+
+    /**
+     * Reads the spans of the next row.
+     */
+    private void loadRow() {
+        row = (int) y++;
+        spans.load(shape, row, minX, maxX);
+        span = 0;
+    }
+}
@@ -0,0 +1,57 @@
+package g56583.atl.ascii.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last areas of a drawing changed by its mutators, so that a rendered frame can
+ * be brought up to date by rendering only those areas again.
+ * Each area is a box of cells {minX, minY, maxX, maxY}. Only the most recent areas are kept:
+ * a reader that missed older ones has to render everything again.
+ */
+class DirtyRegions {
+    private static final int CAPACITY = 256;
+
+    private final int[][] boxes = new int[CAPACITY][];
+    private long count;
+
+    /**
+     * Records a changed area.
+     *
+     * @param minX The first column of the area.
+     * @param minY The first row of the area.
+     * @param maxX The last column of the area.
+     * @param maxY The last row of the area.
+     */
+    void add(int minX, int minY, int maxX, int maxY) {
+        boxes[(int) (count % CAPACITY)] = new int[]{minX, minY, maxX, maxY};
+        count++;
+    }
+
+    /**
+     * Gets the number of areas recorded since the creation of the drawing, used as a position
+     * in the history of the changes.
+     *
+     * @return The current position.
+     */
+    long position() {
+        return count;
+    }
+
+    /**
+     * Gets the areas recorded after the given position.
+     *
+     * @param position A position returned earlier by position().
+     * @return The changed areas, or null if some of them are not kept anymore.
+     */
+    List<int[]> since(long position) {
+        if (position < count - CAPACITY || position > count) {
+            return null;
+        }
+        List<int[]> result = new ArrayList<>((int) (count - position));
+        for (long i = position; i < count; i++) {
+            result.add(boxes[(int) (i % CAPACITY)]);
+        }
+        return result;
+    }
+}
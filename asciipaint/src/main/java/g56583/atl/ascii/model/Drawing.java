@@ -1,19 +1,49 @@
 package g56583.atl.ascii.model;
 
 import g56583.atl.ascii.DesignPattern.Composite.Component;
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents an illustration composed of various shapes within a defined width and height.
+ * The drawing keeps a spatial index over the bounds of its shapes and groups, so the shapes
+ * it holds must only be changed through its methods: it freezes them as they join it, and
+ * moving or coloring them from outside throws.
+ * The drawing never changes a shape it holds: moving or coloring a shape replaces it with a
+ * changed copy. A snapshot can thus share the shapes, their lists and the spatial index, which
+ * are persistent: a change copies only the few nodes on its path and leaves the versions shared
+ * with the snapshots as they were.
+ * Every change increases the version of the drawing, so a rendering can be kept as long as
+ * the version it was made for is the current one. Changes made in a batch count as one, and
+ * mark the union of the areas they change once. A drawing and its snapshots share a lineage
+ * while they show the same shapes for the same version; a snapshot takes a lineage of its own
+ * when it is changed, so that the lineage and the version name the shapes shown.
+ * The shapes and groups are kept in stores where a position, or the position of a given shape,
+ * is found in logarithmic time, so that removing many shapes does not shift the lists for
+ * each one. Each shape also keeps an id while it stays in the drawing, even when it is moved,
+ * and a label growing with its position, which gives its depth in the index without
+ * renumbering the shapes behind an inserted or removed one.
  */
 public class Drawing {
+    private static final AtomicLong LINEAGES = new AtomicLong();
 
-    private final List<Shape> shapes;
+    private ShapeStore<Shape> shapes;
     private final int height;
     private final int width;
-    private final List<Component> components;
+    private ShapeStore<Component> components;
+    private boolean shared;
+    private ShapeIndex index;
+    private final DirtyRegions dirtyRegions = new DirtyRegions();
+    private long version;
+    private int batchDepth;
+    private boolean counted;
+    private int[] batchBox;
+    private ShapeTable table;
+    private long lineage = LINEAGES.incrementAndGet();
+    private boolean forked;
 
     /**
      * Constructs an empty Drawing object with a default width or height that I could
@@ -22,8 +52,9 @@ public class Drawing {
     public Drawing() {
         this.width = 25;
         this.height = 25;
-        shapes = new ArrayList<>();
-        components = new ArrayList<>();
+        shapes = new ShapeStore<>();
+        components = new ShapeStore<>();
+        index = new ShapeIndex();
     }
 
     /**
@@ -40,8 +71,88 @@ public class Drawing {
         }
         this.width = width;
         this.height = height;
-        shapes = new ArrayList<>();
-        components = new ArrayList<>();
+        shapes = new ShapeStore<>();
+        components = new ShapeStore<>();
+        index = new ShapeIndex();
+    }
+
+    /**
+     * Constructs a snapshot of a drawing, sharing its lists of shapes and groups and its index.
+     *
+     * @param other The drawing to take a snapshot of.
+     */
+    private Drawing(Drawing other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.shapes = other.shapes;
+        this.components = other.components;
+        this.index = other.index;
+        this.shared = true;
+        this.version = other.version;
+        this.lineage = other.lineage;
+        this.forked = true;
+        this.table = other.table == null ? null : other.table.share(this);
+    }
+
+    /**
+     * Takes a snapshot of the drawing in constant time. The snapshot shares the shapes of the
+     * drawing and is not affected by its later changes, nor is the drawing affected by the
+     * changes of the snapshot. A snapshot that is not changed can be rendered from another
+     * thread while the drawing is being changed.
+     *
+     * @return A snapshot of the drawing.
+     */
+    public Drawing snapshot() {
+        shared = true;
+        counted = false;
+        return new Drawing(this);
+    }
+
+    /**
+     * Makes the given changes as one: the version increases once for all of them, and the
+     * areas they change are marked once, as the box holding them all. Batches may be nested,
+     * the outermost one counts. If the version is read or a snapshot is taken during the
+     * batch, the next change counts again, so that no rendering is kept for a wrong version.
+     *
+     * @param changes The changes to make, calling the methods of the drawing.
+     * @throws IllegalArgumentException If the changes are null.
+     */
+    public void batch(Runnable changes) {
+        if (changes == null) {
+            throw new IllegalArgumentException("Given changes are null");
+        }
+        batchDepth++;
+        try {
+            changes.run();
+        } finally {
+            if (--batchDepth == 0) {
+                counted = false;
+                flushBatchBox();
+            }
+        }
+    }
+
+    /**
+     * Adds shapes to the drawing, in their order, as one change.
+     *
+     * @param added The shapes to add.
+     * @throws IllegalArgumentException If the array or one of the shapes is null, in which
+     *                                  case no shape is added.
+     */
+    public void addShapes(Shape... added) {
+        if (added == null) {
+            throw new IllegalArgumentException("Given shapes are null");
+        }
+        for (Shape shape : added) {
+            if (shape == null) {
+                throw new IllegalArgumentException("Given shape is null");
+            }
+        }
+        batch(() -> {
+            for (Shape shape : added) {
+                addShape(shape);
+            }
+        });
     }
 
     /**
@@ -54,7 +165,8 @@ public class Drawing {
         if (shape == null) {
             throw new IllegalArgumentException("Given shape is null");
         }
-        shapes.add(shape);
+        own();
+        insert(shapes, false, shapes.size(), shape);
     }
 
     /**
@@ -68,13 +180,158 @@ public class Drawing {
         if (p == null) {
             throw new IllegalArgumentException("Given point is null");
         }
-        for (int i = shapes.size() - 1; i >= 0; i--) {
-            if (shapes.get(i).isInside(p)) {
-                return shapes.get(i);
+        int x = (int) Math.floor(p.getX());
+        int y = (int) Math.floor(p.getY());
+        for (ShapeIndex.Entry entry : candidates(x, y, x, y)) {
+            if (!entry.group && entry.shape.isInside(p.getX(), p.getY())) {
+                return entry.shape;
             }
         }
-        return null;
+        return table == null ? null : table.shapeAt(p.getX(), p.getY());
+    }
+
+    /**
+     * Gets the table of the drawing, where many shapes are kept as columns of numbers and drawn
+     * behind the other shapes. The table is created empty the first time it is asked for.
+     *
+     * @return The shape table of the drawing.
+     */
+    public ShapeTable getTable() {
+        if (table == null) {
+            table = new ShapeTable(this);
+        }
+        return table;
+    }
+
+    /**
+     * Gets the table of the drawing if it has one.
+     *
+     * @return The shape table, or null.
+     */
+    ShapeTable table() {
+        return table;
     }
+
+    /**
+     * Counts a change of the table in the version and marks the area it changed.
+     *
+     * @param bounds The bounds of the changed shapes, before and after the change.
+     */
+    void tableChanged(Bounds bounds) {
+        own();
+        if (!bounds.isEmpty()) {
+            markDirty((int) Math.floor(bounds.getMinX()), (int) Math.floor(bounds.getMinY()),
+                    (int) Math.ceil(bounds.getMaxX()), (int) Math.ceil(bounds.getMaxY()));
+        }
+    }
+
+    /**
+     * Collects the shapes and groups whose bounds overlap the given area, from front to back.
+     *
+     * @param minX The first column of the area.
+     * @param minY The first row of the area.
+     * @param maxX The last column of the area.
+     * @param maxY The last row of the area.
+     * @return The candidate entries of the spatial index.
+     */
+    List<ShapeIndex.Entry> candidates(int minX, int minY, int maxX, int maxY) {
+        return index.query(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Prepares a change: counts it in the version and takes its own copy of the lists and of
+     * the index shared with a snapshot. The copies share their nodes with the originals and
+     * take constant time, the nodes being copied by the change itself.
+     */
+    private void own() {
+        if (forked) {
+            lineage = LINEAGES.incrementAndGet();
+            forked = false;
+        }
+        if (batchDepth == 0 || !counted) {
+            version++;
+            counted = batchDepth > 0;
+        }
+        if (shared) {
+            shapes = new ShapeStore<>(shapes);
+            components = new ShapeStore<>(components);
+            index = new ShapeIndex(index);
+            shared = false;
+        }
+    }
+
+    /**
+     * Inserts a shape or a group in its list and registers it in the index. The entries of
+     * the shapes whose labels were spread to make room are registered again.
+     */
+    private <S extends Shape> void insert(ShapeStore<S> store, boolean group, int position, S shape) {
+        freeze(shape);
+        store.add(position, shape, (id, label) -> index.relabel(id, group, label));
+        ShapeIndex.Entry entry = new ShapeIndex.Entry(shape, group, store.idAt(position), store.labelAt(position));
+        index.insert(entry);
+        markDirty(entry);
+    }
+
+    /**
+     * Replaces a shape or a group in its list and in the index, keeping its id and label.
+     */
+    private <S extends Shape> void replace(ShapeStore<S> store, boolean group, int position, S shape) {
+        freeze(shape);
+        long id = store.idAt(position);
+        store.set(position, shape);
+        ShapeIndex.Entry old = index.get(id, group);
+        index.remove(old);
+        markDirty(old);
+        ShapeIndex.Entry entry = new ShapeIndex.Entry(shape, group, id, old.label);
+        index.insert(entry);
+        markDirty(entry);
+    }
+
+    /**
+     * Makes a shape read-only as it joins the drawing, so that the snapshots sharing it are not
+     * changed through a reference kept outside. Shapes of other kinds than ColoredShape cannot
+     * be frozen and are trusted not to be changed.
+     */
+    private static void freeze(Shape shape) {
+        if (shape instanceof ColoredShape colored) {
+            colored.freeze();
+        }
+    }
+
+    /**
+     * Removes a shape or a group from its list and from the index.
+     */
+    private void remove(ShapeStore<?> store, boolean group, int position) {
+        long id = store.idAt(position);
+        store.remove(position);
+        ShapeIndex.Entry entry = index.get(id, group);
+        index.remove(entry);
+        markDirty(entry);
+    }
+
+    /**
+     * Gets the version of the drawing, the number of changes made to it. A snapshot starts
+     * with the version of the drawing it was taken of.
+     *
+     * @return The version of the drawing.
+     */
+    public long getVersion() {
+        if (batchDepth > 0) {
+            counted = false;
+        }
+        return version;
+    }
+
+    /**
+     * Gets the lineage of the drawing. Two drawings of the same lineage and version show the
+     * same shapes, so that a rendering can be kept for them without keeping the drawing.
+     *
+     * @return The lineage of the drawing.
+     */
+    long lineage() {
+        return lineage;
+    }
+
     /**
      * Gets the height of the drawing.
      *
@@ -96,10 +353,32 @@ public class Drawing {
     /**
      * Gets the list of shapes present in the drawing.
      *
-     * @return The list of shapes in the drawing.
+     * @return A read-only view of the list of shapes in the drawing.
      */
     public List<Shape> getShapes() {
-        return shapes;
+        return Collections.unmodifiableList(shapes);
+    }
+
+    /**
+     * Gets the id of the shape at the specified index. The id is kept while the shape stays
+     * in the drawing, when it is moved or recolored and when the shapes before it are removed.
+     *
+     * @param index The index of the shape.
+     * @return The id of the shape.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public long getShapeId(int index) {
+        return shapes.idAt(index);
+    }
+
+    /**
+     * Finds the current index of the shape of the given id.
+     *
+     * @param id The id of the shape.
+     * @return The index of the shape, or -1 if no shape of the drawing has this id.
+     */
+    public int indexOfShape(long id) {
+        return shapes.indexOfId(id);
     }
 
     /**
@@ -112,7 +391,8 @@ public class Drawing {
         if (index < 0 || index >= shapes.size()) {
             throw new IndexOutOfBoundsException("Index out of range: " + index);
         }
-        shapes.remove(index);
+        own();
+        remove(shapes, false, index);
     }
 
     /**
@@ -130,7 +410,44 @@ public class Drawing {
         if (index < 0 || index > shapes.size()) {
             throw new IndexOutOfBoundsException("Index out of range: " + index);
         }
-        shapes.add(index, shape);
+        own();
+        insert(shapes, false, index, shape);
+    }
+
+    /**
+     * Replaces the shape at the specified index of this drawing.
+     *
+     * @param index The index of the shape to replace.
+     * @param shape The new shape.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     * @throws IllegalArgumentException  if the shape is null.
+     */
+    public void replaceShape(int index, Shape shape) {
+        if (shape == null) {
+            throw new IllegalArgumentException("Shape cannot be null");
+        }
+        if (index < 0 || index >= shapes.size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        own();
+        replace(shapes, false, index, shape);
+    }
+
+    /**
+     * Moves the shape at the specified index of this drawing, replacing it with a moved copy.
+     *
+     * @param index The index of the shape to move.
+     * @param dx    The horizontal distance to move the shape.
+     * @param dy    The vertical distance to move the shape.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public void moveShape(int index, double dx, double dy) {
+        if (index < 0 || index >= shapes.size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        Shape moved = shapes.get(index).copy();
+        moved.move(dx, dy);
+        replaceShape(index, moved);
     }
 
     /**
@@ -139,24 +456,201 @@ public class Drawing {
      * @param component The composite component to add.
      */
     public void addComponent(Component component) {
-        components.add(component);
+        if (component == null) {
+            throw new IllegalArgumentException("Given component is null");
+        }
+        own();
+        insert(components, true, components.size(), component);
+    }
+
+    /**
+     * Removes the composite component (group) at the specified index.
+     *
+     * @param index The index of the group to remove.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public void removeComponent(int index) {
+        if (index < 0 || index >= components.size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        own();
+        remove(components, true, index);
+    }
+
+    /**
+     * Removes a composite component (group) from this drawing.
+     *
+     * @param component The group to remove.
+     */
+    public void removeComponent(Component component) {
+        int position = components.indexOf(component);
+        if (position >= 0) {
+            removeComponent(position);
+        }
+    }
+
+    /**
+     * Replaces the composite component (group) at the specified index of this drawing.
+     *
+     * @param index     The index of the group to replace.
+     * @param component The new group.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     * @throws IllegalArgumentException  if the group is null.
+     */
+    public void replaceComponent(int index, Component component) {
+        if (component == null) {
+            throw new IllegalArgumentException("Given component is null");
+        }
+        if (index < 0 || index >= components.size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        own();
+        replace(components, true, index, component);
+    }
+
+    /**
+     * Moves the composite component (group) at the specified index, replacing it with a
+     * moved copy.
+     *
+     * @param index The index of the group to move.
+     * @param dx    The horizontal distance to move the group.
+     * @param dy    The vertical distance to move the group.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public void moveComponent(int index, double dx, double dy) {
+        if (index < 0 || index >= components.size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        Component moved = components.get(index).copy();
+        moved.move(dx, dy);
+        replaceComponent(index, moved);
+    }
+
+    /**
+     * Changes the color of the shape at the specified index, replacing it with a copy of
+     * the new color.
+     *
+     * @param index The index of the shape.
+     * @param color The new color of the shape.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public void recolorShape(int index, char color) {
+        if (index < 0 || index >= shapes.size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        if (shapes.get(index) instanceof ColoredShape shape) {
+            ColoredShape recolored = shape.copy();
+            recolored.setColor(color);
+            replaceShape(index, recolored);
+        }
+    }
+
+    /**
+     * Changes the color of the group at the specified index and of its children, replacing
+     * it with a copy of the new color.
+     *
+     * @param index The index of the group.
+     * @param color The new color of the group.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public void recolorComponent(int index, char color) {
+        if (index < 0 || index >= components.size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        Component component = components.get(index);
+        Component recolored;
+        if (component instanceof Composite) {
+            Composite group = new Composite(color);
+            for (Component child : ((Composite) component).getChildren()) {
+                Component copy = child.copy();
+                copy.setColor(color);
+                group.add(copy);
+            }
+            recolored = group;
+        } else {
+            recolored = component.copy();
+            recolored.setColor(color);
+        }
+        replaceComponent(index, recolored);
+    }
+
+    /**
+     * Records the cells of an entry of the index as changed.
+     *
+     * @param entry The entry whose box of cells has changed.
+     */
+    private void markDirty(ShapeIndex.Entry entry) {
+        if (!entry.empty) {
+            markDirty(entry.minX, entry.minY, entry.maxX, entry.maxY);
+        }
+    }
+
+    /**
+     * Records a box of cells as changed, or adds it to the box of the current batch.
+     */
+    private void markDirty(int minX, int minY, int maxX, int maxY) {
+        if (batchDepth == 0) {
+            dirtyRegions.add(minX, minY, maxX, maxY);
+        } else if (batchBox == null) {
+            batchBox = new int[]{minX, minY, maxX, maxY};
+        } else {
+            batchBox[0] = Math.min(batchBox[0], minX);
+            batchBox[1] = Math.min(batchBox[1], minY);
+            batchBox[2] = Math.max(batchBox[2], maxX);
+            batchBox[3] = Math.max(batchBox[3], maxY);
+        }
+    }
+
+    /**
+     * Records the box of the cells changed by the current batch, if any.
+     */
+    private void flushBatchBox() {
+        if (batchBox != null) {
+            dirtyRegions.add(batchBox[0], batchBox[1], batchBox[2], batchBox[3]);
+            batchBox = null;
+        }
+    }
+
+    /**
+     * Gets the current position in the history of the changed areas of the drawing.
+     *
+     * @return The current position.
+     */
+    long changePosition() {
+        flushBatchBox();
+        return dirtyRegions.position();
+    }
+
+    /**
+     * Gets the boxes of cells {minX, minY, maxX, maxY} changed after the given position.
+     *
+     * @param position A position returned earlier by changePosition().
+     * @return The changed boxes, or null if they are not all known anymore.
+     */
+    List<int[]> changesSince(long position) {
+        flushBatchBox();
+        return dirtyRegions.since(position);
     }
 
     /**
      * Retrieves a list of all composite components (groups) in the drawing.
      *
-     * @return A list of composite components.
+     * @return A read-only view of the list of composite components.
      */
     public List<Component> getComponents() {
-        return components;
+        return Collections.unmodifiableList(components);
     }
 
     /**
-     * Removes a shape from this drawing.
+     * Removes a shape from this drawing. The shape is found by identity, without scanning
+     * the shapes.
      * @param shape The shape to remove.
      */
     public void removeShape(Shape shape) {
-        shapes.remove(shape);
+        int position = shapes.indexOf(shape);
+        if (position >= 0) {
+            removeShape(position);
+        }
     }
 
 
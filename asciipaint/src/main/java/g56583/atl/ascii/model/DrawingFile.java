@@ -0,0 +1,385 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves drawings in a compact binary format and loads them back through a memory-mapped file.
+ * <p>
+ * A file starts with a header {magic, version, width, height, number of table rows, number of
+ * shapes, number of groups}, followed by the rows of the table of the drawing, then the records
+ * of the shapes and then of the groups, in the order of the drawing. A row is the kind of the
+ * shape, its four numbers and its color, as the table keeps them. A record is a tag, the color,
+ * then the geometry of the shape in doubles. The record of a group gives the length in bytes
+ * and the number of its children before their records, so that it can be skipped without being
+ * decoded. Numbers are big-endian. Files of the first version have no table rows in their
+ * header; their shapes are loaded as such.
+ * <p>
+ * Loading checks every record before building the drawing: its tag, its length, the lengths
+ * of the children of a group, and the sizes the constructors of the shapes require, so that a
+ * corrupted file fails to load instead of failing when one of its shapes is first drawn.
+ * <p>
+ * A drawing loaded lazily decodes each shape the first time it is drawn, moved or copied. The
+ * file must then not be changed while the drawing is in use.
+ */
+public final class DrawingFile {
+    private static final int MAGIC = 0x41534350;
+    private static final int VERSION = 2;
+    private static final int HEADER = 7 * Integer.BYTES;
+    private static final int FIRST_VERSION_HEADER = 6 * Integer.BYTES;
+    private static final int ROW = 1 + 4 * Double.BYTES + Character.BYTES;
+
+    static final byte CIRCLE = 1;
+    static final byte RECTANGLE = 2;
+    static final byte SQUARE = 3;
+    static final byte LINE = 4;
+    static final byte GROUP = 5;
+
+    private DrawingFile() {
+    }
+
+    /**
+     * Saves the given drawing to a file, replacing it if it already exists. The drawing is
+     * written to a temporary file next to it first, then moved in its place: the previous
+     * file stays whole if the writing fails, and a drawing loaded lazily from it, even the
+     * one being saved, keeps reading its shapes from the previous content.
+     *
+     * @param drawing The drawing to save.
+     * @param path    The path of the file.
+     * @throws IOException              If the file cannot be written.
+     * @throws IllegalArgumentException If the drawing holds a kind of shape the format does not know.
+     */
+    public static void save(Drawing drawing, Path path) throws IOException {
+        if (drawing == null || path == null) {
+            throw new IllegalArgumentException("Given drawing or path is null");
+        }
+        Path target = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            write(drawing, temporary);
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void write(Drawing drawing, Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(drawing.getWidth());
+            out.writeInt(drawing.getHeight());
+            ShapeTable table = drawing.table();
+            int tableSize = table == null ? 0 : table.size();
+            out.writeInt(tableSize);
+            out.writeInt(drawing.getShapes().size());
+            out.writeInt(drawing.getComponents().size());
+            for (int i = 0; i < tableSize; i++) {
+                out.writeByte(table.kind(i));
+                out.writeDouble(table.a(i));
+                out.writeDouble(table.b(i));
+                out.writeDouble(table.c(i));
+                out.writeDouble(table.d(i));
+                out.writeChar(table.colorAt(i));
+            }
+            for (Shape shape : drawing.getShapes()) {
+                write(out, shape);
+            }
+            for (Component component : drawing.getComponents()) {
+                write(out, component);
+            }
+        }
+    }
+
+    /**
+     * Loads a drawing saved by save, decoding all its shapes.
+     *
+     * @param path The path of the file.
+     * @return The loaded drawing.
+     * @throws IOException If the file cannot be read or is not a drawing file.
+     */
+    public static Drawing load(Path path) throws IOException {
+        return load(path, false);
+    }
+
+    /**
+     * Loads a drawing saved by save, decoding each shape only when it is first drawn, moved
+     * or copied. Groups are decoded at once, their single shapes lazily.
+     * The load is not free: every record is still checked, and every shape gets a small
+     * placeholder whose bounds, read from the file, are registered in the spatial index of the
+     * drawing, which takes O(n log n) for n shapes. What is saved is building the shapes
+     * themselves, and their points, until they are needed.
+     *
+     * @param path The path of the file.
+     * @return The loaded drawing.
+     * @throws IOException If the file cannot be read or is not a drawing file.
+     */
+    public static Drawing loadLazy(Path path) throws IOException {
+        return load(path, true);
+    }
+
+    private static Drawing load(Path path, boolean lazy) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Given path is null");
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < FIRST_VERSION_HEADER || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a drawing file: " + path);
+        }
+        int version = buffer.getInt(4);
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported drawing file version: " + version);
+        }
+        try {
+            Drawing drawing = new Drawing(buffer.getInt(8), buffer.getInt(12));
+            int offset = version == 1 ? FIRST_VERSION_HEADER : HEADER;
+            int rows = version == 1 ? 0 : buffer.getInt(16);
+            int shapes = buffer.getInt(offset - 8);
+            int components = buffer.getInt(offset - 4);
+            if (rows < 0 || shapes < 0 || components < 0 || (long) rows * ROW > buffer.limit() - offset) {
+                throw new IllegalArgumentException("Invalid numbers of rows and shapes");
+            }
+            int end = offset + rows * ROW;
+            for (int i = 0; i < shapes + components; i++) {
+                end += check(buffer, end, buffer.limit());
+            }
+            if (end != buffer.limit()) {
+                throw new IllegalArgumentException("Unexpected bytes after the last shape");
+            }
+            if (rows > 0) {
+                ShapeTable table = drawing.getTable();
+                for (int i = 0; i < rows; i++) {
+                    table.addRow(buffer.get(offset), buffer.getDouble(offset + 1), buffer.getDouble(offset + 9),
+                            buffer.getDouble(offset + 17), buffer.getDouble(offset + 25), buffer.getChar(offset + 33));
+                    offset += ROW;
+                }
+            }
+            for (int i = 0; i < shapes; i++) {
+                drawing.addShape(read(buffer, offset, lazy));
+                offset += length(buffer, offset);
+            }
+            for (int i = 0; i < components; i++) {
+                drawing.addComponent(read(buffer, offset, lazy));
+                offset += length(buffer, offset);
+            }
+            return drawing;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupted drawing file: " + path, e);
+        }
+    }
+
+    /**
+     * Writes the record of a shape, and of its children for a group.
+     */
+    private static void write(DataOutputStream out, Shape shape) throws IOException {
+        if (shape instanceof LazyShape lazy) {
+            shape = lazy.decode();
+        }
+        if (shape instanceof Circle circle) {
+            out.writeByte(CIRCLE);
+            out.writeChar(circle.getColor());
+            writePoint(out, circle.getCenter());
+            out.writeDouble(circle.getRadius());
+        } else if (shape instanceof Square square) {
+            out.writeByte(SQUARE);
+            out.writeChar(square.getColor());
+            writePoint(out, square.getUpperLeft());
+            out.writeDouble(square.getWidth());
+        } else if (shape instanceof Rectangle rectangle) {
+            out.writeByte(RECTANGLE);
+            out.writeChar(rectangle.getColor());
+            writePoint(out, rectangle.getUpperLeft());
+            out.writeDouble(rectangle.getWidth());
+            out.writeDouble(rectangle.getHeight());
+        } else if (shape instanceof Line line) {
+            out.writeByte(LINE);
+            out.writeChar(line.getColor());
+            writePoint(out, line.getStartPoint());
+            writePoint(out, line.getEndPoint());
+        } else if (shape instanceof Composite group) {
+            out.writeByte(GROUP);
+            out.writeChar(group.getColor());
+            out.writeInt(childrenLength(group));
+            out.writeInt(group.getChildren().size());
+            for (Component child : group.getChildren()) {
+                write(out, child);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot save a shape of type " + shape.getClass().getName());
+        }
+    }
+
+    private static void writePoint(DataOutputStream out, Point point) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+    }
+
+    /**
+     * Computes the number of bytes of the records of the children of a group.
+     */
+    private static int childrenLength(Composite group) {
+        int length = 0;
+        for (Component child : group.getChildren()) {
+            Shape shape = child instanceof LazyShape lazy ? lazy.decode() : child;
+            if (shape instanceof Composite nested) {
+                length += 1 + Character.BYTES + 2 * Integer.BYTES + childrenLength(nested);
+            } else {
+                length += leafLength(shape instanceof Circle || shape instanceof Square ? CIRCLE : LINE);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Gets the number of bytes of the record of a single shape.
+     */
+    private static int leafLength(byte tag) {
+        int doubles = switch (tag) {
+            case CIRCLE, SQUARE -> 3;
+            case RECTANGLE, LINE -> 4;
+            default -> throw new IllegalArgumentException("Unknown shape tag: " + tag);
+        };
+        return 1 + Character.BYTES + doubles * Double.BYTES;
+    }
+
+    /**
+     * Checks the record at the given position, and the records of the children of a group:
+     * each one has a known tag, fits before the given end and holds a shape its constructor
+     * accepts, and the children of a group fill its length exactly.
+     *
+     * @return The number of bytes of the record.
+     * @throws IllegalArgumentException If the record is not valid.
+     */
+    private static int check(ByteBuffer buffer, int offset, int end) {
+        byte tag = buffer.get(offset);
+        if (tag == GROUP) {
+            int length = buffer.getInt(offset + 3);
+            int count = buffer.getInt(offset + 7);
+            int children = offset + 11;
+            if (length < 0 || count < 0 || length > end - children) {
+                throw new IllegalArgumentException("Invalid group record at " + offset);
+            }
+            int child = children;
+            for (int i = 0; i < count; i++) {
+                child += check(buffer, child, children + length);
+            }
+            if (child != children + length) {
+                throw new IllegalArgumentException("Invalid group length at " + offset);
+            }
+            return child - offset;
+        }
+        int length = leafLength(tag);
+        if (length > end - offset) {
+            throw new IllegalArgumentException("Truncated record at " + offset);
+        }
+        double third = buffer.getDouble(offset + 19);
+        boolean valid = switch (tag) {
+            case CIRCLE, SQUARE -> third > 0;
+            case RECTANGLE -> third > 0 || buffer.getDouble(offset + 27) > 0;
+            default -> true;
+        };
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid size of shape at " + offset);
+        }
+        return length;
+    }
+
+    /**
+     * Gets the number of bytes of the record at the given position.
+     */
+    static int length(ByteBuffer buffer, int offset) {
+        byte tag = buffer.get(offset);
+        if (tag == GROUP) {
+            return 1 + Character.BYTES + 2 * Integer.BYTES + buffer.getInt(offset + 3);
+        }
+        return leafLength(tag);
+    }
+
+    /**
+     * Reads the shape whose record is at the given position. In lazy mode, single shapes are
+     * returned undecoded.
+     */
+    private static Component read(ByteBuffer buffer, int offset, boolean lazy) {
+        byte tag = buffer.get(offset);
+        char color = buffer.getChar(offset + 1);
+        if (tag != GROUP) {
+            leafLength(tag);
+            return lazy ? new LazyShape(buffer, offset, color) : decode(buffer, offset);
+        }
+        Composite group = new Composite(color);
+        int count = buffer.getInt(offset + 7);
+        int child = offset + 11;
+        for (int i = 0; i < count; i++) {
+            group.add(read(buffer, child, lazy));
+            child += length(buffer, child);
+        }
+        return group;
+    }
+
+    /**
+     * Decodes the single shape whose record is at the given position.
+     */
+    static Component decode(ByteBuffer buffer, int offset) {
+        byte tag = buffer.get(offset);
+        char color = buffer.getChar(offset + 1);
+        int at = offset + 3;
+        Point first = new Point(buffer.getDouble(at), buffer.getDouble(at + 8));
+        return switch (tag) {
+            case CIRCLE -> new Circle(first, buffer.getDouble(at + 16), color);
+            case SQUARE -> new Square(first, buffer.getDouble(at + 16), color);
+            case RECTANGLE -> new Rectangle(first, buffer.getDouble(at + 16), buffer.getDouble(at + 24), color);
+            case LINE -> new Line(first, new Point(buffer.getDouble(at + 16), buffer.getDouble(at + 24)), color);
+            default -> throw new IllegalArgumentException("Unknown shape tag: " + tag);
+        };
+    }
+
+    /**
+     * Computes the bounds of the single shape whose record is at the given position, without
+     * decoding it. The bounds are the ones the decoded shape would report.
+     */
+    static Bounds bounds(ByteBuffer buffer, int offset) {
+        byte tag = buffer.get(offset);
+        int at = offset + 3;
+        double x = buffer.getDouble(at);
+        double y = buffer.getDouble(at + 8);
+        double a = buffer.getDouble(at + 16);
+        return switch (tag) {
+            case CIRCLE -> new Bounds(x - a, y - a, x + a, y + a);
+            case SQUARE -> new Bounds(x, y, x + a, y + a);
+            case RECTANGLE -> new Bounds(x, y, x + a, y + buffer.getDouble(at + 24));
+            case LINE -> Line.bounds(x, y, a, buffer.getDouble(at + 24));
+            default -> throw new IllegalArgumentException("Unknown shape tag: " + tag);
+        };
+    }
+
+    /**
+     * Gets the name of the single shape whose record is at the given position, as its
+     * toString method would.
+     */
+    static String name(ByteBuffer buffer, int offset) {
+        return switch (buffer.get(offset)) {
+            case CIRCLE -> "Circle";
+            case SQUARE -> "Square";
+            case RECTANGLE -> "Rectangle";
+            default -> "Line";
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package g56583.atl.ascii.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last ASCII art rendering of a drawing and brings it up to date by rendering
+ * again only the areas the drawing reports as changed since. When the changed areas cover
+ * a large part of the drawing, or when another drawing is rendered, the whole frame is
+ * rendered again, in parallel when the drawing is large enough for the renderer. While the
+ * drawing keeps its version, the same rendering is answered again without any work.
+ */
+public class FrameBuffer {
+    private ParallelRenderer renderer = new ParallelRenderer();
+    private Drawing drawing;
+    private char[] frame;
+    private long position;
+    private String text;
+    private long version;
+
+    /**
+     * Sets the renderer used when the whole frame is rendered again.
+     *
+     * @param renderer The renderer to use.
+     * @throws IllegalArgumentException If the renderer is null.
+     */
+    public void setRenderer(ParallelRenderer renderer) {
+        if (renderer == null) {
+            throw new IllegalArgumentException("Given renderer is null");
+        }
+        this.renderer = renderer;
+    }
+
+    /**
+     * Renders the given drawing, reusing the previous frame when it was made for the same drawing.
+     *
+     * @param drawing The drawing to render.
+     * @return The ASCII art representation of the drawing.
+     */
+    public String render(Drawing drawing) {
+        if (drawing == this.drawing && text != null && drawing.getVersion() == version) {
+            return text;
+        }
+        update(drawing);
+        text = new String(frame);
+        version = drawing.getVersion();
+        return text;
+    }
+
+    /**
+     * Writes the rendering of the given drawing to an output, from the frame brought up to date
+     * as render does, without building a string of it.
+     *
+     * @param drawing The drawing to render.
+     * @param out     The output receiving the rendering.
+     * @throws IOException If the output fails.
+     */
+    public void renderTo(Drawing drawing, Appendable out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Given output is null");
+        }
+        if (drawing == this.drawing && text != null && drawing.getVersion() == version) {
+            out.append(text);
+            return;
+        }
+        update(drawing);
+        if (out instanceof Writer writer) {
+            writer.write(frame);
+        } else if (out instanceof StringBuilder builder) {
+            builder.append(frame);
+        } else {
+            out.append(CharBuffer.wrap(frame));
+        }
+    }
+
+    /**
+     * Brings the frame up to date with the given drawing.
+     *
+     * @param drawing The drawing to render.
+     */
+    private void update(Drawing drawing) {
+        if (drawing == null) {
+            throw new IllegalArgumentException("Given drawing is null");
+        }
+        long now = drawing.changePosition();
+        List<int[]> changes = drawing == this.drawing ? drawing.changesSince(position) : null;
+        List<int[]> regions = changes == null ? null : clip(changes, drawing.getWidth(), drawing.getHeight());
+        if (regions == null) {
+            frame = new char[drawing.getHeight() * (drawing.getWidth() + 1)];
+            renderer.render(drawing, frame);
+        } else if (!regions.isEmpty()) {
+            Rasterizer rasterizer = new Rasterizer(drawing);
+            int stride = drawing.getWidth() + 1;
+            for (int[] box : regions) {
+                rasterizer.renderRegion(box[0], box[1], box[2], box[3], frame, box[1] * stride + box[0], stride);
+            }
+        }
+        this.drawing = drawing;
+        this.position = now;
+    }
+
+    /**
+     * Restricts the changed boxes to the drawing and merges the ones overlapping each other.
+     *
+     * @param changes The changed boxes {minX, minY, maxX, maxY}.
+     * @param width   The width of the drawing.
+     * @param height  The height of the drawing.
+     * @return The areas to render again, or null if rendering the whole frame is cheaper.
+     */
+    private static List<int[]> clip(List<int[]> changes, int width, int height) {
+        List<int[]> regions = new ArrayList<>();
+        for (int[] change : changes) {
+            int[] box = {Math.max(change[0], 0), Math.max(change[1], 0),
+                    Math.min(change[2], width - 1), Math.min(change[3], height - 1)};
+            if (box[0] > box[2] || box[1] > box[3]) {
+                continue;
+            }
+            boolean merged = false;
+            for (int[] region : regions) {
+                int[] union = {Math.min(region[0], box[0]), Math.min(region[1], box[1]),
+                        Math.max(region[2], box[2]), Math.max(region[3], box[3])};
+                if (area(union) <= area(region) + area(box)) {
+                    System.arraycopy(union, 0, region, 0, 4);
+                    merged = true;
+                    break;
+                }
+            }
+            if (!merged) {
+                regions.add(box);
+            }
+        }
+        long total = 0;
+        for (int[] region : regions) {
+            total += area(region);
+        }
+        return total * 2 > (long) width * height ? null : regions;
+    }
+
+    /**
+     * Computes the number of cells of a box.
+     */
+    private static long area(int[] box) {
+        return (long) (box[2] - box[0] + 1) * (box[3] - box[1] + 1);
+    }
+}
@@ -0,0 +1,91 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stands for a single shape of a drawing file that is not decoded yet. The color and the
+ * bounds are read from the file, the shape itself is decoded the first time it is drawn,
+ * moved or copied, and every call is then forwarded to it.
+ */
+final class LazyShape extends Component {
+    private final ByteBuffer buffer;
+    private final int offset;
+    private volatile Component shape;
+
+    /**
+     * Constructs a lazy shape for the record at the given position of a drawing file.
+     *
+     * @param buffer The content of the file.
+     * @param offset The position of the record of the shape.
+     * @param color  The color of the shape.
+     */
+    LazyShape(ByteBuffer buffer, int offset, char color) {
+        super(color);
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * Gets the decoded shape, decoding it if needed.
+     *
+     * @return The shape.
+     */
+    Component decode() {
+        Component current = shape;
+        if (current == null) {
+            synchronized (this) {
+                current = shape;
+                if (current == null) {
+                    current = DrawingFile.decode(buffer, offset);
+                    current.setColor(getColor());
+                    shape = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public synchronized void setColor(char color) {
+        super.setColor(color);
+        Component current = shape;
+        if (current != null) {
+            current.setColor(color);
+        }
+    }
+
+    @Override
+    public void move(double dx, double dy) {
+        checkChangeable();
+        decode().move(dx, dy);
+    }
+
+    @Override
+    public boolean isInside(double x, double y) {
+        return decode().isInside(x, y);
+    }
+
+    @Override
+    public void spans(int y, int minX, int maxX, SpanSink sink) {
+        decode().spans(y, minX, maxX, sink);
+    }
+
+    @Override
+    public Bounds bounds() {
+        Component current = shape;
+        return current != null ? current.bounds() : DrawingFile.bounds(buffer, offset);
+    }
+
+    @Override
+    public Component copy() {
+        return decode().copy();
+    }
+
+    @Override
+    public String toString() {
+        Component current = shape;
+        return current != null ? current.toString() : DrawingFile.name(buffer, offset);
+    }
+}
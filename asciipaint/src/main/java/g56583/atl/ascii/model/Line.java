@@ -2,11 +2,26 @@ package g56583.atl.ascii.model;
 
 import g56583.atl.ascii.DesignPattern.Composite.Component;
 
+import java.math.BigInteger;
+
 /**
  * This class represents a line defined by two points. The line is characterized by its start and end points,
  * along with a color attribute inherited from ColoredShape.
+ * The line covers the cells Bresenham's algorithm draws between the cells of its two points:
+ * one cell per column, or per row when it is steeper than a diagonal, the other coordinate
+ * being rounded half up. The cells are computed with integers only, and a point is on the line
+ * when its closest cell is. The line is cut where it leaves the square of {@value #LIMIT}
+ * cells around the origin, which holds every cell a drawing can have: a point farther away is
+ * brought back along the line to the edge of the square, and the line keeps its direction.
+ * Only cells that no drawing can show are thus left out.
  */
 public class Line extends Component {
+    /**
+     * The largest distance from the origin of the cells of the points of a line, beyond the
+     * columns and rows of a drawing, which are ints.
+     */
+    static final long LIMIT = 1L << 32;
+
     private final Point startPoint;
     private final Point endPoint;
 
@@ -28,38 +43,222 @@ public class Line extends Component {
 
     @Override
     public void move(double dx, double dy) {
+        checkChangeable();
         startPoint.move(dx, dy);
         endPoint.move(dx, dy);
     }
 
+    /**
+     * Gets the bounds of the line: the box of the cells of its two points, each cell
+     * extending half a cell around its center.
+     *
+     * @return The bounds of the line.
+     */
+    @Override
+    public Bounds bounds() {
+        return bounds(startPoint.getX(), startPoint.getY(), endPoint.getX(), endPoint.getY());
+    }
+
+    @Override
+    public boolean isInside(double x, double y) {
+        return isInside(startPoint.getX(), startPoint.getY(), endPoint.getX(), endPoint.getY(), x, y);
+    }
+
     @Override
-    public boolean isInside(Point p) {
-        if (p == null) {
-            throw new IllegalArgumentException("Point cannot be null");
+    public void spans(int y, int minX, int maxX, SpanSink sink) {
+        spans(startPoint.getX(), startPoint.getY(), endPoint.getX(), endPoint.getY(), y, minX, maxX, sink);
+    }
+
+    /**
+     * Gets the bounds of the line between the given points. Shared with the shape tables and
+     * the drawing files, which keep lines as numbers.
+     */
+    static Bounds bounds(double x1, double y1, double x2, double y2) {
+        if (isFar(x1, y1, x2, y2)) {
+            double[] cut = clip(x1, y1, x2, y2);
+            return cut == null ? Bounds.EMPTY : bounds(cut[0], cut[1], cut[2], cut[3]);
         }
+        long ax = cell(x1);
+        long ay = cell(y1);
+        long bx = cell(x2);
+        long by = cell(y2);
+        return new Bounds(Math.min(ax, bx) - 0.5, Math.min(ay, by) - 0.5,
+                Math.max(ax, bx) + 0.5, Math.max(ay, by) + 0.5);
+    }
 
-        double deltaX = endPoint.getX() - startPoint.getX();
-        double deltaY = endPoint.getY() - startPoint.getY();
+    /**
+     * Checks if a point is on the line between the given points, that is if its closest cell
+     * is drawn by the line.
+     */
+    static boolean isInside(double x1, double y1, double x2, double y2, double x, double y) {
+        if (isFar(x1, y1, x2, y2)) {
+            double[] cut = clip(x1, y1, x2, y2);
+            return cut != null && isInside(cut[0], cut[1], cut[2], cut[3], x, y);
+        }
+        long ax = cell(x1);
+        long ay = cell(y1);
+        long bx = cell(x2);
+        long by = cell(y2);
+        long px = Math.round(x);
+        long py = Math.round(y);
+        if (Math.abs(bx - ax) >= Math.abs(by - ay)) {
+            // One cell per column, from the leftmost point.
+            long fromX = Math.min(ax, bx);
+            long fromY = ax <= bx ? ay : by;
+            long n = Math.abs(bx - ax);
+            return px >= fromX && px <= fromX + n
+                    && py == fromY + minor(px - fromX, (ax <= bx ? by : ay) - fromY, n);
+        }
+        // One cell per row, from the topmost point.
+        long fromY = Math.min(ay, by);
+        long fromX = ay <= by ? ax : bx;
+        long n = Math.abs(by - ay);
+        return py >= fromY && py <= fromY + n
+                && px == fromX + minor(py - fromY, (ay <= by ? bx : ax) - fromX, n);
+    }
 
-        // Ligne verticale
-        if (deltaX == 0) {
-            return p.getX() == startPoint.getX() &&
-                    Math.min(startPoint.getY(), endPoint.getY()) <= p.getY() &&
-                    p.getY() <= Math.max(startPoint.getY(), endPoint.getY());
+    /**
+     * Reports the span of the line between the given points on a row. The span is solved from
+     * the rounding of Bresenham's algorithm, so that a row costs the same whatever the length
+     * of the line.
+     */
+    static void spans(double x1, double y1, double x2, double y2, int y, int minX, int maxX, SpanSink sink) {
+        if (isFar(x1, y1, x2, y2)) {
+            double[] cut = clip(x1, y1, x2, y2);
+            if (cut != null) {
+                spans(cut[0], cut[1], cut[2], cut[3], y, minX, maxX, sink);
+            }
+            return;
+        }
+        long ax = cell(x1);
+        long ay = cell(y1);
+        long bx = cell(x2);
+        long by = cell(y2);
+        long lo;
+        long hi;
+        if (Math.abs(bx - ax) < Math.abs(by - ay)) {
+            // One cell per row, from the topmost point.
+            long fromY = Math.min(ay, by);
+            long fromX = ay <= by ? ax : bx;
+            long n = Math.abs(by - ay);
+            if (y < fromY || y > fromY + n) {
+                return;
+            }
+            lo = fromX + minor(y - fromY, (ay <= by ? bx : ax) - fromX, n);
+            hi = lo;
+        } else {
+            // One cell per column, from the leftmost point: the columns whose rounded row is y.
+            long fromX = Math.min(ax, bx);
+            long fromY = ax <= bx ? ay : by;
+            long n = Math.abs(bx - ax);
+            long d = (ax <= bx ? by : ay) - fromY;
+            long k = y - fromY;
+            if (k < Math.min(d, 0) || k > Math.max(d, 0)) {
+                return;
+            }
+            if (d == 0) {
+                lo = 0;
+                hi = n;
+            } else if (d > 0) {
+                // The ceilings of (2nk - n) / 2d and of (2nk + n) / 2d, as opposite floors.
+                lo = -floorDiv(2 * n, -k, n, 2 * d);
+                hi = -floorDiv(2 * n, -k, -n, 2 * d) - 1;
+            } else {
+                lo = floorDiv(2 * n, -k, -n, -2 * d) + 1;
+                hi = floorDiv(2 * n, -k, n, -2 * d);
+            }
+            lo = fromX + Math.max(lo, 0);
+            hi = fromX + Math.min(hi, n);
         }
+        lo = Math.max(lo, minX);
+        hi = Math.min(hi, maxX);
+        if (lo <= hi) {
+            sink.span((int) lo, (int) hi);
+        }
+    }
 
-        // Ligne horizontale
-        if (deltaY == 0) {
-            return p.getY() == startPoint.getY() &&
-                    Math.min(startPoint.getX(), endPoint.getX()) <= p.getX() &&
-                    p.getX() <= Math.max(startPoint.getX(), endPoint.getX());
+    /**
+     * Gets the cell of a coordinate of a point of the square.
+     */
+    private static long cell(double coordinate) {
+        return Math.round(coordinate);
+    }
+
+    /**
+     * Checks if a point of the line between the given points is out of the square, or not a
+     * number.
+     */
+    private static boolean isFar(double x1, double y1, double x2, double y2) {
+        return !(Math.abs(x1) <= LIMIT && Math.abs(y1) <= LIMIT && Math.abs(x2) <= LIMIT && Math.abs(y2) <= LIMIT);
+    }
+
+    /**
+     * Cuts the line between the given points to the part inside the square, with the
+     * algorithm of Liang and Barsky: the part is found as an interval of the line, so both its
+     * ends stay on the line.
+     *
+     * @return The ends of the part, as {x1, y1, x2, y2}, or null if the line misses the square.
+     */
+    private static double[] clip(double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double from = 0;
+        double to = 1;
+        // For each side of the square, how fast the line goes out and how far it is from it.
+        double[] speeds = {-dx, dx, -dy, dy};
+        double[] distances = {x1 + LIMIT, LIMIT - x1, y1 + LIMIT, LIMIT - y1};
+        for (int i = 0; i < speeds.length; i++) {
+            if (speeds[i] == 0) {
+                if (distances[i] < 0) {
+                    return null;
+                }
+            } else if (speeds[i] < 0) {
+                from = Math.max(from, distances[i] / speeds[i]);
+            } else {
+                to = Math.min(to, distances[i] / speeds[i]);
+            }
         }
+        if (!(from <= to)) {
+            return null;
+        }
+        // The rounding may leave the ends a tiny bit out of the square.
+        return new double[]{inSquare(x1 + from * dx), inSquare(y1 + from * dy),
+                inSquare(x1 + to * dx), inSquare(y1 + to * dy)};
+    }
+
+    private static double inSquare(double coordinate) {
+        return Math.max(-LIMIT, Math.min(LIMIT, coordinate));
+    }
 
-        // Ligne diagonale
-        double m = deltaY / deltaX;
-        double distance = Math.abs(m * p.getX() - p.getY() - m * startPoint.getX() + startPoint.getY()) /
-                Math.sqrt(m * m + 1);
-        return distance <= 0.5;
+    /**
+     * Computes how far the line has gone along its shorter axis after the given number of
+     * steps along the longer one, rounded half up: the error term of Bresenham's algorithm,
+     * in closed form.
+     *
+     * @param step  The number of steps along the longer axis.
+     * @param delta The distance along the shorter axis between the two points.
+     * @param steps The distance along the longer axis between the two points.
+     * @return The distance gone along the shorter axis.
+     */
+    private static long minor(long step, long delta, long steps) {
+        return steps == 0 ? 0 : floorDiv(2 * step, delta, steps, 2 * steps);
+    }
+
+    /**
+     * Computes the floor of (a * b + c) / d, even when the product does not fit in a long,
+     * as it may for the longest lines of the square.
+     *
+     * @param d The divisor, more than 0.
+     */
+    private static long floorDiv(long a, long b, long c, long d) {
+        long product = a * b;
+        long sum = product + c;
+        if (Math.multiplyHigh(a, b) == product >> 63 && ((product ^ sum) & (c ^ sum)) >= 0) {
+            return Math.floorDiv(sum, d);
+        }
+        BigInteger[] division = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                .add(BigInteger.valueOf(c)).divideAndRemainder(BigInteger.valueOf(d));
+        return division[0].longValue() - (division[1].signum() < 0 ? 1 : 0);
     }
 
     @Override
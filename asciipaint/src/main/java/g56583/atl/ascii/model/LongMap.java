@@ -0,0 +1,194 @@
+package g56583.atl.ascii.model;
+
+import java.util.function.Consumer;
+
+/**
+ * An immutable map from long keys to values. Putting or removing a key gives a new map that
+ * shares every node with this one but the few on the path to the key, so that a map kept by a
+ * snapshot costs nothing to keep and a change of the drawing costs a logarithmic number of
+ * new nodes. The nodes form a treap ordered by key, whose priorities are a hash of the keys.
+ *
+ * @param <V> The type of the values.
+ */
+final class LongMap<V> {
+    private static final LongMap<?> EMPTY = new LongMap<>(null);
+
+    private final Node<V> root;
+
+    /**
+     * A node of the tree, never changed once built.
+     */
+    private static final class Node<V> {
+        final long key;
+        final V value;
+        final int priority;
+        final int size;
+        final Node<V> left;
+        final Node<V> right;
+
+        Node(long key, V value, int priority, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+            this.size = 1 + size(left) + size(right);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private LongMap(Node<V> root) {
+        this.root = root;
+    }
+
+    /**
+     * Gets the empty map.
+     *
+     * @param <V> The type of the values.
+     * @return The empty map.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> LongMap<V> empty() {
+        return (LongMap<V>) EMPTY;
+    }
+
+    /**
+     * Gets the number of keys of the map.
+     *
+     * @return The number of keys.
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key The key.
+     * @return Its value, or null if the key is not in the map.
+     */
+    V get(long key) {
+        Node<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives a map where a key has the given value.
+     *
+     * @param key   The key.
+     * @param value Its value, not null.
+     * @return The changed map.
+     */
+    LongMap<V> put(long key, V value) {
+        return new LongMap<>(put(root, key, value, priority(key)));
+    }
+
+    /**
+     * Gives a map without the given key.
+     *
+     * @param key The key to remove.
+     * @return The changed map, or this one if the key is not in it.
+     */
+    LongMap<V> remove(long key) {
+        Node<V> removed = remove(root, key);
+        return removed == root ? this : new LongMap<>(removed);
+    }
+
+    /**
+     * Gives each value to an action, in the order of the keys.
+     *
+     * @param action The action to run on the values.
+     */
+    void forEach(Consumer<? super V> action) {
+        forEach(root, action);
+    }
+
+    private static <V> void forEach(Node<V> node, Consumer<? super V> action) {
+        while (node != null) {
+            forEach(node.left, action);
+            action.accept(node.value);
+            node = node.right;
+        }
+    }
+
+    private static <V> Node<V> put(Node<V> node, long key, V value, int priority) {
+        if (node == null) {
+            return new Node<>(key, value, priority, null, null);
+        }
+        if (key < node.key) {
+            Node<V> left = put(node.left, key, value, priority);
+            if (left.priority > node.priority) {
+                // Rotates the new child up, the node becoming its right child.
+                return new Node<>(left.key, left.value, left.priority, left.left,
+                        new Node<>(node.key, node.value, node.priority, left.right, node.right));
+            }
+            return new Node<>(node.key, node.value, node.priority, left, node.right);
+        }
+        if (key > node.key) {
+            Node<V> right = put(node.right, key, value, priority);
+            if (right.priority > node.priority) {
+                return new Node<>(right.key, right.value, right.priority,
+                        new Node<>(node.key, node.value, node.priority, node.left, right.left), right.right);
+            }
+            return new Node<>(node.key, node.value, node.priority, node.left, right);
+        }
+        return new Node<>(key, value, node.priority, node.left, node.right);
+    }
+
+    private static <V> Node<V> remove(Node<V> node, long key) {
+        if (node == null) {
+            return null;
+        }
+        if (key < node.key) {
+            Node<V> left = remove(node.left, key);
+            return left == node.left ? node : new Node<>(node.key, node.value, node.priority, left, node.right);
+        }
+        if (key > node.key) {
+            Node<V> right = remove(node.right, key);
+            return right == node.right ? node : new Node<>(node.key, node.value, node.priority, node.left, right);
+        }
+        return merge(node.left, node.right);
+    }
+
+    /**
+     * Merges two subtrees, every key of the first one being smaller than the keys of the
+     * second one.
+     */
+    private static <V> Node<V> merge(Node<V> first, Node<V> second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return new Node<>(first.key, first.value, first.priority, first.left, merge(first.right, second));
+        }
+        return new Node<>(second.key, second.value, second.priority, merge(first, second.left), second.right);
+    }
+
+    private static <V> int size(Node<V> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Computes the priority of a key, mixing its bits so that keys in sequence get priorities
+     * that look random.
+     *
+     * @param key The key.
+     * @return Its priority.
+     */
+    static int priority(long key) {
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (key ^ (key >>> 33));
+    }
+}
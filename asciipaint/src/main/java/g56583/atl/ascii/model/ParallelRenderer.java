@@ -0,0 +1,127 @@
+package g56583.atl.ascii.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders large drawings by splitting them into bands of rows rendered concurrently on a
+ * fork/join pool, each band being written into its own slice of a shared buffer.
+ * Drawings with fewer cells than the threshold are rendered on the calling thread.
+ * The drawing must not change while it is being rendered.
+ */
+public class ParallelRenderer {
+    /**
+     * The default number of cells from which a drawing is rendered in parallel.
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 20;
+
+    /**
+     * The number of cells under which a band is not split anymore.
+     */
+    private static final int BAND_CELLS = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Constructs a renderer using the common pool and the default threshold.
+     */
+    public ParallelRenderer() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a renderer using the given pool and threshold.
+     *
+     * @param pool      The pool running the bands.
+     * @param threshold The number of cells from which a drawing is rendered in parallel.
+     * @throws IllegalArgumentException If the pool is null or the threshold is negative.
+     */
+    public ParallelRenderer(ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Given pool is null");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold should not be negative: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets the number of cells from which a drawing is rendered in parallel.
+     *
+     * @return The threshold of this renderer.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Renders the whole drawing, each row being followed by a line break.
+     *
+     * @param drawing The drawing to render.
+     * @return The ASCII art representation of the drawing.
+     */
+    public String render(Drawing drawing) {
+        if (drawing == null) {
+            throw new IllegalArgumentException("Given drawing is null");
+        }
+        char[] buffer = new char[drawing.getHeight() * (drawing.getWidth() + 1)];
+        render(drawing, buffer);
+        return new String(buffer);
+    }
+
+    /**
+     * Renders the whole drawing into the given buffer, each row being followed by a line break.
+     *
+     * @param drawing The drawing to render.
+     * @param buffer  The buffer receiving the rendering, holding at least height * (width + 1) characters.
+     */
+    public void render(Drawing drawing, char[] buffer) {
+        if (drawing == null) {
+            throw new IllegalArgumentException("Given drawing is null");
+        }
+        if ((long) drawing.getWidth() * drawing.getHeight() < threshold) {
+            new Rasterizer(drawing).render(buffer);
+            return;
+        }
+        int rows = Math.max(ShapeIndex.CELL_SIZE, BAND_CELLS / drawing.getWidth());
+        pool.invoke(new Band(drawing, buffer, 0, drawing.getHeight(), rows));
+    }
+
+    /**
+     * Renders a range of rows, split in two halves while it is higher than a band.
+     */
+    private static class Band extends RecursiveAction {
+        private final Drawing drawing;
+        private final char[] buffer;
+        private final int fromY;
+        private final int toY;
+        private final int rows;
+
+        Band(Drawing drawing, char[] buffer, int fromY, int toY, int rows) {
+            this.drawing = drawing;
+            this.buffer = buffer;
+            this.fromY = fromY;
+            this.toY = toY;
+            this.rows = rows;
+        }
+
+        @Override
+        protected void compute() {
+            if (toY - fromY <= rows) {
+                new Rasterizer(drawing).renderRows(fromY, toY, buffer);
+                return;
+            }
+            // Splitting on a band of the index lets each rasterizer query its bands only once.
+            int middle = fromY + (toY - fromY) / 2;
+            middle -= Math.floorMod(middle, ShapeIndex.CELL_SIZE);
+            if (middle <= fromY) {
+                middle = fromY + ShapeIndex.CELL_SIZE;
+            }
+            invokeAll(new Band(drawing, buffer, fromY, middle, rows),
+                    new Band(drawing, buffer, middle, toY, rows));
+        }
+    }
+}
@@ -0,0 +1,651 @@
+package g56583.atl.ascii.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Converts a drawing into its ASCII art representation, one row at a time.
+ * Every shape reports the spans of cells it covers on the row and the spans are painted
+ * from the frontmost shape to the backmost one, so that a cell already painted is never
+ * visited again. Groups are in front of the single shapes, themselves in front of the shapes
+ * of the table of the drawing, and among each of them the last added is in front.
+ * The rows are processed by bands as high as a cell of the spatial index of the drawing,
+ * and only the shapes whose bounds overlap the band are considered.
+ * A rasterizer keeps scratch buffers between rows and must not be shared between threads,
+ * nor used anymore once the drawing has changed.
+ */
+public class Rasterizer {
+    /**
+     * The largest number of rows and of columns of a block read to draw it zoomed out: larger
+     * blocks are sampled on evenly spaced rows and columns, so the work follows the size of
+     * the window and not the number of cells it covers.
+     */
+    static final int SAMPLES = 8;
+
+    private final Drawing drawing;
+    private final List<ShapeIndex.Entry> groups = new ArrayList<>();
+    private final List<ShapeIndex.Entry> shapes = new ArrayList<>();
+    private final int width;
+    private final int height;
+    private final int[] next;
+    private final RowKernel kernel;
+    private final SpanSink painter = this::fill;
+    private final SpanSink sampler = this::fillSamples;
+    private final SpanSink runPainter = this::paintRun;
+
+    private int band = Integer.MIN_VALUE;
+    private int left;
+    private int right;
+    private char[] row;
+    private int offset;
+    private int remaining;
+    private char color;
+    private int[] columns;
+    private int columnCount;
+    private int[] runStarts = new int[16];
+    private int[] runEnds = new int[16];
+    private char[] runColors = new char[16];
+    private Shape[] runOwners = new Shape[16];
+    private Shape owner;
+    private int runCount;
+    private int[] colorCounts;
+
+    /**
+     * Constructs a rasterizer for the current content of the given drawing, running the loops
+     * over the rows with the default backend.
+     *
+     * @param drawing The drawing to rasterize.
+     */
+    public Rasterizer(Drawing drawing) {
+        this(drawing, RowBackend.getDefault());
+    }
+
+    /**
+     * Constructs a rasterizer for the current content of the given drawing, running the loops
+     * over the rows with the given backend, or the scalar one if it is not available.
+     *
+     * @param drawing The drawing to rasterize.
+     * @param backend The backend of the loops over the rows.
+     */
+    public Rasterizer(Drawing drawing, RowBackend backend) {
+        if (drawing == null || backend == null) {
+            throw new IllegalArgumentException("Given drawing or backend is null");
+        }
+        this.drawing = drawing;
+        this.width = drawing.getWidth();
+        this.height = drawing.getHeight();
+        this.next = new int[width + 1];
+        this.kernel = backend.kernel();
+    }
+
+    /**
+     * Renders the whole drawing, each row being followed by a line break.
+     *
+     * @return The ASCII art representation of the drawing.
+     */
+    public String render() {
+        char[] buffer = new char[height * (width + 1)];
+        render(buffer);
+        return new String(buffer);
+    }
+
+    /**
+     * Renders the whole drawing as runs of cells of the same color. The runs are built from
+     * the spans of the shapes, never from the cells, so the work follows the number of spans
+     * and not the size of the drawing.
+     *
+     * @return The run-length rendering of the drawing.
+     */
+    public RunLengthRaster renderRuns() {
+        RunLengthRaster.Builder builder = new RunLengthRaster.Builder(width, height);
+        for (int y = 0; y < height; y++) {
+            paintRuns(y);
+
+            int x = 0;
+            for (int i = 0; i < runCount; i++) {
+                if (runStarts[i] > x) {
+                    builder.add(' ', runStarts[i]);
+                }
+                builder.add(runColors[i], runEnds[i] + 1);
+                x = runEnds[i] + 1;
+            }
+            if (x < width) {
+                builder.add(' ', width);
+            }
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reports the visible runs of the drawing, row by row, with the shape or group showing on
+     * each of them, or null for a shape of the table. The runs are built as for renderRuns,
+     * and no frame is kept.
+     *
+     * @param sink The sink receiving the runs.
+     */
+    void visibleRuns(RunSink sink) {
+        for (int y = 0; y < height; y++) {
+            paintRuns(y);
+            for (int i = 0; i < runCount; i++) {
+                sink.run(y, runStarts[i], runEnds[i], runColors[i], runOwners[i]);
+            }
+        }
+    }
+
+    /**
+     * Receives the visible runs of a drawing.
+     */
+    @FunctionalInterface
+    interface RunSink {
+        /**
+         * Called for each run of cells painted by the same shape.
+         *
+         * @param y     The row of the run.
+         * @param from  The first column of the run (inclusive).
+         * @param to    The last column of the run (inclusive).
+         * @param color The color of the run.
+         * @param owner The shape or group painting the run, or null for a shape of the table.
+         */
+        void run(int y, int from, int to, char color, Shape owner);
+    }
+
+    /**
+     * Computes the runs of a whole row, sorted by column, from the spans of the shapes.
+     *
+     * @param y The row to paint.
+     */
+    private void paintRuns(int y) {
+        int band = Math.floorDiv(y, ShapeIndex.CELL_SIZE);
+        if (band != this.band || left != 0 || right != width - 1) {
+            loadBand(band, 0, width - 1);
+        }
+        runCount = 0;
+        remaining = width;
+        paint(groups, y, runPainter);
+
+        // A group drawn with a blank lets the shapes behind show through.
+        int kept = 0;
+        remaining = width;
+        for (int i = 0; i < runCount; i++) {
+            if (runColors[i] != ' ') {
+                runStarts[kept] = runStarts[i];
+                runEnds[kept] = runEnds[i];
+                runColors[kept] = runColors[i];
+                runOwners[kept++] = runOwners[i];
+                remaining -= runEnds[i] - runStarts[i] + 1;
+            }
+        }
+        runCount = kept;
+        paint(shapes, y, runPainter);
+        paintTable(y, runPainter);
+    }
+
+    /**
+     * Renders a window on the drawing, each row being followed by a line break. The cells of
+     * the window out of the drawing are blank. Only the shapes whose bounds overlap the window
+     * are considered, so the cost follows the size of the window and not of the drawing.
+     *
+     * @param viewport The window to render.
+     * @return The ASCII art representation of the window.
+     */
+    public String render(Viewport viewport) {
+        if (viewport == null) {
+            throw new IllegalArgumentException("Given viewport is null");
+        }
+        int stride = viewport.getWidth() + 1;
+        char[] buffer = new char[viewport.getHeight() * stride];
+        Arrays.fill(buffer, ' ');
+        for (int i = viewport.getWidth(); i < buffer.length; i += stride) {
+            buffer[i] = '\n';
+        }
+        if (viewport.getScale() > 1) {
+            renderZoomedOut(viewport, buffer, stride);
+            return new String(buffer);
+        }
+        int minX = Math.max(viewport.getX(), 0);
+        int minY = Math.max(viewport.getY(), 0);
+        int maxX = (int) Math.min((long) viewport.getX() + viewport.getWidth() - 1, width - 1);
+        int maxY = (int) Math.min((long) viewport.getY() + viewport.getHeight() - 1, height - 1);
+        if (minX <= maxX && minY <= maxY) {
+            renderRegion(minX, minY, maxX, maxY, buffer,
+                    (minY - viewport.getY()) * stride + minX - viewport.getX(), stride);
+        }
+        return new String(buffer);
+    }
+
+    /**
+     * Renders a zoomed out window into a blank buffer. Each character gets the color found on
+     * most of the painted cells read in its block, the first one found on a tie, and stays
+     * blank if none is painted. Blocks of at most SAMPLES cells a side are read whole, larger
+     * ones on SAMPLES evenly spaced rows and columns. The counts of the colors are kept by the
+     * rasterizer for its next windows, every count being back to zero after a block.
+     */
+    private void renderZoomedOut(Viewport viewport, char[] buffer, int stride) {
+        long scale = viewport.getScale();
+        int samples = (int) Math.min(scale, SAMPLES);
+        // The columns read, and for each block the position of its first one among them.
+        int[] read = new int[viewport.getWidth() * samples];
+        int[] firstRead = new int[viewport.getWidth() + 1];
+        int count = 0;
+        for (int column = 0; column < viewport.getWidth(); column++) {
+            firstRead[column] = count;
+            long left = viewport.getX() + column * scale;
+            for (int i = 0; i < samples; i++) {
+                // The middle of each of the equal slices of the block.
+                long x = left + (2 * i + 1) * scale / (2L * samples);
+                if (x >= 0 && x < width) {
+                    read[count++] = (int) x;
+                }
+            }
+        }
+        firstRead[viewport.getWidth()] = count;
+        if (count == 0) {
+            return;
+        }
+        boolean whole = scale <= SAMPLES;
+        char[][] lines = new char[samples][whole ? read[count - 1] - read[0] + 1 : count];
+        int[] counts = colorCounts;
+        if (counts == null) {
+            counts = new int[Character.MAX_VALUE + 1];
+            colorCounts = counts;
+        }
+        for (int row = 0; row < viewport.getHeight(); row++) {
+            long top = viewport.getY() + row * scale;
+            int sampled = 0;
+            for (int i = 0; i < samples; i++) {
+                long y = top + (2 * i + 1) * scale / (2L * samples);
+                if (y >= 0 && y < height) {
+                    if (whole) {
+                        renderRow((int) y, read[0], read[count - 1], lines[sampled++], 0);
+                    } else {
+                        renderColumns((int) y, read, count, lines[sampled++]);
+                    }
+                }
+            }
+            for (int column = 0; sampled > 0 && column < viewport.getWidth(); column++) {
+                // Both ways, the line holds the columns read one after the other.
+                int from = firstRead[column];
+                int to = firstRead[column + 1];
+                char best = ' ';
+                int bestCount = 0;
+                for (int i = 0; i < sampled; i++) {
+                    char[] line = lines[i];
+                    for (int j = from; j < to; j++) {
+                        char c = line[j];
+                        if (c != ' ' && ++counts[c] > bestCount) {
+                            best = c;
+                            bestCount = counts[c];
+                        }
+                    }
+                }
+                if (bestCount > 0) {
+                    buffer[row * stride + column] = best;
+                    for (int i = 0; i < sampled; i++) {
+                        for (int j = from; j < to; j++) {
+                            counts[lines[i][j]] = 0;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders some cells of a row into the given buffer, one after the other.
+     *
+     * @param y       The row to render.
+     * @param columns The columns of the cells, ascending and in the drawing.
+     * @param count   The number of columns.
+     * @param dst     The buffer receiving the count characters.
+     */
+    private void renderColumns(int y, int[] columns, int count, char[] dst) {
+        this.columns = columns;
+        this.columnCount = count;
+        renderCells(y, columns[0], columns[count - 1], count, dst, 0, sampler);
+    }
+
+    /**
+     * Renders the whole drawing into the given buffer, each row being followed by a line break.
+     *
+     * @param buffer The buffer receiving the rendering, holding at least height * (width + 1) characters.
+     */
+    public void render(char[] buffer) {
+        renderRows(0, height, buffer);
+    }
+
+    /**
+     * Renders some rows of the drawing into the given buffer, each row being followed by a line
+     * break. Row y starts at y * (width + 1) in the buffer, as in a rendering of the whole drawing.
+     *
+     * @param fromY  The first row to render (inclusive).
+     * @param toY    The last row to render (exclusive).
+     * @param buffer The buffer receiving the rendering, holding at least height * (width + 1) characters.
+     */
+    public void renderRows(int fromY, int toY, char[] buffer) {
+        for (int y = fromY; y < toY; y++) {
+            int start = y * (width + 1);
+            renderRow(y, buffer, start);
+            buffer[start + width] = '\n';
+        }
+    }
+
+    /**
+     * Writes the rendering of the whole drawing to the given output, row after row, each row
+     * being followed by a line break. Only one row is kept in memory at a time.
+     *
+     * @param out The output receiving the rendering.
+     * @throws IOException If the output fails.
+     */
+    public void renderTo(Appendable out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Given output is null");
+        }
+        char[] line = new char[width + 1];
+        CharBuffer chars = CharBuffer.wrap(line);
+        line[width] = '\n';
+        for (int y = 0; y < height; y++) {
+            renderRow(y, line, 0);
+            if (out instanceof Writer writer) {
+                writer.write(line);
+            } else if (out instanceof StringBuilder builder) {
+                builder.append(line);
+            } else {
+                out.append(chars.clear());
+            }
+        }
+    }
+
+    /**
+     * Writes the rendering of the whole drawing to the given channel, encoded in UTF-8, row after
+     * row, each row being followed by a line break. Only one row is kept in memory at a time.
+     *
+     * @param channel The channel receiving the rendering.
+     * @throws IOException If the channel fails.
+     */
+    public void renderTo(WritableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Given channel is null");
+        }
+        char[] line = new char[width + 1];
+        CharBuffer chars = CharBuffer.wrap(line);
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate((int) Math.ceil(encoder.maxBytesPerChar() * (width + 1)));
+        line[width] = '\n';
+        for (int y = 0; y < height; y++) {
+            renderRow(y, line, 0);
+            chars.clear();
+            bytes.clear();
+            encoder.reset();
+            encoder.encode(chars, bytes, true);
+            encoder.flush(bytes);
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Renders one row of the drawing into the given buffer.
+     *
+     * @param y      The row to render.
+     * @param dst    The buffer receiving the width characters of the row.
+     * @param offset The position of the first character of the row in the buffer.
+     */
+    public void renderRow(int y, char[] dst, int offset) {
+        renderRow(y, 0, width - 1, dst, offset);
+    }
+
+    /**
+     * Renders a rectangular area of the drawing into the given buffer, row after row.
+     *
+     * @param minX   The first column of the area.
+     * @param minY   The first row of the area.
+     * @param maxX   The last column of the area.
+     * @param maxY   The last row of the area.
+     * @param dst    The buffer receiving the characters of the area.
+     * @param offset The position of the first character of the area in the buffer.
+     * @param stride The distance in the buffer between the starts of two consecutive rows.
+     */
+    public void renderRegion(int minX, int minY, int maxX, int maxY, char[] dst, int offset, int stride) {
+        for (int y = minY; y <= maxY; y++) {
+            renderRow(y, minX, maxX, dst, offset + (y - minY) * stride);
+        }
+    }
+
+    /**
+     * Renders some columns of one row of the drawing into the given buffer.
+     *
+     * @param y      The row to render.
+     * @param minX   The first column to render, at least 0.
+     * @param maxX   The last column to render, less than the width of the drawing.
+     * @param dst    The buffer receiving the characters of the columns.
+     * @param offset The position of the character of the first column in the buffer.
+     */
+    public void renderRow(int y, int minX, int maxX, char[] dst, int offset) {
+        if (minX < 0 || maxX >= width) {
+            throw new IndexOutOfBoundsException("Columns out of the drawing: " + minX + ".." + maxX);
+        }
+        renderCells(y, minX, maxX, maxX - minX + 1, dst, offset, painter);
+    }
+
+    /**
+     * Renders cells of a row, from the frontmost shape to the backmost one.
+     *
+     * @param y      The row to render.
+     * @param minX   The first column that may be rendered.
+     * @param maxX   The last column that may be rendered.
+     * @param count  The number of cells rendered.
+     * @param dst    The buffer receiving the cells.
+     * @param offset The position of the first cell in the buffer.
+     * @param sink   Paints the spans of the shapes on the cells.
+     */
+    private void renderCells(int y, int minX, int maxX, int count, char[] dst, int offset, SpanSink sink) {
+        int band = Math.floorDiv(y, ShapeIndex.CELL_SIZE);
+        if (band != this.band || minX != left || maxX != right) {
+            loadBand(band, minX, maxX);
+        }
+        this.row = dst;
+        this.offset = offset;
+        kernel.clear(dst, offset, next, count);
+        remaining = count;
+        paint(groups, y, sink);
+
+        // A group drawn with a blank lets the shapes behind show through.
+        remaining = kernel.reopen(dst, offset, next, count);
+        paint(shapes, y, sink);
+        paintTable(y, sink);
+
+        kernel.finish(dst, offset, count);
+    }
+
+    /**
+     * Fetches from the spatial index the shapes and groups that may cover the given columns
+     * of a band of rows.
+     *
+     * @param band The index of the band.
+     * @param minX The first column.
+     * @param maxX The last column.
+     */
+    private void loadBand(int band, int minX, int maxX) {
+        this.band = band;
+        this.left = minX;
+        this.right = maxX;
+        groups.clear();
+        shapes.clear();
+        int top = band * ShapeIndex.CELL_SIZE;
+        for (ShapeIndex.Entry entry : drawing.candidates(minX, top, maxX, top + ShapeIndex.CELL_SIZE - 1)) {
+            (entry.group ? groups : shapes).add(entry);
+        }
+    }
+
+    /**
+     * Paints the given shapes, ordered from front to back, on the current row.
+     *
+     * @param layer The shapes to paint.
+     * @param y     The row to paint.
+     * @param sink  Paints the spans on the cells.
+     */
+    private void paint(List<ShapeIndex.Entry> layer, int y, SpanSink sink) {
+        for (ShapeIndex.Entry entry : layer) {
+            if (remaining == 0) {
+                return;
+            }
+            if (entry.coversRow(y)) {
+                int from = Math.max(entry.minX, left);
+                int to = Math.min(entry.maxX, right);
+                if (from <= to) {
+                    color = entry.shape.getColor();
+                    owner = entry.shape;
+                    entry.shape.spans(y, from, to, sink);
+                }
+            }
+        }
+    }
+
+    /**
+     * Paints the shapes of the table of the drawing that may cover the current row, behind the
+     * other shapes, from the last added to the first one. The shapes are read from the columns
+     * of the table, without a shape object.
+     *
+     * @param y    The row to paint.
+     * @param sink Paints the spans on the cells.
+     */
+    private void paintTable(int y, SpanSink sink) {
+        ShapeTable table = drawing.table();
+        if (table == null || remaining == 0) {
+            return;
+        }
+        int[] members = table.band(y);
+        for (int k = members.length - 1; k >= 0 && remaining > 0; k--) {
+            int index = members[k];
+            color = table.colorAt(index);
+            owner = null;
+            table.spans(index, y, left, right, sink);
+        }
+    }
+
+    /**
+     * Paints with the current color the cells of the span that are not painted yet.
+     *
+     * @param from The first column of the span (inclusive).
+     * @param to   The last column of the span (inclusive).
+     */
+    private void fill(int from, int to) {
+        remaining -= kernel.fill(row, offset, next, from - left, to - left, color);
+    }
+
+    /**
+     * Paints with the current color the cells of the span that are not painted yet, when only
+     * some columns are rendered.
+     *
+     * @param from The first column of the span (inclusive).
+     * @param to   The last column of the span (inclusive).
+     */
+    private void fillSamples(int from, int to) {
+        int end = search(to + 1);
+        int i = find(search(from));
+        while (i < end) {
+            row[offset + i] = color;
+            next[i] = i + 1;
+            remaining--;
+            i = find(i + 1);
+        }
+    }
+
+    /**
+     * Paints with the current color the parts of the span not painted yet, when the row is
+     * kept as the sorted list of the painted runs.
+     *
+     * @param from The first column of the span (inclusive).
+     * @param to   The last column of the span (inclusive).
+     */
+    private void paintRun(int from, int to) {
+        // The first run ending at or after the start of the span.
+        int low = 0;
+        int high = runCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (runEnds[middle] < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int i = low;
+        int x = from;
+        while (x <= to) {
+            if (i < runCount && runStarts[i] <= x) {
+                x = runEnds[i] + 1;
+                i++;
+                continue;
+            }
+            int end = i < runCount ? Math.min(to, runStarts[i] - 1) : to;
+            insertRun(i, x, end);
+            remaining -= end - x + 1;
+            i++;
+            x = end + 1;
+        }
+    }
+
+    /**
+     * Inserts a painted run of the current color at the given position of the list.
+     */
+    private void insertRun(int i, int from, int to) {
+        if (runCount == runStarts.length) {
+            runStarts = Arrays.copyOf(runStarts, runCount * 2);
+            runEnds = Arrays.copyOf(runEnds, runCount * 2);
+            runColors = Arrays.copyOf(runColors, runCount * 2);
+            runOwners = Arrays.copyOf(runOwners, runCount * 2);
+        }
+        System.arraycopy(runStarts, i, runStarts, i + 1, runCount - i);
+        System.arraycopy(runEnds, i, runEnds, i + 1, runCount - i);
+        System.arraycopy(runColors, i, runColors, i + 1, runCount - i);
+        System.arraycopy(runOwners, i, runOwners, i + 1, runCount - i);
+        runStarts[i] = from;
+        runEnds[i] = to;
+        runColors[i] = color;
+        runOwners[i] = owner;
+        runCount++;
+    }
+
+    /**
+     * Finds the position of the first column rendered at or after the given one.
+     */
+    private int search(int x) {
+        int low = 0;
+        int high = columnCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (columns[middle] < x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first cell not painted yet starting from the given position in the columns
+     * being rendered.
+     *
+     * @param i The position to start from.
+     * @return The first unpainted position, or the number of columns if every following cell is painted.
+     */
+    private int find(int i) {
+        return RowKernel.find(next, i);
+    }
+}
@@ -33,15 +33,47 @@ public class Rectangle extends Component {
     }
 
     @Override
-    public boolean isInside(Point p) {
-        if (p == null) {
-            throw new IllegalArgumentException("Given point is null");
+    public boolean isInside(double x, double y) {
+        return isInside(upperLeft.getX(), upperLeft.getY(), width, height, x, y);
+    }
+
+    @Override
+    public void spans(int y, int minX, int maxX, SpanSink sink) {
+        spans(upperLeft.getX(), upperLeft.getY(), width, height, y, minX, maxX, sink);
+    }
+
+    /**
+     * Checks if a point is inside the rectangle of the given corner and size. Shared with the
+     * shape tables, which keep rectangles as numbers.
+     */
+    static boolean isInside(double left, double top, double width, double height, double x, double y) {
+        return (x <= left + width && x >= left) &&
+                (y <= top + height && y >= top);
+    }
+
+    /**
+     * Reports the span of the rectangle of the given corner and size on a row.
+     */
+    static void spans(double left, double top, double width, double height, int y, int minX, int maxX, SpanSink sink) {
+        if (!(y <= top + height && y >= top)) {
+            return;
+        }
+        double lo = Math.max(Math.ceil(left), minX);
+        double hi = Math.min(Math.floor(left + width), maxX);
+        if (lo <= hi) {
+            sink.span((int) lo, (int) hi);
         }
-        return (p.getX() <= upperLeft.getX() + width && p.getX() >= upperLeft.getX()) &&
-                (p.getY() <= upperLeft.getY() + height && p.getY() >= upperLeft.getY());
     }
+
+    @Override
+    public Bounds bounds() {
+        return new Bounds(upperLeft.getX(), upperLeft.getY(),
+                upperLeft.getX() + width, upperLeft.getY() + height);
+    }
+
     @Override
     public void move(double dx, double dy) {
+        checkChangeable();
         upperLeft.move(dx, dy);
     }
 
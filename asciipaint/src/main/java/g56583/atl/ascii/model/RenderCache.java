@@ -0,0 +1,162 @@
+package g56583.atl.ascii.model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the last renderings of drawings, each one for the lineage of a drawing, the version
+ * it was made for and a window on the drawing. A drawing rendered again without having
+ * changed, or a snapshot of it, is answered from the cache. The cache keeps only the
+ * renderings, never the drawings, so the snapshots of old versions can be collected.
+ * The cache holds at most a number of renderings and a number of characters in all: when
+ * it is full, the renderings used least recently are forgotten, and a rendering larger than
+ * the whole cache is not kept.
+ * The cache can be shared between threads, as long as the drawings are not changed while
+ * they are rendered, as for snapshots.
+ */
+public class RenderCache {
+    /**
+     * The default number of renderings kept.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+    /**
+     * The default number of characters kept, in all the renderings.
+     */
+    public static final long DEFAULT_MAX_CHARS = 1 << 24;
+
+    private final int capacity;
+    private final long maxChars;
+    private final Map<Key, String> renderings = new LinkedHashMap<>(16, 0.75f, true);
+    private long chars;
+
+    /**
+     * Constructs a cache keeping the default number of renderings.
+     */
+    public RenderCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a cache keeping at most the given number of renderings, and the default
+     * number of characters.
+     *
+     * @param capacity The number of renderings kept.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public RenderCache(int capacity) {
+        this(capacity, DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * Constructs a cache keeping at most the given number of renderings and of characters.
+     *
+     * @param capacity The number of renderings kept.
+     * @param maxChars The number of characters kept, in all the renderings.
+     * @throws IllegalArgumentException If the capacity or the number of characters is not positive.
+     */
+    public RenderCache(int capacity, long maxChars) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity should be more than 0.");
+        }
+        if (maxChars <= 0) {
+            throw new IllegalArgumentException("The number of characters should be more than 0.");
+        }
+        this.capacity = capacity;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Renders the whole drawing, or gets its rendering from the cache.
+     *
+     * @param drawing The drawing to render.
+     * @return The ASCII art representation of the drawing.
+     */
+    public String render(Drawing drawing) {
+        if (drawing == null) {
+            throw new IllegalArgumentException("Given drawing is null");
+        }
+        return render(drawing, Viewport.of(drawing));
+    }
+
+    /**
+     * Renders a window on the drawing, or gets its rendering from the cache.
+     *
+     * @param drawing  The drawing to render.
+     * @param viewport The window to render.
+     * @return The ASCII art representation of the window.
+     */
+    public String render(Drawing drawing, Viewport viewport) {
+        if (drawing == null || viewport == null) {
+            throw new IllegalArgumentException("Given drawing or viewport is null");
+        }
+        Key key = new Key(drawing.lineage(), drawing.getVersion(), viewport);
+        String rendering;
+        synchronized (renderings) {
+            rendering = renderings.get(key);
+        }
+        if (rendering == null) {
+            // Rendered out of the lock: two threads may render the same key, with the same result.
+            rendering = new Rasterizer(drawing).render(viewport);
+            if (rendering.length() <= maxChars) {
+                synchronized (renderings) {
+                    keep(key, rendering);
+                }
+            }
+        }
+        return rendering;
+    }
+
+    /**
+     * Keeps a rendering, then forgets the renderings used least recently until the cache is
+     * within its limits.
+     */
+    private void keep(Key key, String rendering) {
+        String replaced = renderings.put(key, rendering);
+        chars += rendering.length() - (replaced == null ? 0 : replaced.length());
+        Iterator<String> eldest = renderings.values().iterator();
+        while (renderings.size() > capacity || chars > maxChars) {
+            chars -= eldest.next().length();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Gets the number of renderings kept.
+     *
+     * @return The size of the cache.
+     */
+    public int size() {
+        synchronized (renderings) {
+            return renderings.size();
+        }
+    }
+
+    /**
+     * Gets the number of characters kept, in all the renderings.
+     *
+     * @return The number of characters of the cache.
+     */
+    public long chars() {
+        synchronized (renderings) {
+            return chars;
+        }
+    }
+
+    /**
+     * Forgets every rendering.
+     */
+    public void clear() {
+        synchronized (renderings) {
+            renderings.clear();
+            chars = 0;
+        }
+    }
+
+    /**
+     * The key of a rendering. Drawings are named by their lineage rather than kept: a
+     * snapshot and the drawing it was taken of share it only while they show the same shapes.
+     */
+    private record Key(long lineage, long version, Viewport viewport) {
+    }
+}
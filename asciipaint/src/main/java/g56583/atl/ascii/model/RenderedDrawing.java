@@ -0,0 +1,202 @@
+package g56583.atl.ascii.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A lazy view on the ASCII art representation of a drawing, laid out as asAscii lays it out:
+ * every row followed by a line break. A row is rendered the first time one of its characters
+ * is read, and kept. When the drawing changes, only the rows in the areas it reports as
+ * changed are forgotten, to be rendered again when they are read; the other rows are kept.
+ * Reading a few rows thus costs those rows, whatever the size of the drawing.
+ * The view always shows the current content of its drawing. It keeps scratch buffers and
+ * must not be shared between threads.
+ */
+public final class RenderedDrawing implements CharSequence {
+    private final Drawing drawing;
+    private final int width;
+    private final int height;
+    private final String[] rows;
+    private final char[] scratch;
+    private Rasterizer rasterizer;
+    private long version;
+    private long position;
+
+    /**
+     * Constructs a view on the given drawing. Nothing is rendered yet.
+     *
+     * @param drawing The drawing to show.
+     * @throws IllegalArgumentException If the drawing is null.
+     */
+    public RenderedDrawing(Drawing drawing) {
+        if (drawing == null) {
+            throw new IllegalArgumentException("Given drawing is null");
+        }
+        this.drawing = drawing;
+        this.width = drawing.getWidth();
+        this.height = drawing.getHeight();
+        this.rows = new String[height];
+        this.scratch = new char[width];
+        this.version = drawing.getVersion();
+        this.position = drawing.changePosition();
+    }
+
+    /**
+     * Gets the drawing shown by the view.
+     *
+     * @return The drawing.
+     */
+    public Drawing getDrawing() {
+        return drawing;
+    }
+
+    /**
+     * Gets a row of the drawing, without its line break, rendering it if needed.
+     *
+     * @param y The row.
+     * @return The width characters of the row.
+     * @throws IndexOutOfBoundsException If the row is out of the drawing.
+     */
+    public String getRow(int y) {
+        if (y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Row out of range: " + y);
+        }
+        update();
+        String row = rows[y];
+        if (row == null) {
+            if (rasterizer == null) {
+                rasterizer = new Rasterizer(drawing);
+            }
+            rasterizer.renderRow(y, scratch, 0);
+            row = new String(scratch);
+            rows[y] = row;
+        }
+        return row;
+    }
+
+    /**
+     * Gets the character of a cell of the drawing, rendering its row if needed.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The color of the cell, or a blank.
+     * @throws IndexOutOfBoundsException If the cell is out of the drawing.
+     */
+    public char charAt(int x, int y) {
+        if (x < 0 || x >= width) {
+            throw new IndexOutOfBoundsException("Column out of range: " + x);
+        }
+        return getRow(y).charAt(x);
+    }
+
+    /**
+     * Gets the number of characters of the representation, line breaks included.
+     *
+     * @return The length of the representation.
+     */
+    @Override
+    public int length() {
+        return height * (width + 1);
+    }
+
+    /**
+     * Gets a character of the representation, rendering its row if needed.
+     *
+     * @param index The position of the character.
+     * @return The character.
+     * @throws IndexOutOfBoundsException If the position is out of the representation.
+     */
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        int x = index % (width + 1);
+        return x == width ? '\n' : getRow(index / (width + 1)).charAt(x);
+    }
+
+    /**
+     * Gets a part of the representation, rendering only the rows it covers.
+     *
+     * @param start The position of the first character (inclusive).
+     * @param end   The position after the last character (exclusive).
+     * @return The characters between the two positions.
+     * @throws IndexOutOfBoundsException If the positions are out of the representation or reversed.
+     */
+    @Override
+    public String subSequence(int start, int end) {
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("Range out of bounds: " + start + ", " + end);
+        }
+        int stride = width + 1;
+        StringBuilder builder = new StringBuilder(end - start);
+        int index = start;
+        while (index < end) {
+            int y = index / stride;
+            int x = index % stride;
+            int stop = Math.min(end - y * stride, stride);
+            if (x < width) {
+                builder.append(getRow(y), x, Math.min(stop, width));
+            }
+            if (stop == stride) {
+                builder.append('\n');
+            }
+            index = y * stride + stop;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Gets the whole representation, as asAscii would, rendering the rows not rendered yet.
+     *
+     * @return The ASCII art representation of the drawing.
+     */
+    @Override
+    public String toString() {
+        return subSequence(0, length());
+    }
+
+    /**
+     * Counts the rows currently kept, rendered and not changed since.
+     *
+     * @return The number of kept rows.
+     */
+    int renderedRows() {
+        update();
+        int count = 0;
+        for (String row : rows) {
+            if (row != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Forgets the rows changed since the last read, or every row when the changes are not
+     * known anymore.
+     */
+    private void update() {
+        long current = drawing.getVersion();
+        if (current == version) {
+            return;
+        }
+        List<int[]> changes = drawing.changesSince(position);
+        if (changes == null) {
+            Arrays.fill(rows, null);
+        } else {
+            for (int[] box : changes) {
+                if (box[0] <= box[2] && box[2] >= 0 && box[0] < width) {
+                    int from = Math.max(box[1], 0);
+                    int to = Math.min(box[3], height - 1);
+                    for (int y = from; y <= to; y++) {
+                        rows[y] = null;
+                    }
+                }
+            }
+        }
+        rasterizer = null;
+        version = current;
+        position = drawing.changePosition();
+    }
+}
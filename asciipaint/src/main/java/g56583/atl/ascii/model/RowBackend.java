@@ -0,0 +1,68 @@
+package g56583.atl.ascii.model;
+
+/**
+ * The ways a rasterizer can run its loops over the cells of a row. Every backend renders the
+ * same characters.
+ * The backend of the rasterizers built without one is given by the system property
+ * asciipaint.rows: "vector" chooses the vector backend, and any other value or none the scalar one.
+ */
+public enum RowBackend {
+    /**
+     * One cell at a time, on every platform.
+     */
+    SCALAR,
+    /**
+     * Several cells at once with the vector API of the JDK. The JVM must be started with
+     * --add-modules jdk.incubator.vector; otherwise the scalar loops are used.
+     */
+    VECTOR;
+
+    private static final RowBackend DEFAULT = fromProperty(System.getProperty("asciipaint.rows"));
+
+    /**
+     * Gets the backend used by the rasterizers built without one.
+     *
+     * @return The default backend.
+     */
+    public static RowBackend getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Checks if this backend runs its own loops on this JVM, rather than the scalar ones.
+     *
+     * @return True if the backend is available.
+     */
+    public boolean isAvailable() {
+        return this == SCALAR || Vector.KERNEL != null;
+    }
+
+    /**
+     * Gets the loops of this backend, or the scalar ones if it is not available.
+     *
+     * @return The row kernel of the backend.
+     */
+    RowKernel kernel() {
+        return this == VECTOR && Vector.KERNEL != null ? Vector.KERNEL : RowKernel.SCALAR;
+    }
+
+    private static RowBackend fromProperty(String value) {
+        return value != null && value.trim().equalsIgnoreCase("vector") ? VECTOR : SCALAR;
+    }
+
+    /**
+     * Loads the vector loops the first time they are asked for, so that a JVM without the
+     * vector module only finds out when the backend is chosen.
+     */
+    private static final class Vector {
+        static final RowKernel KERNEL = load();
+
+        private static RowKernel load() {
+            try {
+                return new VectorRowKernel();
+            } catch (LinkageError e) {
+                return null;
+            }
+        }
+    }
+}
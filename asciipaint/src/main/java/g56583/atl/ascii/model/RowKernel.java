@@ -0,0 +1,112 @@
+package g56583.atl.ascii.model;
+
+import java.util.Arrays;
+
+/**
+ * The loops of the rasterizer over the cells of a row: clearing the row, letting the cells of
+ * blank groups show the shapes behind, painting a span and blanking the cells left unpainted.
+ * A cell is unpainted while it holds the null character; its skip pointer then points to
+ * itself, and a painted cell points to a following one, so that painting skips the cells
+ * already painted.
+ * The default methods go one cell at a time and always work; a backend may process several
+ * cells at once, with the same results.
+ */
+interface RowKernel {
+    /**
+     * The backend going one cell at a time.
+     */
+    RowKernel SCALAR = new RowKernel() {
+    };
+
+    /**
+     * Marks every cell of the row unpainted.
+     *
+     * @param row    The characters of the row.
+     * @param offset The position of the first cell in the row.
+     * @param next   The skip pointers, one per cell and one past the last.
+     * @param count  The number of cells.
+     */
+    default void clear(char[] row, int offset, int[] next, int count) {
+        Arrays.fill(row, offset, offset + count, '\0');
+        for (int i = 0; i <= count; i++) {
+            next[i] = i;
+        }
+    }
+
+    /**
+     * Marks unpainted again the cells painted blank, and marks painted the other ones.
+     *
+     * @param row    The characters of the row.
+     * @param offset The position of the first cell in the row.
+     * @param next   The skip pointers, one per cell and one past the last.
+     * @param count  The number of cells.
+     * @return The number of unpainted cells.
+     */
+    default int reopen(char[] row, int offset, int[] next, int count) {
+        int remaining = 0;
+        for (int i = 0; i < count; i++) {
+            if (row[offset + i] == ' ' || row[offset + i] == '\0') {
+                row[offset + i] = '\0';
+                next[i] = i;
+                remaining++;
+            } else {
+                next[i] = i + 1;
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Paints with a color the unpainted cells of a span.
+     *
+     * @param row    The characters of the row.
+     * @param offset The position of the first cell in the row.
+     * @param next   The skip pointers, one per cell and one past the last.
+     * @param from   The first cell of the span (inclusive).
+     * @param to     The last cell of the span (inclusive), before the last cell of the row.
+     * @param color  The color to paint.
+     * @return The number of painted cells.
+     */
+    default int fill(char[] row, int offset, int[] next, int from, int to, char color) {
+        int painted = 0;
+        int i = find(next, from);
+        while (i <= to) {
+            row[offset + i] = color;
+            next[i] = i + 1;
+            painted++;
+            i = find(next, i + 1);
+        }
+        return painted;
+    }
+
+    /**
+     * Blanks the cells left unpainted.
+     *
+     * @param row    The characters of the row.
+     * @param offset The position of the first cell in the row.
+     * @param count  The number of cells.
+     */
+    default void finish(char[] row, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            if (row[offset + i] == '\0') {
+                row[offset + i] = ' ';
+            }
+        }
+    }
+
+    /**
+     * Finds the first unpainted cell starting from the given one, shortening the pointers
+     * followed on the way.
+     *
+     * @param next The skip pointers.
+     * @param i    The cell to start from.
+     * @return The first unpainted cell, or the number of cells if every following cell is painted.
+     */
+    static int find(int[] next, int i) {
+        while (next[i] != i) {
+            next[i] = next[next[i]];
+            i = next[i];
+        }
+        return i;
+    }
+}
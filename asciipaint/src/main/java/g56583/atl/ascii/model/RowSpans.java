@@ -0,0 +1,88 @@
+package g56583.atl.ascii.model;
+
+import java.util.Arrays;
+
+/**
+ * The spans of a shape on a row, sorted and merged so that each covered cell is in exactly
+ * one span. The spans of the children of a group may overlap and come in any order, they are
+ * merged once read. An instance is reused from row to row.
+ */
+final class RowSpans implements SpanSink {
+    private long[] spans = new long[8];
+    private int count;
+
+    /**
+     * Reads the spans of a shape on a row, replacing the ones read before.
+     *
+     * @param shape The shape.
+     * @param y     The row.
+     * @param minX  The first column to consider (inclusive).
+     * @param maxX  The last column to consider (inclusive).
+     */
+    void load(Shape shape, int y, int minX, int maxX) {
+        count = 0;
+        shape.spans(y, minX, maxX, this);
+        if (count > 1) {
+            // The start is in the high half: sorting the packed spans sorts them by start.
+            Arrays.sort(spans, 0, count);
+            int merged = 0;
+            for (int i = 0; i < count; i++) {
+                if (merged > 0 && from(i) <= to(merged - 1) + 1L) {
+                    if (to(i) > to(merged - 1)) {
+                        spans[merged - 1] = pack(from(merged - 1), to(i));
+                    }
+                } else {
+                    spans[merged++] = spans[i];
+                }
+            }
+            count = merged;
+        }
+    }
+
+    /**
+     * Keeps a span of the row.
+     */
+    @Override
+    public void span(int from, int to) {
+        if (count == spans.length) {
+            spans = Arrays.copyOf(spans, count * 2);
+        }
+        spans[count++] = pack(from, to);
+    }
+
+    /**
+     * Gets the number of spans of the row.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Gets the first column of a span.
+     */
+    int from(int i) {
+        return (int) (spans[i] >> 32);
+    }
+
+    /**
+     * Gets the last column of a span.
+     */
+    int to(int i) {
+        return (int) spans[i];
+    }
+
+    /**
+     * Counts the cells of the spans.
+     */
+    long cells() {
+        long cells = 0;
+        for (int i = 0; i < count; i++) {
+            cells += (long) to(i) - from(i) + 1;
+        }
+        return cells;
+    }
+
+    private static long pack(int from, int to) {
+        return (long) from << 32 | (to & 0xFFFFFFFFL);
+    }
+}
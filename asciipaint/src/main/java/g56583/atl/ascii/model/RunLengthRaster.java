@@ -0,0 +1,486 @@
+package g56583.atl.ascii.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the ASCII art rendering of a drawing as runs of cells of the same color, row
+ * after row. A row is a list of runs, each one ending at a column and filling the cells
+ * from the end of the previous run. Consecutive rows with the same runs share them, so a
+ * mostly blank drawing or large rectangles take a few runs instead of a character per cell.
+ * A raster never changes once built.
+ * <p>
+ * The binary format starts with {magic, version, width, height}, followed for each group of
+ * identical consecutive rows by the number of rows, the number of runs and the runs, a run
+ * being its color and its length. Counts and lengths are unsigned variable-length integers.
+ */
+public final class RunLengthRaster {
+    private static final int MAGIC = 0x41524C45;
+    private static final int VERSION = 1;
+
+    private final int width;
+    private final int height;
+    private final int[] firstRun;
+    private final int[] runCounts;
+    private final char[] colors;
+    private final int[] ends;
+
+    private RunLengthRaster(int width, int height, int[] firstRun, int[] runCounts, char[] colors, int[] ends) {
+        this.width = width;
+        this.height = height;
+        this.firstRun = firstRun;
+        this.runCounts = runCounts;
+        this.colors = colors;
+        this.ends = ends;
+    }
+
+    /**
+     * Gets the width of the raster.
+     *
+     * @return The number of columns.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the raster.
+     *
+     * @return The number of rows.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of runs kept, the rows sharing their runs counting once.
+     *
+     * @return The number of runs.
+     */
+    public int getRunCount() {
+        return colors.length;
+    }
+
+    /**
+     * Gets the color of a cell.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The character of the cell, a blank if no shape covers it.
+     * @throws IndexOutOfBoundsException If the cell is out of the raster.
+     */
+    public char charAt(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Cell out of the raster: " + x + ", " + y);
+        }
+        int low = firstRun[y];
+        int high = low + runCounts[y] - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ends[middle] <= x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return colors[low];
+    }
+
+    /**
+     * Gets the runs of a row, from left to right.
+     *
+     * @param y The row.
+     * @return The runs of the row.
+     * @throws IndexOutOfBoundsException If the row is out of the raster.
+     */
+    public List<Run> getRuns(int y) {
+        if (y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Row out of the raster: " + y);
+        }
+        List<Run> runs = new ArrayList<>(runCounts[y]);
+        int start = 0;
+        for (int i = firstRun[y]; i < firstRun[y] + runCounts[y]; i++) {
+            runs.add(new Run(start, y, ends[i] - start, colors[i]));
+            start = ends[i];
+        }
+        return runs;
+    }
+
+    /**
+     * Expands the raster into the same text as Rasterizer.render, each row being followed by
+     * a line break.
+     *
+     * @return The ASCII art representation.
+     */
+    public String toAscii() {
+        char[] buffer = new char[height * (width + 1)];
+        for (int y = 0; y < height; y++) {
+            expandRow(y, buffer, y * (width + 1));
+            buffer[y * (width + 1) + width] = '\n';
+        }
+        return new String(buffer);
+    }
+
+    /**
+     * Writes the raster expanded to text to the given output, row after row, each row being
+     * followed by a line break. Only one row is expanded at a time.
+     *
+     * @param out The output receiving the text.
+     * @throws IOException If the output fails.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Given output is null");
+        }
+        char[] line = new char[width + 1];
+        line[width] = '\n';
+        for (int y = 0; y < height; y++) {
+            expandRow(y, line, 0);
+            if (out instanceof Writer writer) {
+                writer.write(line);
+            } else {
+                out.append(new String(line));
+            }
+        }
+    }
+
+    private void expandRow(int y, char[] dst, int offset) {
+        int start = 0;
+        for (int i = firstRun[y]; i < firstRun[y] + runCounts[y]; i++) {
+            Arrays.fill(dst, offset + start, offset + ends[i], colors[i]);
+            start = ends[i];
+        }
+    }
+
+    /**
+     * Finds the cells that differ between this raster and another one of the same size. Rows
+     * whose runs are shared are skipped, and the other rows are compared run by run, without
+     * expanding them.
+     *
+     * @param other The other raster.
+     * @return The runs of the other raster covering the cells that differ, row after row.
+     * @throws IllegalArgumentException If the other raster is null or of another size.
+     */
+    public List<Run> diff(RunLengthRaster other) {
+        if (other == null || other.width != width || other.height != height) {
+            throw new IllegalArgumentException("The rasters should have the same size");
+        }
+        List<Run> changes = new ArrayList<>();
+        boolean previousDiffers = true;
+        for (int y = 0; y < height; y++) {
+            // Rows sharing their runs with the previous row in both rasters compare the same way.
+            boolean repeated = y > 0 && firstRun[y] == firstRun[y - 1] && other.firstRun[y] == other.firstRun[y - 1];
+            if (repeated && !previousDiffers) {
+                continue;
+            }
+            int before = changes.size();
+            diffRow(other, y, changes);
+            previousDiffers = changes.size() > before;
+        }
+        return changes;
+    }
+
+    /**
+     * Walks the runs of a row of both rasters together, adding the parts of the runs of the
+     * other raster whose color differs.
+     */
+    private void diffRow(RunLengthRaster other, int y, List<Run> changes) {
+        if (other == this) {
+            return;
+        }
+        int i = firstRun[y];
+        int j = other.firstRun[y];
+        int iEnd = i + runCounts[y];
+        int jEnd = j + other.runCounts[y];
+        int x = 0;
+        int changeStart = -1;
+        char changeColor = 0;
+        while (i < iEnd && j < jEnd) {
+            int to = Math.min(ends[i], other.ends[j]);
+            char color = other.colors[j];
+            boolean differs = colors[i] != color;
+            if (changeStart >= 0 && (!differs || color != changeColor)) {
+                changes.add(new Run(changeStart, y, x - changeStart, changeColor));
+                changeStart = -1;
+            }
+            if (differs && changeStart < 0) {
+                changeStart = x;
+                changeColor = color;
+            }
+            x = to;
+            if (ends[i] == to) {
+                i++;
+            }
+            if (other.ends[j] == to) {
+                j++;
+            }
+        }
+        if (changeStart >= 0) {
+            changes.add(new Run(changeStart, y, x - changeStart, changeColor));
+        }
+    }
+
+    /**
+     * Writes the raster in the binary format to the given stream, which is left open.
+     *
+     * @param stream The stream receiving the raster.
+     * @throws IOException If the stream fails.
+     */
+    public void write(OutputStream stream) throws IOException {
+        if (stream == null) {
+            throw new IllegalArgumentException("Given stream is null");
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        int y = 0;
+        while (y < height) {
+            int repeat = 1;
+            while (y + repeat < height && firstRun[y + repeat] == firstRun[y]) {
+                repeat++;
+            }
+            writeVarInt(out, repeat);
+            writeVarInt(out, runCounts[y]);
+            int start = 0;
+            for (int i = firstRun[y]; i < firstRun[y] + runCounts[y]; i++) {
+                out.writeChar(colors[i]);
+                writeVarInt(out, ends[i] - start);
+                start = ends[i];
+            }
+            y += repeat;
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a raster in the binary format from the given stream, which is left open.
+     *
+     * @param stream The stream holding the raster.
+     * @return The raster read.
+     * @throws IOException If the stream fails or does not hold a valid raster.
+     */
+    public static RunLengthRaster read(InputStream stream) throws IOException {
+        if (stream == null) {
+            throw new IllegalArgumentException("Given stream is null");
+        }
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a run-length raster");
+        }
+        if (in.readInt() != VERSION) {
+            throw new IOException("Unsupported run-length raster version");
+        }
+        int width = in.readInt();
+        int height = in.readInt();
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Corrupted run-length raster");
+        }
+        Builder builder = new Builder(width, height);
+        int y = 0;
+        while (y < height) {
+            int repeat = readVarInt(in);
+            int count = readVarInt(in);
+            if (repeat <= 0 || repeat > height - y || count <= 0 || count > width) {
+                throw new IOException("Corrupted run-length raster");
+            }
+            long end = 0;
+            for (int i = 0; i < count; i++) {
+                char color = in.readChar();
+                end += readVarInt(in);
+                if (end > width) {
+                    throw new IOException("Corrupted run-length raster");
+                }
+                builder.add(color, (int) end);
+            }
+            if (end != width) {
+                throw new IOException("Corrupted run-length raster");
+            }
+            for (int i = 0; i < repeat; i++) {
+                builder.endRow();
+            }
+            y += repeat;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Saves the raster to a file in the binary format, replacing it if it already exists.
+     *
+     * @param path The path of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path path) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Loads a raster saved by save.
+     *
+     * @param path The path of the file.
+     * @return The raster loaded.
+     * @throws IOException If the file cannot be read or is not a raster.
+     */
+    public static RunLengthRaster load(Path path) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            return read(in);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted run-length raster");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RunLengthRaster raster = (RunLengthRaster) obj;
+        return width == raster.width && height == raster.height && diff(raster).isEmpty();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 31 * width + height;
+        for (int y = 0; y < height; y++) {
+            for (int i = firstRun[y]; i < firstRun[y] + runCounts[y]; i++) {
+                hash = 31 * (31 * hash + colors[i]) + ends[i];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * A run of cells of the same color on a row.
+     *
+     * @param x      The first column of the run.
+     * @param y      The row of the run.
+     * @param length The number of cells of the run.
+     * @param color  The color of the cells, a blank for no shape.
+     */
+    public record Run(int x, int y, int length, char color) {
+    }
+
+    /**
+     * Builds a raster row after row, from the runs of each row given from left to right.
+     */
+    static final class Builder {
+        private final int width;
+        private final int[] firstRun;
+        private final int[] runCounts;
+        private char[] colors = new char[16];
+        private int[] ends = new int[16];
+        private int count;
+        private int rowStart;
+        private int row;
+
+        /**
+         * Constructs a builder for a raster of the given size.
+         *
+         * @param width  The number of columns.
+         * @param height The number of rows.
+         */
+        Builder(int width, int height) {
+            this.width = width;
+            this.firstRun = new int[height];
+            this.runCounts = new int[height];
+        }
+
+        /**
+         * Adds a run to the current row, merged with the previous one if of the same color.
+         *
+         * @param color The color of the run.
+         * @param end   The column after the last cell of the run.
+         */
+        void add(char color, int end) {
+            if (count > rowStart && colors[count - 1] == color) {
+                ends[count - 1] = end;
+                return;
+            }
+            if (count == colors.length) {
+                colors = Arrays.copyOf(colors, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            colors[count] = color;
+            ends[count] = end;
+            count++;
+        }
+
+        /**
+         * Ends the current row, sharing the runs of the previous row if they are the same. A
+         * row given no run is the same as the previous one.
+         */
+        void endRow() {
+            int runs = count - rowStart;
+            if (row > 0 && (runs == 0 || sameAsPrevious(runs))) {
+                firstRun[row] = firstRun[row - 1];
+                runCounts[row] = runCounts[row - 1];
+                count = rowStart;
+            } else {
+                if (runs == 0 || ends[count - 1] != width) {
+                    throw new IllegalStateException("The row does not cover the raster width");
+                }
+                firstRun[row] = rowStart;
+                runCounts[row] = runs;
+                rowStart = count;
+            }
+            row++;
+        }
+
+        private boolean sameAsPrevious(int runs) {
+            int previous = firstRun[row - 1];
+            if (runCounts[row - 1] != runs) {
+                return false;
+            }
+            for (int i = 0; i < runs; i++) {
+                if (colors[previous + i] != colors[rowStart + i] || ends[previous + i] != ends[rowStart + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Builds the raster once every row is ended.
+         *
+         * @return The raster.
+         */
+        RunLengthRaster build() {
+            if (row != firstRun.length) {
+                throw new IllegalStateException("Rows missing: " + row + " of " + firstRun.length);
+            }
+            return new RunLengthRaster(width, firstRun.length, firstRun, runCounts,
+                    Arrays.copyOf(colors, count), Arrays.copyOf(ends, count));
+        }
+    }
+}
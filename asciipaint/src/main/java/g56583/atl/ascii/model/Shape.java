@@ -1,5 +1,10 @@
 package g56583.atl.ascii.model;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
 /**
  * The Shape interface represents a geometric shape and defines the expected behaviors
  * for any shape in a drawing.
@@ -21,6 +26,82 @@ public interface Shape {
      */
     boolean isInside(Point p);
 
+    /**
+     * Check if the point of the given coordinates is inside the shape, without creating a point.
+     *
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return True if the point is inside the shape, false otherwise.
+     */
+    boolean isInside(double x, double y);
+
+    /**
+     * Reports the cells of the given row covered by the shape, restricted to the columns
+     * between minX and maxX. A cell (x, y) is covered when isInside returns true for it.
+     * The default implementation probes every cell of the row, shapes are expected to
+     * override it with a direct computation of their spans.
+     *
+     * @param y    The row to rasterize.
+     * @param minX The first column to consider (inclusive).
+     * @param maxX The last column to consider (inclusive).
+     * @param sink The sink receiving the covered spans.
+     */
+    default void spans(int y, int minX, int maxX, SpanSink sink) {
+        boolean inSpan = false;
+        int start = minX;
+        for (int x = minX; x <= maxX; x++) {
+            if (isInside(x, y)) {
+                if (!inSpan) {
+                    start = x;
+                    inSpan = true;
+                }
+            } else if (inSpan) {
+                sink.span(start, x - 1);
+                inSpan = false;
+            }
+        }
+        if (inSpan) {
+            sink.span(start, maxX);
+        }
+    }
+
+    /**
+     * Gets the cells covered by the shape, row by row and from left to right in a row, each
+     * cell packed in a long as CoveredCells.pack does. The cells are built from the spans of
+     * the shape, so the stream costs the number of rows and of covered cells.
+     *
+     * @return The covered cells.
+     * @throws IllegalArgumentException If the bounds of the shape are not limited.
+     */
+    default LongStream cells() {
+        return stream(new CoveredCells(this));
+    }
+
+    /**
+     * Gets the cells covered by the shape inside a window, in the same order as cells.
+     *
+     * @param minX The first column of the window (inclusive).
+     * @param minY The first row of the window (inclusive).
+     * @param maxX The last column of the window (inclusive).
+     * @param maxY The last row of the window (inclusive).
+     * @return The covered cells of the window.
+     */
+    default LongStream cells(int minX, int minY, int maxX, int maxY) {
+        return stream(new CoveredCells(this, minX, minY, maxX, maxY));
+    }
+
+    private static LongStream stream(CoveredCells cells) {
+        return StreamSupport.longStream(Spliterators.spliteratorUnknownSize(cells,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Get the bounding box of the shape: every point inside the shape is inside the bounds.
+     *
+     * @return The bounds of the shape.
+     */
+    Bounds bounds();
+
     /**
      * Get the color representation of the shape.
      *
@@ -0,0 +1,288 @@
+package g56583.atl.ascii.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid over the bounding boxes of the shapes of a drawing.
+ * The plane is cut into square cells of CELL_SIZE units and every entry is registered in
+ * each cell its bounds overlap. Only the cells holding entries are stored, so the grid
+ * costs nothing for empty areas. Entries covering too many cells, like diagonal lines,
+ * are kept apart in a map checked by every query, where they are removed without a scan.
+ * The cells and the entries are kept in immutable maps, so that a copy of the index is made
+ * in constant time: a drawing and its snapshots share their index, and a change only builds
+ * the nodes of the maps on the paths to the cells it changes.
+ */
+class ShapeIndex {
+    /**
+     * Side of a cell of the grid, in drawing units.
+     */
+    static final int CELL_SIZE = 32;
+
+    /**
+     * Entries covering more cells than this are not spread over the grid.
+     */
+    private static final long MAX_CELLS = 64;
+
+    private LongMap<Entry[]> cells = LongMap.empty();
+    private LongMap<Entry> large = LongMap.empty();
+    private LongMap<Entry> entries = LongMap.empty();
+
+    /**
+     * A shape registered in the index, with the integer box of cells it may cover, never
+     * changed once built. The label of the shape grows with its position in its list of the
+     * drawing.
+     */
+    static final class Entry {
+        final Shape shape;
+        final boolean group;
+        final long id;
+        final long label;
+        final int minX;
+        final int minY;
+        final int maxX;
+        final int maxY;
+        final boolean empty;
+        final boolean spread;
+
+        /**
+         * Builds the entry of a shape from its current bounds. The integer box is rounded
+         * outwards so that it contains every cell the shape could cover.
+         *
+         * @param shape The shape.
+         * @param group True for a group.
+         * @param id    The id of the shape in its list.
+         * @param label The label of the shape in its list.
+         */
+        Entry(Shape shape, boolean group, long id, long label) {
+            this.shape = shape;
+            this.group = group;
+            this.id = id;
+            this.label = label;
+            Bounds bounds = shape.bounds();
+            empty = bounds.isEmpty();
+            minX = (int) Math.floor(bounds.getMinX());
+            minY = (int) Math.floor(bounds.getMinY());
+            maxX = (int) Math.ceil(bounds.getMaxX());
+            maxY = (int) Math.ceil(bounds.getMaxY());
+            long columns = (long) Math.floorDiv(maxX, CELL_SIZE) - Math.floorDiv(minX, CELL_SIZE) + 1;
+            long rows = (long) Math.floorDiv(maxY, CELL_SIZE) - Math.floorDiv(minY, CELL_SIZE) + 1;
+            spread = columns * rows <= MAX_CELLS;
+        }
+
+        /**
+         * Builds a copy of an entry with another label.
+         */
+        private Entry(Entry other, long label) {
+            this.shape = other.shape;
+            this.group = other.group;
+            this.id = other.id;
+            this.label = label;
+            this.minX = other.minX;
+            this.minY = other.minY;
+            this.maxX = other.maxX;
+            this.maxY = other.maxY;
+            this.empty = other.empty;
+            this.spread = other.spread;
+        }
+
+        /**
+         * Checks if the entry may cover cells of the given row.
+         *
+         * @param y The row.
+         * @return False if the shape cannot cover any cell of the row.
+         */
+        boolean coversRow(int y) {
+            return !empty && y >= minY && y <= maxY;
+        }
+
+        /**
+         * Checks if the entry is in front of another one: groups are in front of single
+         * shapes and the last added is in front.
+         *
+         * @param other The other entry.
+         * @return A negative number if this entry is in front of the other one.
+         */
+        int compareDepth(Entry other) {
+            if (group != other.group) {
+                return group ? -1 : 1;
+            }
+            return Long.compare(other.label, label);
+        }
+
+        /**
+         * Gets the key of the entry among all the entries of the index.
+         */
+        private long key() {
+            return key(id, group);
+        }
+
+        private static long key(long id, boolean group) {
+            return id << 1 | (group ? 1 : 0);
+        }
+    }
+
+    /**
+     * Constructs an empty index.
+     */
+    ShapeIndex() {
+    }
+
+    /**
+     * Constructs a copy of an index in constant time. The copy and the index share their
+     * maps and are then changed apart.
+     *
+     * @param other The index to copy.
+     */
+    ShapeIndex(ShapeIndex other) {
+        this.cells = other.cells;
+        this.large = other.large;
+        this.entries = other.entries;
+    }
+
+    /**
+     * Gets the entry of a shape or a group.
+     *
+     * @param id    The id of the shape in its list.
+     * @param group True for a group.
+     * @return Its entry, or null if it is not registered.
+     */
+    Entry get(long id, boolean group) {
+        return entries.get(Entry.key(id, group));
+    }
+
+    /**
+     * Registers an entry.
+     *
+     * @param entry The entry to register.
+     */
+    void insert(Entry entry) {
+        entries = entries.put(entry.key(), entry);
+        if (entry.empty) {
+            return;
+        }
+        if (!entry.spread) {
+            large = large.put(entry.key(), entry);
+            return;
+        }
+        for (int cy = Math.floorDiv(entry.minY, CELL_SIZE); cy <= Math.floorDiv(entry.maxY, CELL_SIZE); cy++) {
+            for (int cx = Math.floorDiv(entry.minX, CELL_SIZE); cx <= Math.floorDiv(entry.maxX, CELL_SIZE); cx++) {
+                long key = key(cx, cy);
+                Entry[] cell = cells.get(key);
+                if (cell == null) {
+                    cell = new Entry[]{entry};
+                } else {
+                    cell = Arrays.copyOf(cell, cell.length + 1);
+                    cell[cell.length - 1] = entry;
+                }
+                cells = cells.put(key, cell);
+            }
+        }
+    }
+
+    /**
+     * Unregisters an entry, using the bounds it was registered with.
+     *
+     * @param entry The entry to unregister.
+     */
+    void remove(Entry entry) {
+        entries = entries.remove(entry.key());
+        if (entry.empty) {
+            return;
+        }
+        if (!entry.spread) {
+            large = large.remove(entry.key());
+            return;
+        }
+        for (int cy = Math.floorDiv(entry.minY, CELL_SIZE); cy <= Math.floorDiv(entry.maxY, CELL_SIZE); cy++) {
+            for (int cx = Math.floorDiv(entry.minX, CELL_SIZE); cx <= Math.floorDiv(entry.maxX, CELL_SIZE); cx++) {
+                long key = key(cx, cy);
+                Entry[] cell = cells.get(key);
+                if (cell != null) {
+                    cells = cell.length == 1 && cell[0] == entry ? cells.remove(key) : cells.put(key, without(cell, entry));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives a shape or a group another label, after the labels of its list were spread again.
+     *
+     * @param id    The id of the shape in its list.
+     * @param group True for a group.
+     * @param label Its new label.
+     */
+    void relabel(long id, boolean group, long label) {
+        Entry old = get(id, group);
+        remove(old);
+        insert(new Entry(old, label));
+    }
+
+    /**
+     * Collects the entries that may cover a cell of the given area, sorted from front to back.
+     *
+     * @param minX The first column of the area.
+     * @param minY The first row of the area.
+     * @param maxX The last column of the area.
+     * @param maxY The last row of the area.
+     * @return The candidate entries, each one appearing once.
+     */
+    List<Entry> query(int minX, int minY, int maxX, int maxY) {
+        List<Entry> result = new ArrayList<>();
+        for (int cy = Math.floorDiv(minY, CELL_SIZE); cy <= Math.floorDiv(maxY, CELL_SIZE); cy++) {
+            for (int cx = Math.floorDiv(minX, CELL_SIZE); cx <= Math.floorDiv(maxX, CELL_SIZE); cx++) {
+                Entry[] cell = cells.get(key(cx, cy));
+                if (cell != null) {
+                    for (Entry entry : cell) {
+                        if (overlaps(entry, minX, minY, maxX, maxY)) {
+                            result.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+        large.forEach(entry -> {
+            if (overlaps(entry, minX, minY, maxX, maxY)) {
+                result.add(entry);
+            }
+        });
+        result.sort(Entry::compareDepth);
+        // An entry spread over several cells is found once per cell, the copies are now adjacent.
+        int size = 0;
+        for (Entry entry : result) {
+            if (size == 0 || result.get(size - 1) != entry) {
+                result.set(size++, entry);
+            }
+        }
+        return result.subList(0, size);
+    }
+
+    /**
+     * Checks if the integer box of an entry overlaps the given area.
+     */
+    private static boolean overlaps(Entry entry, int minX, int minY, int maxX, int maxY) {
+        return entry.minX <= maxX && minX <= entry.maxX && entry.minY <= maxY && minY <= entry.maxY;
+    }
+
+    /**
+     * Copies the entries of a cell but one.
+     */
+    private static Entry[] without(Entry[] cell, Entry entry) {
+        Entry[] rest = new Entry[cell.length - 1];
+        int size = 0;
+        for (Entry other : cell) {
+            if (other != entry) {
+                rest[size++] = other;
+            }
+        }
+        return rest;
+    }
+
+    /**
+     * Computes the key of the cell at the given grid coordinates.
+     */
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,641 @@
+package g56583.atl.ascii.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A list of shapes in depth order, where each element keeps an id for as long as it stays in
+ * the list, even when it is replaced by a moved or recolored copy.
+ * The order is kept by an order-statistics tree: a treap whose nodes know the size of their
+ * subtree, so that an element is reached, inserted or removed by position in logarithmic time.
+ * The nodes are never changed: a change builds new nodes on the path to the changed position
+ * and shares the rest of the tree, so that a copy of a store is made in constant time and the
+ * first change of a copy costs no more than the next ones.
+ * Each element also has a label, a number growing with its position, and the tree is ordered
+ * by label as well, so that the position of a label is found by descending the tree. The
+ * labels are kept apart so that an element inserted between two others gets a label between
+ * theirs; when there is no room left, the labels of a small range around it are spread again.
+ * The labels are found from the ids, and the ids from the elements by identity, in immutable
+ * maps shared by the copies, so that removing a given shape does not scan the list.
+ * A copy of a store keeps the ids and the labels of its elements.
+ *
+ * @param <E> The type of the elements.
+ */
+final class ShapeStore<E> extends AbstractList<E> {
+    /**
+     * The labels are taken in [0, LABELS).
+     */
+    static final long LABELS = 1L << 62;
+
+    /**
+     * Room left between the label of an added element and the label of the last one.
+     */
+    private static final long GAP = 1L << 32;
+
+    /**
+     * A range of 2^j labels may be spread again if it holds at most (2 / 1.5)^j elements.
+     */
+    private static final double DENSITY = 2 / 1.5;
+
+    private Node<E> root;
+    private LongMap<Long> labels = LongMap.empty();
+    private LongMap<Same<E>> byValue = LongMap.empty();
+    private long nextId;
+
+    /**
+     * Gets told the new labels of the elements whose labels are spread again.
+     */
+    interface Relabeling {
+        /**
+         * Tells that an element has a new label.
+         *
+         * @param id    The id of the element.
+         * @param label Its new label.
+         */
+        void relabeled(long id, long label);
+    }
+
+    /**
+     * A node of the tree, never changed once built.
+     */
+    private static final class Node<E> {
+        final E value;
+        final long id;
+        final long label;
+        final int priority;
+        final int size;
+        final Node<E> left;
+        final Node<E> right;
+
+        Node(E value, long id, long label, Node<E> left, Node<E> right) {
+            this.value = value;
+            this.id = id;
+            this.label = label;
+            this.priority = LongMap.priority(id);
+            this.size = 1 + size(left) + size(right);
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Builds a copy of the node with other children.
+         */
+        Node<E> with(Node<E> left, Node<E> right) {
+            return new Node<>(value, id, label, left, right);
+        }
+    }
+
+    /**
+     * The ids of the elements of a same identity hash, in an immutable list.
+     */
+    private record Same<E>(E value, long id, Same<E> next) {
+    }
+
+    /**
+     * Constructs an empty store.
+     */
+    ShapeStore() {
+    }
+
+    /**
+     * Constructs a copy of a store, with the same elements, in the same order and with the same
+     * ids, in constant time. The copy and the store share their nodes and are then changed
+     * apart.
+     *
+     * @param other The store to copy.
+     */
+    ShapeStore(ShapeStore<E> other) {
+        this.root = other.root;
+        this.labels = other.labels;
+        this.byValue = other.byValue;
+        this.nextId = other.nextId;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public E get(int index) {
+        return node(index).value;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        Node<E> node = node(index);
+        root = replace(root, index, element);
+        byValue = unlink(byValue, node.value, node.id);
+        byValue = link(byValue, element, node.id);
+        return node.value;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        add(index, element, null);
+    }
+
+    /**
+     * Inserts an element at the given position, telling the new labels of the other elements
+     * if they have to be spread again.
+     *
+     * @param index      The position of the element.
+     * @param element    The element to insert.
+     * @param relabeling Told the new labels of the other elements, or null.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    void add(int index, E element, Relabeling relabeling) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        long id = nextId++;
+        long before = index == 0 ? -1 : node(index - 1).label;
+        long after = index == size() ? LABELS : node(index).label;
+        long label = between(before, after);
+        if (label < 0) {
+            spread(index, element, id, before >= 0 ? before : after, relabeling);
+        } else {
+            root = insert(root, index, new Node<>(element, id, label, null, null));
+            labels = labels.put(id, label);
+        }
+        byValue = link(byValue, element, id);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        Node<E> node = node(index);
+        root = remove(root, index);
+        labels = labels.remove(node.id);
+        byValue = unlink(byValue, node.value, node.id);
+        modCount++;
+        return node.value;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        labels = LongMap.empty();
+        byValue = LongMap.empty();
+        modCount++;
+    }
+
+    /**
+     * Finds the first position of the given element, compared by identity.
+     *
+     * @param o The element to find.
+     * @return Its smallest position, or -1 if it is not in the store.
+     */
+    @Override
+    public int indexOf(Object o) {
+        int position = -1;
+        for (Same<E> same = byValue.get(System.identityHashCode(o)); same != null; same = same.next()) {
+            if (same.value() == o) {
+                int rank = rank(labels.get(same.id()));
+                if (position < 0 || rank < position) {
+                    position = rank;
+                }
+            }
+        }
+        return position;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        for (Same<E> same = byValue.get(System.identityHashCode(o)); same != null; same = same.next()) {
+            if (same.value() == o) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the id of the element at the given position.
+     *
+     * @param index The position of the element.
+     * @return Its id.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    long idAt(int index) {
+        return node(index).id;
+    }
+
+    /**
+     * Gets the label of the element at the given position. The labels grow with the positions,
+     * and the label of an element only changes when an insertion spreads the labels again.
+     *
+     * @param index The position of the element.
+     * @return Its label.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    long labelAt(int index) {
+        return node(index).label;
+    }
+
+    /**
+     * Finds the position of the element of the given id.
+     *
+     * @param id The id of the element.
+     * @return Its position, or -1 if no element has this id.
+     */
+    int indexOfId(long id) {
+        Long label = labels.get(id);
+        return label == null ? -1 : rank(label);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        return new Cursor(index);
+    }
+
+    /**
+     * Walks the tree in order with a stack of the nodes still to visit, instead of descending
+     * for each position. The stack is built again when an element is replaced.
+     */
+    private final class Cursor implements ListIterator<E> {
+        private final int expectedModCount = modCount;
+        private Node<E> tree = root;
+        @SuppressWarnings("unchecked")
+        private Node<E>[] stack = (Node<E>[]) new Node[32];
+        private int depth = -1;
+        private int index;
+
+        Cursor(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size();
+        }
+
+        @Override
+        public E next() {
+            checkUnchanged();
+            if (index >= size(tree)) {
+                throw new NoSuchElementException();
+            }
+            if (depth < 0) {
+                descend();
+            }
+            Node<E> node = stack[--depth];
+            for (Node<E> child = node.right; child != null; child = child.left) {
+                push(child);
+            }
+            index++;
+            return node.value;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return index > 0;
+        }
+
+        @Override
+        public E previous() {
+            checkUnchanged();
+            if (index == 0) {
+                throw new NoSuchElementException();
+            }
+            index--;
+            depth = -1;
+            return node(tree, index).value;
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stacks the nodes from the root to the node at the current position, keeping those
+         * whose left subtree holds it.
+         */
+        private void descend() {
+            depth = 0;
+            Node<E> node = tree;
+            int position = index;
+            while (node != null) {
+                int leftSize = size(node.left);
+                if (position <= leftSize) {
+                    push(node);
+                    if (position == leftSize) {
+                        return;
+                    }
+                    node = node.left;
+                } else {
+                    position -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        private void push(Node<E> node) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth++] = node;
+        }
+
+        private void checkUnchanged() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (tree != root) {
+                tree = root;
+                depth = -1;
+            }
+        }
+    }
+
+    /**
+     * Chooses a label between two others, close to the last one when adding at the end so
+     * that the next elements added at the end find room too.
+     *
+     * @param before The label before, or -1 at the start.
+     * @param after  The label after, or LABELS at the end.
+     * @return The label, or -1 if there is no room between them.
+     */
+    private static long between(long before, long after) {
+        if (before < 0 && after == LABELS) {
+            return LABELS / 2;
+        }
+        if (after == LABELS) {
+            return LABELS - before < 2 ? -1 : before + Math.min(GAP, (LABELS - before) / 2);
+        }
+        if (before < 0) {
+            return after < 1 ? -1 : after - Math.min(GAP, (after + 1) / 2);
+        }
+        return after - before < 2 ? -1 : before + (after - before) / 2;
+    }
+
+    /**
+     * Inserts an element where there is no room for its label, spreading evenly the labels of
+     * the smallest aligned range around the given label that is not too full once the element
+     * is added. The range at most doubles a number of times logarithmic in the size of the
+     * store, and is built again with its new labels.
+     */
+    private void spread(int index, E element, long id, long near, Relabeling relabeling) {
+        long start = 0;
+        long end = LABELS;
+        int from = 0;
+        int count = size();
+        for (int bits = 1; bits < 62; bits++) {
+            long rangeStart = near & -(1L << bits);
+            long rangeEnd = rangeStart + (1L << bits);
+            int rangeFrom = rankBelow(rangeStart);
+            int rangeCount = rankBelow(rangeEnd) - rangeFrom;
+            if (rangeCount + 1 <= Math.pow(DENSITY, bits)) {
+                start = rangeStart;
+                end = rangeEnd;
+                from = rangeFrom;
+                count = rangeCount;
+                break;
+            }
+        }
+        Node<E>[] head = split(root, from);
+        Node<E>[] tail = split(head[1], count);
+        Node<E>[] nodes = inOrder(tail[0], count);
+        long step = (end - start) / (count + 2);
+        Node<E> range = null;
+        for (int i = 0, old = 0; i <= count; i++) {
+            long label = start + (i + 1) * step;
+            Node<E> node;
+            if (i == index - from) {
+                node = new Node<>(element, id, label, null, null);
+            } else {
+                Node<E> source = nodes[old++];
+                node = new Node<>(source.value, source.id, label, null, null);
+                if (relabeling != null) {
+                    relabeling.relabeled(source.id, label);
+                }
+            }
+            labels = labels.put(node.id, label);
+            range = merge(range, node);
+        }
+        root = merge(merge(head[0], range), tail[1]);
+    }
+
+    /**
+     * Lists the nodes of a subtree in order.
+     */
+    private static <E> Node<E>[] inOrder(Node<E> tree, int count) {
+        @SuppressWarnings("unchecked")
+        Node<E>[] nodes = (Node<E>[]) new Node[count];
+        collect(tree, nodes, 0);
+        return nodes;
+    }
+
+    private static <E> int collect(Node<E> node, Node<E>[] nodes, int at) {
+        while (node != null) {
+            at = collect(node.left, nodes, at);
+            nodes[at++] = node;
+            node = node.right;
+        }
+        return at;
+    }
+
+    /**
+     * Finds the node at the given position.
+     */
+    private Node<E> node(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+        return node(root, index);
+    }
+
+    private static <E> Node<E> node(Node<E> node, int index) {
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Computes the position of the element of a label in the store.
+     */
+    private int rank(long label) {
+        int rank = 0;
+        Node<E> node = root;
+        while (node.label != label) {
+            if (label < node.label) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank + size(node.left);
+    }
+
+    /**
+     * Counts the elements whose label is smaller than the given one.
+     */
+    private int rankBelow(long label) {
+        int rank = 0;
+        for (Node<E> node = root; node != null; ) {
+            if (label <= node.label) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Inserts a node at the given position of a subtree.
+     *
+     * @return The new root of the subtree.
+     */
+    private static <E> Node<E> insert(Node<E> tree, int index, Node<E> node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            Node<E>[] parts = split(tree, index);
+            return node.with(parts[0], parts[1]);
+        }
+        int leftSize = size(tree.left);
+        if (index <= leftSize) {
+            return tree.with(insert(tree.left, index, node), tree.right);
+        }
+        return tree.with(tree.left, insert(tree.right, index - leftSize - 1, node));
+    }
+
+    /**
+     * Removes the node at the given position of a subtree.
+     *
+     * @return The new root of the subtree.
+     */
+    private static <E> Node<E> remove(Node<E> tree, int index) {
+        int leftSize = size(tree.left);
+        if (index < leftSize) {
+            return tree.with(remove(tree.left, index), tree.right);
+        }
+        if (index > leftSize) {
+            return tree.with(tree.left, remove(tree.right, index - leftSize - 1));
+        }
+        return merge(tree.left, tree.right);
+    }
+
+    /**
+     * Replaces the element at the given position of a subtree, keeping its id and label.
+     *
+     * @return The new root of the subtree.
+     */
+    private static <E> Node<E> replace(Node<E> tree, int index, E element) {
+        int leftSize = size(tree.left);
+        if (index < leftSize) {
+            return tree.with(replace(tree.left, index, element), tree.right);
+        }
+        if (index > leftSize) {
+            return tree.with(tree.left, replace(tree.right, index - leftSize - 1, element));
+        }
+        return new Node<>(element, tree.id, tree.label, tree.left, tree.right);
+    }
+
+    /**
+     * Splits a subtree in its first elements and the other ones.
+     *
+     * @return The two subtrees.
+     */
+    private static <E> Node<E>[] split(Node<E> tree, int index) {
+        if (tree == null) {
+            @SuppressWarnings("unchecked")
+            Node<E>[] parts = (Node<E>[]) new Node[2];
+            return parts;
+        }
+        int leftSize = size(tree.left);
+        if (index <= leftSize) {
+            Node<E>[] parts = split(tree.left, index);
+            parts[1] = tree.with(parts[1], tree.right);
+            return parts;
+        }
+        Node<E>[] parts = split(tree.right, index - leftSize - 1);
+        parts[0] = tree.with(tree.left, parts[0]);
+        return parts;
+    }
+
+    /**
+     * Merges two subtrees, every element of the first one coming before the second one.
+     *
+     * @return The root of the merged subtree.
+     */
+    private static <E> Node<E> merge(Node<E> first, Node<E> second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return first.with(first.left, merge(first.right, second));
+        }
+        return second.with(merge(first, second.left), second.right);
+    }
+
+    /**
+     * Records the id of an element under its identity hash.
+     */
+    private static <E> LongMap<Same<E>> link(LongMap<Same<E>> byValue, E value, long id) {
+        int hash = System.identityHashCode(value);
+        return byValue.put(hash, new Same<>(value, id, byValue.get(hash)));
+    }
+
+    /**
+     * Forgets the id of an element, keeping the other ids of the same hash.
+     */
+    private static <E> LongMap<Same<E>> unlink(LongMap<Same<E>> byValue, E value, long id) {
+        int hash = System.identityHashCode(value);
+        Same<E> rest = without(byValue.get(hash), id);
+        return rest == null ? byValue.remove(hash) : byValue.put(hash, rest);
+    }
+
+    private static <E> Same<E> without(Same<E> same, long id) {
+        if (same.id() == id) {
+            return same.next();
+        }
+        return new Same<>(same.value(), same.id(), without(same.next(), id));
+    }
+
+    private static <E> int size(Node<E> node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,626 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+
+import java.util.Arrays;
+
+/**
+ * Keeps many circles, rectangles and lines of a drawing as columns of numbers instead of
+ * objects: a kind, four coordinates and a color per shape, in parallel arrays. A shape then
+ * costs a few dozen bytes instead of several objects, and the rasterizer reads the columns in
+ * a loop without following references across the heap.
+ * The shapes of the table are drawn behind the shapes and groups of the drawing, the last
+ * added in front. They are not numbered by the commands and are reached as light views, whose
+ * changes are written to the table. The columns are cut in pages of PAGE_SIZE shapes, and the
+ * pages of a drawing are shared with its snapshots: a change copies the page it writes to and
+ * the short directories of the pages, not the whole columns.
+ * A rectangle covers the cells a Rectangle of the same corner and size covers, and so on for
+ * circles and lines: the cells are tested by the same code.
+ */
+public final class ShapeTable {
+    private static final byte CIRCLE = 0;
+    private static final byte RECTANGLE = 1;
+    private static final byte LINE = 2;
+    private static final int[] NO_SHAPES = new int[0];
+
+    /**
+     * The number of shapes of a page of the columns, a power of two.
+     */
+    private static final int PAGE_SIZE = 1 << 10;
+    private static final int PAGE_BITS = Integer.numberOfTrailingZeros(PAGE_SIZE);
+
+    private final Drawing drawing;
+    private byte[][] kinds;
+    private double[][] a;
+    private double[][] b;
+    private double[][] c;
+    private double[][] d;
+    private char[][] colors;
+    private boolean[] owned;
+    private int size;
+    private boolean shared;
+    private volatile int[][] bands;
+    private boolean bandsOwned;
+
+    /**
+     * Constructs the empty table of a drawing.
+     *
+     * @param drawing The drawing the table belongs to.
+     */
+    ShapeTable(Drawing drawing) {
+        this.drawing = drawing;
+        this.kinds = new byte[0][];
+        this.a = new double[0][];
+        this.b = new double[0][];
+        this.c = new double[0][];
+        this.d = new double[0][];
+        this.colors = new char[0][];
+        this.owned = new boolean[0];
+    }
+
+    /**
+     * Constructs the table of a snapshot, sharing the pages of another table.
+     */
+    private ShapeTable(Drawing drawing, ShapeTable other) {
+        this.drawing = drawing;
+        this.kinds = other.kinds;
+        this.a = other.a;
+        this.b = other.b;
+        this.c = other.c;
+        this.d = other.d;
+        this.colors = other.colors;
+        this.owned = new boolean[other.owned.length];
+        this.size = other.size;
+        this.bands = other.bands;
+        this.shared = true;
+    }
+
+    /**
+     * Makes the table of a snapshot, the two tables copying the pages before changing them.
+     *
+     * @param snapshot The snapshot the table belongs to.
+     * @return The table of the snapshot.
+     */
+    ShapeTable share(Drawing snapshot) {
+        shared = true;
+        bandsOwned = false;
+        return new ShapeTable(snapshot, this);
+    }
+
+    /**
+     * Adds a circle in front of the shapes of the table.
+     *
+     * @param x      The x-coordinate of the center.
+     * @param y      The y-coordinate of the center.
+     * @param radius The radius.
+     * @param color  The color.
+     * @return The index of the circle in the table.
+     * @throws IllegalArgumentException If the radius is not positive.
+     */
+    public int addCircle(double x, double y, double radius, char color) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("The given radius should be superior to 0");
+        }
+        return add(CIRCLE, x, y, radius, radius * radius, color);
+    }
+
+    /**
+     * Adds a rectangle in front of the shapes of the table.
+     *
+     * @param x      The x-coordinate of the upper-left corner.
+     * @param y      The y-coordinate of the upper-left corner.
+     * @param width  The width.
+     * @param height The height.
+     * @param color  The color.
+     * @return The index of the rectangle in the table.
+     * @throws IllegalArgumentException If the width or the height is not positive.
+     */
+    public int addRectangle(double x, double y, double width, double height, char color) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("The width and the height should be more than 0.");
+        }
+        return add(RECTANGLE, x, y, width, height, color);
+    }
+
+    /**
+     * Adds a line in front of the shapes of the table.
+     *
+     * @param x1    The x-coordinate of the start point.
+     * @param y1    The y-coordinate of the start point.
+     * @param x2    The x-coordinate of the end point.
+     * @param y2    The y-coordinate of the end point.
+     * @param color The color.
+     * @return The index of the line in the table.
+     */
+    public int addLine(double x1, double y1, double x2, double y2, char color) {
+        return add(LINE, x1, y1, x2, y2, color);
+    }
+
+    /**
+     * Adds a copy of a circle, a rectangle, a square or a line in front of the shapes of the
+     * table. A square is kept as a rectangle.
+     *
+     * @param shape The shape to copy into the table.
+     * @return The index of the shape in the table.
+     * @throws IllegalArgumentException If the shape is null or of another kind, or is a
+     *                                  rectangle without width or height.
+     */
+    public int add(Shape shape) {
+        if (shape instanceof Circle circle) {
+            Point center = circle.getCenter();
+            return addCircle(center.getX(), center.getY(), circle.getRadius(), circle.getColor());
+        } else if (shape instanceof Rectangle rectangle) {
+            Point corner = rectangle.getUpperLeft();
+            return addRectangle(corner.getX(), corner.getY(), rectangle.getWidth(), rectangle.getHeight(),
+                    rectangle.getColor());
+        } else if (shape instanceof Line line) {
+            Point start = line.getStartPoint();
+            Point end = line.getEndPoint();
+            return addLine(start.getX(), start.getY(), end.getX(), end.getY(), line.getColor());
+        }
+        throw new IllegalArgumentException("Only circles, rectangles, squares and lines can be kept in a table");
+    }
+
+    /**
+     * Adds a shape given as the numbers of its row, as a drawing file keeps them.
+     *
+     * @return The index of the shape in the table.
+     * @throws IllegalArgumentException If the kind is not one of the table.
+     */
+    int addRow(byte kind, double first, double second, double third, double fourth, char color) {
+        if (kind != CIRCLE && kind != RECTANGLE && kind != LINE) {
+            throw new IllegalArgumentException("Unknown kind of table shape: " + kind);
+        }
+        return add(kind, first, second, third, fourth, color);
+    }
+
+    private int add(byte kind, double first, double second, double third, double fourth, char color) {
+        prepare();
+        int page = size >>> PAGE_BITS;
+        if ((size & (PAGE_SIZE - 1)) == 0) {
+            if (page == kinds.length) {
+                int capacity = Math.max(4, page * 2);
+                kinds = Arrays.copyOf(kinds, capacity);
+                a = Arrays.copyOf(a, capacity);
+                b = Arrays.copyOf(b, capacity);
+                c = Arrays.copyOf(c, capacity);
+                d = Arrays.copyOf(d, capacity);
+                colors = Arrays.copyOf(colors, capacity);
+                owned = Arrays.copyOf(owned, capacity);
+            }
+            // A new page is made even where a cleared table left one, which may be shared.
+            kinds[page] = new byte[PAGE_SIZE];
+            a[page] = new double[PAGE_SIZE];
+            b[page] = new double[PAGE_SIZE];
+            c[page] = new double[PAGE_SIZE];
+            d[page] = new double[PAGE_SIZE];
+            colors[page] = new char[PAGE_SIZE];
+            owned[page] = true;
+        }
+        page = own(size);
+        int k = size & (PAGE_SIZE - 1);
+        kinds[page][k] = kind;
+        a[page][k] = first;
+        b[page][k] = second;
+        c[page][k] = third;
+        d[page][k] = fourth;
+        colors[page][k] = color;
+        int index = size++;
+        Bounds bounds = bounds(index);
+        updateBands(index, Bounds.EMPTY, bounds);
+        drawing.tableChanged(bounds);
+        return index;
+    }
+
+    /**
+     * Moves a shape of the table.
+     *
+     * @param index The index of the shape.
+     * @param dx    The horizontal distance.
+     * @param dy    The vertical distance.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public void move(int index, double dx, double dy) {
+        Bounds before = bounds(index);
+        prepare();
+        int page = own(index);
+        int k = index & (PAGE_SIZE - 1);
+        a[page][k] += dx;
+        b[page][k] += dy;
+        if (kinds[page][k] == LINE) {
+            c[page][k] += dx;
+            d[page][k] += dy;
+        }
+        Bounds after = bounds(index);
+        updateBands(index, before, after);
+        drawing.tableChanged(before.union(after));
+    }
+
+    /**
+     * Changes the color of a shape of the table.
+     *
+     * @param index The index of the shape.
+     * @param color The new color.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public void setColor(int index, char color) {
+        Bounds bounds = bounds(index);
+        prepare();
+        colors[own(index)][index & (PAGE_SIZE - 1)] = color;
+        drawing.tableChanged(bounds);
+    }
+
+    /**
+     * Removes every shape of the table.
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Bounds all = Bounds.EMPTY;
+        for (int i = 0; i < size; i++) {
+            all = all.union(bounds(i));
+        }
+        prepare();
+        size = 0;
+        bands = null;
+        drawing.tableChanged(all);
+    }
+
+    /**
+     * Gets the number of shapes in the table.
+     *
+     * @return The size of the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a view of a shape of the table. The view reads the table, and writes to it when it
+     * is moved or recolored; its copies are standalone circles, rectangles and lines.
+     *
+     * @param index The index of the shape.
+     * @return The view of the shape.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public Component get(int index) {
+        check(index);
+        return new View(index);
+    }
+
+    /**
+     * Gets the bounds of a shape of the table.
+     *
+     * @param index The index of the shape.
+     * @return The bounds of the shape.
+     */
+    Bounds bounds(int index) {
+        check(index);
+        return switch (kind(index)) {
+            case CIRCLE -> new Bounds(a(index) - c(index), b(index) - c(index), a(index) + c(index), b(index) + c(index));
+            case RECTANGLE -> new Bounds(a(index), b(index), a(index) + c(index), b(index) + d(index));
+            default -> Line.bounds(a(index), b(index), c(index), d(index));
+        };
+    }
+
+    /**
+     * Checks if a point is inside a shape of the table.
+     */
+    boolean isInside(int index, double x, double y) {
+        return switch (kind(index)) {
+            case CIRCLE -> Circle.isInside(a(index), b(index), d(index), x, y);
+            case RECTANGLE -> Rectangle.isInside(a(index), b(index), c(index), d(index), x, y);
+            default -> Line.isInside(a(index), b(index), c(index), d(index), x, y);
+        };
+    }
+
+    /**
+     * Reports the span of a shape of the table on a row.
+     */
+    void spans(int index, int y, int minX, int maxX, SpanSink sink) {
+        switch (kind(index)) {
+            case CIRCLE -> Circle.spans(a(index), b(index), d(index), y, minX, maxX, sink);
+            case RECTANGLE -> Rectangle.spans(a(index), b(index), c(index), d(index), y, minX, maxX, sink);
+            default -> Line.spans(a(index), b(index), c(index), d(index), y, minX, maxX, sink);
+        }
+    }
+
+    /**
+     * Gets the color of a shape of the table.
+     */
+    char colorAt(int index) {
+        return colors[index >>> PAGE_BITS][index & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * Gets the kind of a shape of the table, as a drawing file keeps it.
+     */
+    byte kind(int index) {
+        return kinds[index >>> PAGE_BITS][index & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * Gets the first number of the row of a shape: the x-coordinate of its center, corner or
+     * start point. The next ones follow the order of the add methods, a circle keeping its
+     * squared radius as its fourth number.
+     */
+    double a(int index) {
+        return a[index >>> PAGE_BITS][index & (PAGE_SIZE - 1)];
+    }
+
+    double b(int index) {
+        return b[index >>> PAGE_BITS][index & (PAGE_SIZE - 1)];
+    }
+
+    double c(int index) {
+        return c[index >>> PAGE_BITS][index & (PAGE_SIZE - 1)];
+    }
+
+    double d(int index) {
+        return d[index >>> PAGE_BITS][index & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * Finds the frontmost shape of the table covering a point.
+     *
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The view of the shape, or null if no shape of the table covers the point.
+     */
+    Component shapeAt(double x, double y) {
+        int[] members = band((int) Math.floor(y));
+        for (int k = members.length - 1; k >= 0; k--) {
+            if (isInside(members[k], x, y)) {
+                return new View(members[k]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the shapes that may cover the rows of the band holding the given row, in the order
+     * of the table. The bands are the rows of the drawing cut as the cells of its spatial index;
+     * they are built at once the first time a row is asked for, then kept up to date by the
+     * changes of the table.
+     *
+     * @param y The row.
+     * @return The indices of the shapes, shared and not to be changed.
+     */
+    int[] band(int y) {
+        int[][] current = bands;
+        if (current == null) {
+            current = buildBands();
+        }
+        int band = Math.floorDiv(y, ShapeIndex.CELL_SIZE);
+        return band >= 0 && band < current.length ? current[band] : NO_SHAPES;
+    }
+
+    /**
+     * Sorts the shapes by band, under a lock since snapshots are drawn from several threads.
+     */
+    private synchronized int[][] buildBands() {
+        if (bands != null) {
+            return bands;
+        }
+        int count = bandCount();
+        int[] first = new int[size];
+        int[] last = new int[size];
+        int[] sizes = new int[count];
+        for (int i = 0; i < size; i++) {
+            Bounds bounds = bounds(i);
+            first[i] = firstBand(bounds, count);
+            last[i] = lastBand(bounds, count);
+            for (int band = first[i]; band <= last[i]; band++) {
+                sizes[band]++;
+            }
+        }
+        int[][] built = new int[count][];
+        for (int band = 0; band < count; band++) {
+            built[band] = sizes[band] == 0 ? NO_SHAPES : new int[sizes[band]];
+            sizes[band] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int band = first[i]; band <= last[i]; band++) {
+                built[band][sizes[band]++] = i;
+            }
+        }
+        bandsOwned = true;
+        bands = built;
+        return built;
+    }
+
+    /**
+     * Moves a shape between the bands after its bounds changed, if the bands are built. Only
+     * the bands the shape leaves or enters are replaced, each by a copy with or without the
+     * shape, so that a change costs the size of those bands and not the size of the table.
+     * The directory of the bands is copied first if a snapshot shares it.
+     *
+     * @param index  The index of the shape.
+     * @param before The bounds of the shape before the change.
+     * @param after  The bounds of the shape after the change.
+     */
+    private void updateBands(int index, Bounds before, Bounds after) {
+        int[][] current = bands;
+        if (current == null) {
+            return;
+        }
+        int count = current.length;
+        int oldFirst = firstBand(before, count);
+        int oldLast = lastBand(before, count);
+        int newFirst = firstBand(after, count);
+        int newLast = lastBand(after, count);
+        if (oldFirst == newFirst && oldLast == newLast) {
+            return;
+        }
+        if (!bandsOwned) {
+            current = current.clone();
+            bandsOwned = true;
+        }
+        for (int band = oldFirst; band <= oldLast; band++) {
+            if (band < newFirst || band > newLast) {
+                current[band] = without(current[band], index);
+            }
+        }
+        for (int band = newFirst; band <= newLast; band++) {
+            if (band < oldFirst || band > oldLast) {
+                current[band] = with(current[band], index);
+            }
+        }
+        bands = current;
+    }
+
+    private int bandCount() {
+        return Math.floorDiv(drawing.getHeight() - 1, ShapeIndex.CELL_SIZE) + 1;
+    }
+
+    /**
+     * Gets the first band the given bounds cover, or 0 if they cover none, the last band being
+     * then -1.
+     */
+    private static int firstBand(Bounds bounds, int count) {
+        if (bounds.isEmpty() || bounds.getMaxY() < 0 || bounds.getMinY() >= count * ShapeIndex.CELL_SIZE) {
+            return 0;
+        }
+        return Math.max(0, (int) Math.floor(Math.max(bounds.getMinY(), 0) / ShapeIndex.CELL_SIZE));
+    }
+
+    /**
+     * Gets the last band the given bounds cover, or -1 if they cover none.
+     */
+    private static int lastBand(Bounds bounds, int count) {
+        if (bounds.isEmpty() || bounds.getMaxY() < 0 || bounds.getMinY() >= count * ShapeIndex.CELL_SIZE) {
+            return -1;
+        }
+        return Math.min(count - 1, (int) Math.floor(Math.min(bounds.getMaxY(), Integer.MAX_VALUE) / ShapeIndex.CELL_SIZE));
+    }
+
+    /**
+     * Gives a copy of a band with a shape added in the order of the table.
+     */
+    private static int[] with(int[] band, int index) {
+        int at = -Arrays.binarySearch(band, index) - 1;
+        int[] changed = new int[band.length + 1];
+        System.arraycopy(band, 0, changed, 0, at);
+        changed[at] = index;
+        System.arraycopy(band, at, changed, at + 1, band.length - at);
+        return changed;
+    }
+
+    /**
+     * Gives a copy of a band without a shape.
+     */
+    private static int[] without(int[] band, int index) {
+        int at = Arrays.binarySearch(band, index);
+        if (band.length == 1) {
+            return NO_SHAPES;
+        }
+        int[] changed = new int[band.length - 1];
+        System.arraycopy(band, 0, changed, 0, at);
+        System.arraycopy(band, at + 1, changed, at, band.length - at - 1);
+        return changed;
+    }
+
+    /**
+     * Copies the directories of the pages shared with a snapshot before they change. The pages
+     * themselves stay shared until they are written to.
+     */
+    private void prepare() {
+        if (shared) {
+            kinds = kinds.clone();
+            a = a.clone();
+            b = b.clone();
+            c = c.clone();
+            d = d.clone();
+            colors = colors.clone();
+            owned = new boolean[owned.length];
+            shared = false;
+        }
+    }
+
+    /**
+     * Copies the page holding a shape if it may be shared, before it is written to.
+     *
+     * @param index The index of the shape.
+     * @return The number of the page.
+     */
+    private int own(int index) {
+        int page = index >>> PAGE_BITS;
+        if (!owned[page]) {
+            kinds[page] = kinds[page].clone();
+            a[page] = a[page].clone();
+            b[page] = b[page].clone();
+            c[page] = c[page].clone();
+            d[page] = d[page].clone();
+            colors[page] = colors[page].clone();
+            owned[page] = true;
+        }
+        return page;
+    }
+
+    private void check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        }
+    }
+
+    /**
+     * A shape of the table seen as a component.
+     */
+    private final class View extends Component {
+        private final int index;
+
+        View(int index) {
+            super(colorAt(index));
+            this.index = index;
+        }
+
+        @Override
+        public char getColor() {
+            return colorAt(index);
+        }
+
+        @Override
+        public void setColor(char color) {
+            ShapeTable.this.setColor(index, color);
+        }
+
+        @Override
+        public boolean isInside(double x, double y) {
+            return ShapeTable.this.isInside(index, x, y);
+        }
+
+        @Override
+        public void spans(int y, int minX, int maxX, SpanSink sink) {
+            ShapeTable.this.spans(index, y, minX, maxX, sink);
+        }
+
+        @Override
+        public Bounds bounds() {
+            return ShapeTable.this.bounds(index);
+        }
+
+        @Override
+        public void move(double dx, double dy) {
+            ShapeTable.this.move(index, dx, dy);
+        }
+
+        @Override
+        public Component copy() {
+            return switch (kind(index)) {
+                case CIRCLE -> new Circle(new Point(a(index), b(index)), c(index), colorAt(index));
+                case RECTANGLE -> new Rectangle(new Point(a(index), b(index)), c(index), d(index), colorAt(index));
+                default -> new Line(new Point(a(index), b(index)), new Point(c(index), d(index)), colorAt(index));
+            };
+        }
+
+        @Override
+        public String toString() {
+            return switch (kind(index)) {
+                case CIRCLE -> "Circle";
+                case RECTANGLE -> "Rectangle";
+                default -> "Line";
+            };
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Command.Command;
+import g56583.atl.ascii.DesignPattern.Command.History;
+
+import java.io.IOException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * An AsciiPaint shared between threads: one writer at a time applies commands, while any
+ * number of readers render consistent versions of the drawing without waiting for it.
+ * Each change gives a new version of the drawing. Readers get the snapshot of the current
+ * version, taken the first time it is asked for and kept until the next change, and render it
+ * without holding any lock: the drawing never changes the shapes a snapshot shares with it.
+ * The AsciiPaint itself is never given out, commands are built from it inside the lock.
+ */
+public class SharedPaint {
+    private final AsciiPaint paint;
+    private final History history;
+    private final StampedLock lock = new StampedLock();
+    private final RenderCache cache = new RenderCache();
+    private long version;
+    private volatile Version published;
+
+    /**
+     * Constructs a shared paint owning the given AsciiPaint, which must not be used anymore
+     * but through this object.
+     *
+     * @param paint The AsciiPaint to share.
+     */
+    public SharedPaint(AsciiPaint paint) {
+        if (paint == null) {
+            throw new IllegalArgumentException("Given paint is null");
+        }
+        this.paint = paint;
+        this.history = new History(paint);
+        this.published = new Version(paint.getDrawing().snapshot(), 0);
+    }
+
+    /**
+     * Builds a command for the AsciiPaint and executes it, recording it in the history.
+     *
+     * @param command Builds the command from the AsciiPaint, for example
+     *                {@code paint -> new Move(paint, 0, 2, 3)}.
+     */
+    public void execute(Function<AsciiPaint, ? extends Command> command) {
+        long stamp = lock.writeLock();
+        try {
+            history.execute(command.apply(paint));
+        } finally {
+            version++;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Undoes the last command.
+     *
+     * @return False if there was nothing to undo.
+     */
+    public boolean undo() {
+        long stamp = lock.writeLock();
+        try {
+            return history.undo();
+        } finally {
+            version++;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Redoes the last command undone.
+     *
+     * @return False if there was nothing to redo.
+     */
+    public boolean redo() {
+        long stamp = lock.writeLock();
+        try {
+            return history.redo();
+        } finally {
+            version++;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Applies any change to the AsciiPaint, as several commands at once. The change records in
+     * the history what can be undone, and clears it if it replaces the drawing.
+     *
+     * @param change The change to apply.
+     * @throws IOException If the change fails on an input or output.
+     */
+    public void write(Change change) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            change.apply(paint, history);
+        } finally {
+            // Even a failed change may have changed something before failing.
+            version++;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the current version of the drawing. The snapshot is shared by the
+     * readers of the same version and must not be changed.
+     *
+     * @return The snapshot of the drawing.
+     */
+    public Drawing snapshot() {
+        return current().drawing();
+    }
+
+    /**
+     * Gets a snapshot of the current version of the drawing, with the number of this version.
+     *
+     * @return The current version.
+     */
+    public Version current() {
+        long stamp = lock.tryOptimisticRead();
+        Version current = published;
+        long now = version;
+        if (lock.validate(stamp) && current.version == now) {
+            return current;
+        }
+        stamp = lock.readLock();
+        try {
+            current = published;
+            if (current.version != version) {
+                // Several readers may take the same snapshot, they are all equivalent.
+                current = new Version(paint.getDrawing().snapshot(), version);
+                published = current;
+            }
+            return current;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets the number of changes applied so far.
+     *
+     * @return The current version.
+     */
+    public long getVersion() {
+        long stamp = lock.tryOptimisticRead();
+        long now = version;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                now = version;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return now;
+    }
+
+    /**
+     * Renders the current version of the drawing, without blocking the writer. The version is
+     * rendered only once and its rendering is shared by the readers.
+     *
+     * @return The ASCII art representation of the drawing.
+     */
+    public String asAscii() {
+        return cache.render(snapshot());
+    }
+
+    /**
+     * Renders a window on the current version of the drawing, without blocking the writer.
+     *
+     * @param viewport The window to render.
+     * @return The ASCII art representation of the window.
+     */
+    public String asAscii(Viewport viewport) {
+        return cache.render(snapshot(), viewport);
+    }
+
+    /**
+     * Writes the current version of the drawing to the given output, without blocking the
+     * writer.
+     *
+     * @param out The output receiving the drawing.
+     * @throws IOException If the output fails.
+     */
+    public void renderTo(Appendable out) throws IOException {
+        new Rasterizer(snapshot()).renderTo(out);
+    }
+
+    /**
+     * A change applied by a writer, given the AsciiPaint and its history.
+     */
+    @FunctionalInterface
+    public interface Change {
+        /**
+         * Applies the change.
+         *
+         * @param paint   The AsciiPaint to change.
+         * @param history The history of the commands applied to it.
+         * @throws IOException If the change fails on an input or output.
+         */
+        void apply(AsciiPaint paint, History history) throws IOException;
+    }
+
+    /**
+     * A snapshot of the drawing and the number of the version it shows.
+     *
+     * @param drawing The snapshot, which must not be changed.
+     * @param version The number of changes applied before the snapshot.
+     */
+    public record Version(Drawing drawing, long version) {
+    }
+}
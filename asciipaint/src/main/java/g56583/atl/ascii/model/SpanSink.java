@@ -0,0 +1,15 @@
+package g56583.atl.ascii.model;
+
+/**
+ * Receives the horizontal spans of cells covered by a shape on a given row of the drawing.
+ */
+@FunctionalInterface
+public interface SpanSink {
+    /**
+     * Called for each run of covered cells of the current row.
+     *
+     * @param from The first covered column (inclusive).
+     * @param to   The last covered column (inclusive).
+     */
+    void span(int from, int to);
+}
@@ -0,0 +1,100 @@
+package g56583.atl.ascii.model;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * The loops of the rasterizer over a row written with the vector API, several cells at once:
+ * as many characters as the preferred vector of the platform holds integers, so that the
+ * skip pointers of the cells are written by a vector of the same length.
+ * A span is painted by whole vectors while they are unpainted, and one cell at a time around
+ * the cells already painted. The cells left over at the end of a row are processed one at a
+ * time.
+ * The class needs the jdk.incubator.vector module, and fails to initialize without it.
+ */
+final class VectorRowKernel implements RowKernel {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> CHARS =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(INTS.vectorBitSize() / 2));
+    private static final int LANES = INTS.length();
+    private static final IntVector LANE = IntVector.zero(INTS).addIndex(1);
+
+    @Override
+    public void clear(char[] row, int offset, int[] next, int count) {
+        Arrays.fill(row, offset, offset + count, '\0');
+        int i = 0;
+        for (; i + LANES <= count + 1; i += LANES) {
+            LANE.add(i).intoArray(next, i);
+        }
+        for (; i <= count; i++) {
+            next[i] = i;
+        }
+    }
+
+    @Override
+    public int reopen(char[] row, int offset, int[] next, int count) {
+        int remaining = 0;
+        int i = 0;
+        for (; i + LANES <= count; i += LANES) {
+            ShortVector cells = ShortVector.fromCharArray(CHARS, row, offset + i);
+            VectorMask<Short> open = cells.eq((short) ' ').or(cells.eq((short) 0));
+            cells.blend((short) 0, open).intoCharArray(row, offset + i);
+            LANE.add(i + 1).sub(1, open.cast(INTS)).intoArray(next, i);
+            remaining += open.trueCount();
+        }
+        for (; i < count; i++) {
+            if (row[offset + i] == ' ' || row[offset + i] == '\0') {
+                row[offset + i] = '\0';
+                next[i] = i;
+                remaining++;
+            } else {
+                next[i] = i + 1;
+            }
+        }
+        return remaining;
+    }
+
+    @Override
+    public int fill(char[] row, int offset, int[] next, int from, int to, char color) {
+        ShortVector paint = ShortVector.broadcast(CHARS, (short) color);
+        int painted = 0;
+        int i = RowKernel.find(next, from);
+        while (i <= to) {
+            int j = i;
+            // The last cell of the vector is checked first, as a cheap guess of the others.
+            while (j + LANES <= to + 1 && next[j + LANES - 1] == j + LANES - 1
+                    && ShortVector.fromCharArray(CHARS, row, offset + j).eq((short) 0).allTrue()) {
+                paint.intoCharArray(row, offset + j);
+                LANE.add(j + 1).intoArray(next, j);
+                j += LANES;
+            }
+            while (j <= to && next[j] == j) {
+                row[offset + j] = color;
+                next[j] = j + 1;
+                j++;
+            }
+            painted += j - i;
+            i = RowKernel.find(next, j);
+        }
+        return painted;
+    }
+
+    @Override
+    public void finish(char[] row, int offset, int count) {
+        int i = 0;
+        for (; i + LANES <= count; i += LANES) {
+            ShortVector cells = ShortVector.fromCharArray(CHARS, row, offset + i);
+            cells.blend((short) ' ', cells.eq((short) 0)).intoCharArray(row, offset + i);
+        }
+        for (; i < count; i++) {
+            if (row[offset + i] == '\0') {
+                row[offset + i] = ' ';
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package g56583.atl.ascii.model;
+
+import java.util.Objects;
+
+/**
+ * Represents a rectangular window on a drawing, in characters. Zoomed out, each character
+ * stands for a square block of scale x scale cells, drawn with the color most of its painted
+ * cells have, so thin shapes do not vanish. The window may extend past the drawing, whose
+ * missing cells are rendered blank.
+ */
+public final class Viewport {
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+    private final int scale;
+
+    /**
+     * Constructs a window of the given size, from the given cell, one character per cell.
+     *
+     * @param x      The column of the upper-left cell.
+     * @param y      The row of the upper-left cell.
+     * @param width  The number of columns.
+     * @param height The number of rows.
+     * @throws IllegalArgumentException If the width or the height is not positive.
+     */
+    public Viewport(int x, int y, int width, int height) {
+        this(x, y, width, height, 1);
+    }
+
+    /**
+     * Constructs a zoomed out window of the given size, from the given cell.
+     *
+     * @param x      The column of the upper-left cell.
+     * @param y      The row of the upper-left cell.
+     * @param width  The number of characters of a row.
+     * @param height The number of rows of characters.
+     * @param scale  The number of cells a character stands for, in each direction.
+     * @throws IllegalArgumentException If the width, the height or the scale is not positive.
+     */
+    public Viewport(int x, int y, int width, int height, int scale) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("The width and the height should be more than 0.");
+        }
+        if (scale <= 0) {
+            throw new IllegalArgumentException("The scale should be more than 0.");
+        }
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.scale = scale;
+    }
+
+    /**
+     * Gets the window showing the whole drawing.
+     *
+     * @param drawing The drawing.
+     * @return The window of the size of the drawing.
+     */
+    public static Viewport of(Drawing drawing) {
+        return new Viewport(0, 0, drawing.getWidth(), drawing.getHeight());
+    }
+
+    /**
+     * Gets the column of the upper-left cell.
+     *
+     * @return The first column.
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Gets the row of the upper-left cell.
+     *
+     * @return The first row.
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Gets the number of characters of a row of the window.
+     *
+     * @return The width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the number of rows of characters of the window.
+     *
+     * @return The height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of cells a character stands for, in each direction.
+     *
+     * @return The scale, 1 for a character per cell.
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        Viewport viewport = (Viewport) obj;
+        return x == viewport.x && y == viewport.y && width == viewport.width && height == viewport.height
+                && scale == viewport.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(x, y, width, height, scale);
+    }
+}
@@ -1,5 +1,9 @@
 package g56583.atl.ascii.view;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.List;
 import java.util.Scanner;
 
@@ -71,6 +75,8 @@ public class View {
         System.out.println("Write 'redo' to redo the last undone command");
         System.out.println("Write 'help' to view the command list.");
         System.out.println("Write 'create line column' to create a new illustration with dimensions line and column.");
+        System.out.println("Write 'save file' to save the drawing to the given file.");
+        System.out.println("Write 'load file' to replace the drawing with the one saved in the given file.");
         System.out.println("Write 'exit' to exit the program.");
         System.out.println("--------------------------------------------------\n");
     }
@@ -105,11 +111,21 @@ public class View {
 
     /**
      * Displays the ASCII representation of the current drawing.
+     * The drawing is written from the rendering kept by the paint, brought up to date with the
+     * changes since; a drawing too large to be kept is rendered row after row as it is written.
      *
      * @param paint The AsciiPaint instance containing the drawing.
      */
     public void displayDraw(AsciiPaint paint) {
-        System.out.println(paint.asAscii());
+        // The writer is only flushed, closing it would close the console.
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            paint.show(out);
+            out.write(System.lineSeparator());
+            out.flush();
+        } catch (IOException e) {
+            displayError(e.getMessage());
+        }
     }
 
     /**
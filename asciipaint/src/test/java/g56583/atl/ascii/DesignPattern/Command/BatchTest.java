@@ -0,0 +1,91 @@
+package g56583.atl.ascii.DesignPattern.Command;
+
+import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Circle;
+import g56583.atl.ascii.model.Point;
+import g56583.atl.ascii.model.Rectangle;
+import g56583.atl.ascii.model.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static g56583.atl.ascii.model.SampleDrawings.samplePaint;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchTest {
+
+    @Test
+    public void testBatchIsOneStep() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint);
+        String before = paint.asAscii();
+        long version = paint.getDrawing().getVersion();
+        List<Command> commands = new ArrayList<>();
+        commands.add(new Add(paint, new Circle(new Point(20, 10), 2, 'D')));
+        commands.add(new Move(paint, 0, 3, 1));
+        commands.add(new Color(paint, 1, 'E'));
+        commands.add(new Remove(paint, 2));
+        history.execute(new Batch(paint, commands));
+        assertEquals(version + 1, paint.getDrawing().getVersion());
+        AsciiPaint expected = samplePaint();
+        expected.addShape(new Circle(new Point(20, 10), 2, 'D'));
+        expected.moveShape(0, 3, 1);
+        expected.changeShapeColor(1, 'E');
+        expected.removeShape(2);
+        String after = paint.asAscii();
+        assertEquals(expected.asAscii(), after);
+        assertTrue(history.undo());
+        assertEquals(before, paint.asAscii());
+        assertFalse(history.undo());
+        assertTrue(history.redo());
+        assertEquals(after, paint.asAscii());
+    }
+
+    @Test
+    public void testFailedBatchChangesNothing() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint);
+        String before = paint.asAscii();
+        List<Command> commands = new ArrayList<>();
+        commands.add(new Move(paint, 0, 3, 1));
+        commands.add(new Add(paint, new Circle(new Point(20, 10), 2, 'D')));
+        commands.add(new Move(paint, 9, 1, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.execute(new Batch(paint, commands)));
+        assertEquals(before, paint.asAscii());
+        assertEquals(3, paint.getShapes().size());
+        assertFalse(history.undo());
+    }
+
+    @Test
+    public void testBulkCommands() {
+        AsciiPaint paint = new AsciiPaint(40, 40);
+        History history = new History(paint);
+        Shape[] shapes = new Shape[1000];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = new Rectangle(new Point(i % 37, i % 31), 1, 1, (char) ('A' + i % 26));
+        }
+        history.execute(new AddAll(paint, shapes));
+        assertEquals(1000, paint.getShapes().size());
+        String added = paint.asAscii();
+        int[] indices = {0, 5, 999, 5};
+        history.execute(new MoveAll(paint, indices, 2, 1));
+        assertEquals(new Rectangle(new Point(9, 7), 1, 1, 'F').bounds(), paint.getShapeAt(5).bounds());
+        history.execute(new ColorAll(paint, indices, 'z'));
+        assertEquals('Z', paint.getShapeAt(999).getColor());
+        String changed = paint.asAscii();
+        assertThrows(IllegalArgumentException.class, () -> history.execute(new MoveAll(paint, new int[]{1, 1000}, 1, 1)));
+        assertEquals(changed, paint.asAscii());
+        history.undo();
+        history.undo();
+        assertEquals(added, paint.asAscii());
+        history.undo();
+        assertEquals(0, paint.getShapes().size());
+        history.redo();
+        history.redo();
+        history.redo();
+        assertEquals(changed, paint.asAscii());
+        assertThrows(IllegalArgumentException.class, () -> new ColorAll(paint, indices, '1'));
+        assertThrows(IllegalArgumentException.class, () -> new AddAll(paint, shapes[0], null));
+    }
+}
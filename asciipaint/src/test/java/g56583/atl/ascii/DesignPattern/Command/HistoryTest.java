@@ -0,0 +1,181 @@
+package g56583.atl.ascii.DesignPattern.Command;
+
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Circle;
+import g56583.atl.ascii.model.Point;
+import g56583.atl.ascii.model.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static g56583.atl.ascii.model.SampleDrawings.samplePaint;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryTest {
+
+    private static Command command(AsciiPaint paint, int i) {
+        return switch (i % 4) {
+            case 0 -> new Move(paint, i % 3, 1, i % 2 == 0 ? -1 : 1);
+            case 1 -> new Color(paint, i % 3, (char) ('D' + i % 20));
+            case 2 -> new Add(paint, new Circle(new Point(i % 30, i % 20), 1.5, 'E'));
+            default -> new Remove(paint, paint.getShapes().size() - 1);
+        };
+    }
+
+    @Test
+    public void testUndoAndRedo() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint);
+        List<String> states = new ArrayList<>();
+        states.add(paint.asAscii());
+        for (int i = 0; i < 40; i++) {
+            history.execute(command(paint, i));
+            states.add(paint.asAscii());
+        }
+        for (int i = 39; i >= 0; i--) {
+            assertTrue(history.undo());
+            assertEquals(states.get(i), paint.asAscii());
+        }
+        assertFalse(history.undo());
+        for (int i = 1; i <= 40; i++) {
+            assertTrue(history.redo());
+            assertEquals(states.get(i), paint.asAscii());
+        }
+        assertFalse(history.redo());
+    }
+
+    @Test
+    public void testExecuteForgetsRedo() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint);
+        history.execute(new Move(paint, 0, 2, 2));
+        history.undo();
+        history.execute(new Color(paint, 1, 'Z'));
+        assertFalse(history.redo());
+        assertEquals('Z', paint.getColorOfShape(1));
+    }
+
+    @Test
+    public void testFailedCommandIsNotRecorded() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint);
+        assertThrows(RuntimeException.class, () -> history.execute(new Move(paint, 9, 1, 1)));
+        assertFalse(history.undo());
+        assertEquals(0, history.getFootprint());
+    }
+
+    @Test
+    public void testUndoPutsBackTheSameShape() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint);
+        Shape shape = paint.getShapeAt(0);
+        String before = paint.asAscii();
+        history.execute(new Move(paint, 0, 4, -2));
+        history.undo();
+        assertSame(shape, paint.getShapeAt(0));
+        assertEquals(before, paint.asAscii());
+    }
+
+    @Test
+    public void testFootprintStaysInBudget() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint, 4000, 16);
+        for (int i = 0; i < 2000; i++) {
+            history.execute(command(paint, i));
+            assertTrue(history.getFootprint() <= history.getBudget());
+        }
+    }
+
+    @Test
+    public void testUndoJumpsToCheckpoints() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint, 3000, 8);
+        List<String> states = new ArrayList<>();
+        states.add(paint.asAscii());
+        for (int i = 0; i < 200; i++) {
+            history.execute(command(paint, i));
+            states.add(paint.asAscii());
+        }
+        List<Integer> visited = new ArrayList<>();
+        int position = 200;
+        while (history.undo()) {
+            int previous = position;
+            position = states.subList(0, position).lastIndexOf(paint.asAscii());
+            assertTrue(position >= 0 && position < previous);
+            visited.add(position);
+        }
+        assertTrue(visited.size() < 200);
+        assertTrue(position < 200 - visited.size());
+        for (int i = visited.size() - 2; i >= 0; i--) {
+            assertTrue(history.redo());
+            assertEquals(states.get(visited.get(i)), paint.asAscii());
+        }
+        assertTrue(history.redo());
+        assertEquals(states.get(200), paint.asAscii());
+        assertFalse(history.redo());
+    }
+
+    @Test
+    public void testExecuteAfterJump() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint, 1500, 4);
+        for (int i = 0; i < 40; i++) {
+            history.execute(command(paint, i));
+        }
+        while (history.undo()) {
+            if (paint.getShapes().size() == 3) {
+                break;
+            }
+        }
+        String jumped = paint.asAscii();
+        history.execute(new Move(paint, 0, 1, 1));
+        assertTrue(history.undo());
+        assertEquals(jumped, paint.asAscii());
+        assertTrue(history.redo());
+        assertFalse(history.redo());
+    }
+
+    @Test
+    public void testFootprintOfGroups() {
+        Composite inner = new Composite('i');
+        inner.add(new Circle(new Point(1, 1), 1, 'c'));
+        Composite group = new Composite('g');
+        group.add(new Circle(new Point(4, 4), 1, 'c'));
+        group.add(inner);
+        long footprint = History.footprint(group);
+        assertEquals(History.footprint(new Circle(new Point(0, 0), 1, 'c')) + 3 * (8 + 64), footprint);
+        group.move(2, 2);
+        assertEquals(footprint, History.footprint(group));
+    }
+
+    @Test
+    public void testCreateIsUndone() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint);
+        String before = paint.asAscii();
+        history.execute(new Create(paint, 5, 5));
+        assertEquals(5, paint.getDrawing().getWidth());
+        assertTrue(history.getFootprint() > History.footprint(new AsciiPaint(30, 20).getDrawing()));
+        history.undo();
+        assertEquals(before, paint.asAscii());
+    }
+
+    @Test
+    public void testClear() {
+        AsciiPaint paint = samplePaint();
+        History history = new History(paint);
+        history.execute(new Move(paint, 0, 1, 1));
+        history.clear();
+        assertFalse(history.undo());
+        assertEquals(0, history.getFootprint());
+    }
+
+    @Test
+    public void testInvalidBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new History(samplePaint(), 0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new History(samplePaint(), 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new History(null));
+    }
+}
@@ -0,0 +1,227 @@
+package g56583.atl.ascii.DesignPattern.Composite;
+
+import g56583.atl.ascii.model.Bounds;
+import g56583.atl.ascii.model.Circle;
+import g56583.atl.ascii.model.Point;
+import g56583.atl.ascii.model.Rectangle;
+import g56583.atl.ascii.model.Shape;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static g56583.atl.ascii.model.SampleDrawings.randomShape;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompositeTest {
+
+    @Test
+    public void testBoundsOfEmptyComposite() {
+        assertEquals(Bounds.EMPTY, new Composite('g').bounds());
+    }
+
+    @Test
+    public void testBoundsAfterAdd() {
+        Composite group = new Composite('g');
+        group.add(new Rectangle(new Point(1, 2), 3, 4, 'r'));
+        assertEquals(new Bounds(1, 2, 4, 6), group.bounds());
+        group.add(new Circle(new Point(10, 10), 2, 'c'));
+        assertEquals(new Bounds(1, 2, 12, 12), group.bounds());
+    }
+
+    @Test
+    public void testBoundsAfterMove() {
+        Composite group = new Composite('g');
+        group.add(new Rectangle(new Point(1, 2), 3, 4, 'r'));
+        assertEquals(new Bounds(1, 2, 4, 6), group.bounds());
+        group.move(5, -2);
+        assertEquals(new Bounds(6, 0, 9, 4), group.bounds());
+        assertTrue(group.isInside(new Point(7, 1)));
+        assertFalse(group.isInside(new Point(2, 3)));
+    }
+
+    @Test
+    public void testBoundsOfNestedCompositeAfterMove() {
+        Composite inner = new Composite('i');
+        inner.add(new Circle(new Point(0, 0), 1, 'c'));
+        Composite outer = new Composite('o');
+        outer.add(inner);
+        assertEquals(new Bounds(-1, -1, 1, 1), outer.bounds());
+        outer.move(3, 3);
+        assertEquals(new Bounds(2, 2, 4, 4), outer.getChildren().get(0).bounds());
+        assertEquals(new Bounds(2, 2, 4, 4), outer.bounds());
+    }
+
+    @Test
+    public void testCopySharesChildrenUntilMoved() {
+        Rectangle child = new Rectangle(new Point(1, 2), 3, 4, 'r');
+        Composite group = new Composite('g');
+        group.add(child);
+        Composite copy = group.copy();
+        assertSame(child, copy.getChildren().get(0));
+        copy.move(5, 5);
+        assertEquals(new Bounds(1, 2, 4, 6), child.bounds());
+        assertEquals(new Bounds(1, 2, 4, 6), group.bounds());
+        assertEquals(new Bounds(6, 7, 9, 11), copy.bounds());
+    }
+
+    @Test
+    public void testSpansSkipChildrenOffTheRow() {
+        Composite group = new Composite('g');
+        group.add(new Rectangle(new Point(0, 0), 2, 1, 'a'));
+        group.add(new Rectangle(new Point(5, 4), 2, 1, 'b'));
+        List<int[]> spans = new ArrayList<>();
+        group.spans(4, 0, 9, (from, to) -> spans.add(new int[]{from, to}));
+        assertEquals(1, spans.size());
+        assertArrayEquals(new int[]{5, 7}, spans.get(0));
+    }
+
+    @Test
+    public void testChildrenAreReadOnly() {
+        Composite group = new Composite('g');
+        assertThrows(UnsupportedOperationException.class,
+                () -> group.getChildren().add(new Circle(new Point(0, 0), 1, 'c')));
+    }
+
+    @Test
+    public void testIsInsideNullPoint() {
+        assertThrows(IllegalArgumentException.class, () -> new Composite('g').isInside(null));
+    }
+
+    /**
+     * A group counting the copies made of it.
+     */
+    private static final class CountedGroup extends Composite {
+        private static int copies;
+
+        CountedGroup(char color) {
+            super(color);
+        }
+
+        @Override
+        public Composite copy() {
+            copies++;
+            return super.copy();
+        }
+    }
+
+    private static void leaves(Shape shape, List<Shape> leaves) {
+        if (shape instanceof Composite group) {
+            for (Component child : group.getChildren()) {
+                leaves(child, leaves);
+            }
+        } else {
+            leaves.add(shape);
+        }
+    }
+
+    @Test
+    public void testDeepGroupsSameAsTheirShapes() {
+        Random random = new Random(18);
+        Composite root = new Composite('g');
+        for (int round = 0; round < 20; round++) {
+            Composite level = new Composite('g');
+            Composite top = level;
+            for (int depth = 0; depth < 12; depth++) {
+                for (int i = random.nextInt(30); i > 0; i--) {
+                    level.add(randomShape(random, 60));
+                }
+                if (random.nextInt(3) == 0) {
+                    level.move(random.nextInt(7) - 3, random.nextInt(7) - 3);
+                }
+                Composite nested = new Composite('g');
+                level.add(nested);
+                level = nested;
+            }
+            level.add(randomShape(random, 60));
+            root.add(top);
+            // Queried between changes, so that the indexes are updated rather than built again.
+            root.isInside(30, 30);
+            switch (random.nextInt(3)) {
+                case 0 -> root.move(random.nextInt(5) - 2, random.nextInt(5) - 2);
+                case 1 -> root.move(random.nextDouble() - 0.5, 0.25);
+                default -> {
+                }
+            }
+            List<Shape> shapes = new ArrayList<>();
+            leaves(root, shapes);
+            Bounds bounds = Bounds.EMPTY;
+            for (Shape shape : shapes) {
+                bounds = bounds.union(shape.bounds());
+            }
+            // Moving the union instead of each shape may round differently.
+            assertEquals(bounds.getMinX(), root.bounds().getMinX(), 1e-9);
+            assertEquals(bounds.getMinY(), root.bounds().getMinY(), 1e-9);
+            assertEquals(bounds.getMaxX(), root.bounds().getMaxX(), 1e-9);
+            assertEquals(bounds.getMaxY(), root.bounds().getMaxY(), 1e-9);
+            for (int y = -10; y < 80; y++) {
+                boolean[] covered = new boolean[90];
+                int row = y;
+                root.spans(y, -10, 79, (from, to) -> {
+                    for (int x = from; x <= to; x++) {
+                        covered[x + 10] = true;
+                    }
+                });
+                for (int x = -10; x < 80; x++) {
+                    int column = x;
+                    boolean inside = shapes.stream().anyMatch(shape -> shape.isInside(column, row));
+                    assertEquals(inside, root.isInside(x, y), "(" + x + ", " + y + ")");
+                    assertEquals(inside, covered[x + 10], "(" + x + ", " + y + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMoveDoesNotCopyChildren() {
+        Composite group = new Composite('g');
+        for (int i = 0; i < 1000; i++) {
+            CountedGroup child = new CountedGroup('c');
+            child.add(new Rectangle(new Point(i, i % 10), 1, 1, 'r'));
+            group.add(child);
+        }
+        CountedGroup.copies = 0;
+        for (int i = 0; i < 100; i++) {
+            group.move(1, 2);
+        }
+        assertTrue(group.isInside(new Point(100, 200)));
+        assertFalse(group.isInside(new Point(99, 200)));
+        assertEquals(new Bounds(100, 200, 1100, 210), group.bounds());
+        assertEquals(0, CountedGroup.copies);
+        assertEquals(new Bounds(100, 200, 101, 201), group.getChildren().get(0).bounds());
+        assertEquals(1000, CountedGroup.copies);
+    }
+
+    @Test
+    public void testAddAfterMove() {
+        Rectangle first = new Rectangle(new Point(0, 0), 2, 2, 'a');
+        Composite group = new Composite('g');
+        group.add(first);
+        group.move(0.5, 0.5);
+        group.add(new Rectangle(new Point(0, 0), 1, 1, 'b'));
+        assertEquals(new Bounds(0, 0, 2.5, 2.5), group.bounds());
+        assertEquals(new Bounds(0.5, 0.5, 2.5, 2.5), group.getChildren().get(0).bounds());
+        assertEquals(new Bounds(0, 0, 2, 2), first.bounds());
+        assertTrue(group.isInside(0, 0));
+        assertTrue(group.isInside(2.5, 2.5));
+    }
+
+    @Test
+    public void testDescendantCount() {
+        Composite inner = new Composite('i');
+        inner.add(new Circle(new Point(1, 1), 1, 'c'));
+        inner.add(new Circle(new Point(5, 5), 1, 'c'));
+        Composite outer = new Composite('o');
+        outer.add(new Rectangle(new Point(0, 0), 2, 2, 'r'));
+        outer.add(inner);
+        assertEquals(2, inner.getDescendantCount());
+        assertEquals(4, outer.getDescendantCount());
+        outer.move(3, 2);
+        Composite copy = outer.copy();
+        copy.add(new Circle(new Point(9, 9), 1, 'c'));
+        assertEquals(4, outer.getDescendantCount());
+        assertEquals(5, copy.getDescendantCount());
+        assertEquals(0, new Composite('e').getDescendantCount());
+    }
+}
@@ -0,0 +1,189 @@
+package g56583.atl.ascii.controller;
+
+import g56583.atl.ascii.DesignPattern.Command.Add;
+import g56583.atl.ascii.model.AsciiPaint;
+import g56583.atl.ascii.model.Circle;
+import g56583.atl.ascii.model.Point;
+import g56583.atl.ascii.model.SharedPaint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderServerTest {
+    private RenderServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void start() throws IOException {
+        server = new RenderServer(new InetSocketAddress("localhost", 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop(0);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send(request(path).GET().build());
+    }
+
+    private HttpResponse<String> post(String path, String script) throws IOException, InterruptedException {
+        return send(request(path).POST(HttpRequest.BodyPublishers.ofString(script)).build());
+    }
+
+    @Test
+    public void testCreateRunAndRender() throws IOException, InterruptedException {
+        HttpResponse<String> created = send(request("/drawings/first?width=20&height=10")
+                .PUT(HttpRequest.BodyPublishers.noBody()).build());
+        assertEquals(201, created.statusCode());
+        HttpResponse<String> run = post("/drawings/first", """
+                add circle 5 5 3 c
+                add rectangle 10 1 4 2 r
+                move 0 2 -1
+                """);
+        assertEquals(200, run.statusCode());
+        assertEquals("", run.body());
+        AsciiPaint expected = new AsciiPaint(20, 10);
+        expected.newCircle(5, 5, 3, 'C');
+        expected.newRectangle(10, 1, 4, 2, 'R');
+        expected.moveShape(0, 2, -1);
+        HttpResponse<String> rendered = get("/drawings/first");
+        assertEquals(200, rendered.statusCode());
+        assertEquals(expected.asAscii(), rendered.body());
+        assertEquals("first\n", get("/drawings").body());
+    }
+
+    @Test
+    public void testUndoOverTwoRequests() throws IOException, InterruptedException {
+        server.put("shapes", new AsciiPaint(10, 10));
+        String empty = get("/drawings/shapes").body();
+        post("/drawings/shapes", "add square 1 1 3 a\n");
+        assertNotEquals(empty, get("/drawings/shapes").body());
+        post("/drawings/shapes", "undo\n");
+        assertEquals(empty, get("/drawings/shapes").body());
+    }
+
+    @Test
+    public void testErrorsAndFiles() throws IOException, InterruptedException {
+        server.put("shapes", new AsciiPaint(10, 10));
+        HttpResponse<String> run = post("/drawings/shapes", """
+                add square 1 1 3 a
+                save /tmp/drawing.bin
+                move 7 1 1
+                list
+                """);
+        assertEquals(400, run.statusCode());
+        String[] lines = run.body().split("\n");
+        assertTrue(lines[0].startsWith("Line 2: "));
+        assertTrue(lines[1].startsWith("Line 3: "));
+        assertFalse(lines[2].startsWith("Line "));
+        assertEquals(404, get("/drawings/missing").statusCode());
+        assertEquals(404, get("/drawings/bad.name").statusCode());
+        assertEquals(400, send(request("/drawings/big?width=x")
+                .PUT(HttpRequest.BodyPublishers.noBody()).build()).statusCode());
+        assertEquals(204, send(request("/drawings/shapes").DELETE().build()).statusCode());
+        assertEquals(404, get("/drawings/shapes").statusCode());
+    }
+
+    @Test
+    public void testFrameIsCachedByVersion() throws IOException, InterruptedException {
+        SharedPaint shared = server.put("cached", new AsciiPaint(30, 15));
+        byte[] frame = server.render("cached");
+        assertSame(frame, server.render("cached"));
+        HttpResponse<String> first = get("/drawings/cached");
+        String tag = first.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> same = send(request("/drawings/cached").header("If-None-Match", tag).build());
+        assertEquals(304, same.statusCode());
+        shared.execute(paint -> new Add(paint, new Circle(new Point(5, 5), 3, 'C')));
+        assertNotSame(frame, server.render("cached"));
+        HttpResponse<String> changed = send(request("/drawings/cached").header("If-None-Match", tag).build());
+        assertEquals(200, changed.statusCode());
+        assertNotEquals(tag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    public void testReplacedDrawingHasNewTag() throws IOException, InterruptedException {
+        server.put("replaced", new AsciiPaint(10, 5));
+        String tag = get("/drawings/replaced").headers().firstValue("ETag").orElseThrow();
+        AsciiPaint other = new AsciiPaint(10, 5);
+        other.newSquare(1, 1, 2, 's');
+        server.put("replaced", other);
+        HttpResponse<String> changed = send(request("/drawings/replaced").header("If-None-Match", tag).build());
+        assertEquals(200, changed.statusCode());
+        assertEquals(other.asAscii(), changed.body());
+        assertNotEquals(tag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    public void testSizesAreLimited() throws IOException, InterruptedException {
+        assertEquals(400, send(request("/drawings/huge?width=100000&height=100000")
+                .PUT(HttpRequest.BodyPublishers.noBody()).build()).statusCode());
+        assertEquals(404, get("/drawings/huge").statusCode());
+        assertEquals(201, send(request("/drawings/wide?width=4194304&height=1")
+                .PUT(HttpRequest.BodyPublishers.noBody()).build()).statusCode());
+        server.put("small", new AsciiPaint(10, 10));
+        assertEquals(400, get("/drawings/small?width=65536&height=65536").statusCode());
+        assertEquals(400, get("/drawings/small?width=2000000000&height=2000000000").statusCode());
+        HttpResponse<String> run = post("/drawings/small", """
+                create 100000 100000
+                view 0 0 100000 100000
+                """);
+        assertEquals(400, run.statusCode());
+        assertEquals(2, run.body().split("\n").length);
+        assertEquals(10, get("/drawings/small").body().indexOf('\n'));
+    }
+
+    @Test
+    public void testConcurrentRenders() throws IOException, InterruptedException {
+        AsciiPaint paint = new AsciiPaint(60, 30);
+        for (int i = 0; i < 50; i++) {
+            paint.newCircle(i % 60, i * 7 % 30, 2 + i % 5, (char) ('A' + i % 26));
+        }
+        String expected = paint.asAscii();
+        server.put("busy", paint);
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            responses.add(client.sendAsync(request("/drawings/busy").build(), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            HttpResponse<String> answer = response.join();
+            assertEquals(200, answer.statusCode());
+            assertEquals(expected, answer.body());
+        }
+    }
+
+    @Test
+    public void testWindow() throws IOException, InterruptedException {
+        server.put("large", new AsciiPaint(400, 200));
+        post("/drawings/large", "add rectangle 0 0 199 199 a\n");
+        HttpResponse<String> window = get("/drawings/large?x=190&y=10&width=20&height=1");
+        assertEquals(200, window.statusCode());
+        assertEquals("A".repeat(10) + " ".repeat(10) + "\n", window.body());
+        HttpResponse<String> zoomed = get("/drawings/large?scale=100");
+        assertEquals("AA  \nAA  \n", zoomed.body());
+        assertEquals(400, get("/drawings/large?scale=0").statusCode());
+        assertEquals(400, get("/drawings/large?width=-1").statusCode());
+    }
+}
@@ -0,0 +1,138 @@
+package g56583.atl.ascii.controller;
+
+import g56583.atl.ascii.model.AsciiPaint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptRunnerTest {
+
+    @TempDir
+    Path directory;
+
+    private static String run(AsciiPaint paint, String script) throws IOException {
+        StringBuilder out = new StringBuilder();
+        new ScriptRunner(paint, out).run(new StringReader(script));
+        return out.toString();
+    }
+
+    @Test
+    public void testCommandsAreSilentUntilShow() throws IOException {
+        AsciiPaint paint = new AsciiPaint();
+        String out = run(paint, """
+                create 20 10
+                add circle 5 5 3 c
+                add rectangle 10 1 4 2 r
+                add line 0 9 19 9 l
+                move 0 2 -1
+                color 1 x
+                """);
+        assertEquals("", out);
+        AsciiPaint expected = new AsciiPaint(20, 10);
+        expected.newCircle(5, 5, 3, 'C');
+        expected.newRectangle(10, 1, 4, 2, 'R');
+        expected.newLine(0, 9, 19, 9, 'L');
+        expected.moveShape(0, 2, -1);
+        expected.changeShapeColor(1, 'X');
+        assertEquals(expected.asAscii(), paint.asAscii());
+        assertEquals(expected.asAscii() + "\n", run(paint, "show\n"));
+    }
+
+    @Test
+    public void testGroupUndoAndRedo() throws IOException {
+        AsciiPaint paint = new AsciiPaint(10, 10);
+        ScriptRunner runner = new ScriptRunner(paint, new StringBuilder());
+        runner.run(new StringReader("""
+                add square 1 1 2 a
+                add square 5 5 2 b
+                add circle 3 3 1 c
+                group 0 1
+                undo
+                redo
+                color 1 g
+                """));
+        assertEquals(1, paint.getShapes().size());
+        assertEquals(1, paint.getComponents().size());
+        assertEquals('G', paint.getColorOfShape(1));
+        runner.run(new StringReader("undo\nundo\n"));
+        assertEquals(3, paint.getShapes().size());
+    }
+
+    @Test
+    public void testCommentsBlankLinesAndSpaces() throws IOException {
+        AsciiPaint paint = new AsciiPaint(10, 5);
+        String out = run(paint, "# a comment\n\n   \r\n  add   square 1 1 2 s  \r\nADD Circle 7 2 1.5 c\n# end");
+        assertEquals("", out);
+        assertEquals(2, paint.getShapes().size());
+    }
+
+    @Test
+    public void testErrorsGiveTheLineAndGoOn() throws IOException {
+        AsciiPaint paint = new AsciiPaint(10, 5);
+        StringBuilder out = new StringBuilder();
+        ScriptRunner runner = new ScriptRunner(paint, out);
+        runner.run(new StringReader("""
+                add circle 1 1 1 c
+                add circle x 1 1 c
+                draw
+                add square 1 1 2 s extra
+                move 7 1 1
+                add triangle 1 1 1 t
+                color 0 1
+                add square 2 2 2 s
+                """));
+        assertEquals(2, paint.getShapes().size());
+        assertEquals(6, runner.getErrors());
+        String[] lines = out.toString().split("\n");
+        assertEquals(6, lines.length);
+        assertTrue(lines[0].startsWith("Line 2: "));
+        assertEquals("Line 3: Invalid command: draw", lines[1]);
+        assertEquals("Line 4: Too many parameters", lines[2]);
+        assertTrue(lines[3].startsWith("Line 5: "));
+        assertTrue(lines[4].startsWith("Line 6: "));
+        assertTrue(lines[5].startsWith("Line 7: "));
+    }
+
+    @Test
+    public void testExitStopsTheScript() throws IOException {
+        AsciiPaint paint = new AsciiPaint(10, 5);
+        run(paint, "add square 1 1 2 s\nexit\nadd square 3 3 1 t\n");
+        assertEquals(1, paint.getShapes().size());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        Path file = directory.resolve("Drawing.bin");
+        AsciiPaint paint = new AsciiPaint(12, 6);
+        run(paint, "add circle 4 3 2 c\nsave " + file + "\n");
+        assertTrue(Files.exists(file));
+        AsciiPaint other = new AsciiPaint();
+        run(other, "load " + file + "\n");
+        assertEquals(paint.asAscii(), other.asAscii());
+    }
+
+    @Test
+    public void testList() throws IOException {
+        AsciiPaint paint = new AsciiPaint(10, 5);
+        String out = run(paint, "add square 1 1 2 s\nlist\n");
+        assertEquals(paint.getShapesList() + "\n", out);
+    }
+
+    @Test
+    public void testView() throws IOException {
+        AsciiPaint paint = new AsciiPaint(8, 4);
+        String out = run(paint, """
+                add rectangle 0 0 3 4 a
+                add line 7 0 7 0 c
+                view 1 1 3 2
+                view 0 0 2 1 4
+                """);
+        assertEquals("AAA\nAAA\n\nAC\n\n", out);
+    }
+}
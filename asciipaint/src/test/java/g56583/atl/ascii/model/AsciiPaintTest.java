@@ -2,6 +2,7 @@ package g56583.atl.ascii.model;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import g56583.atl.ascii.DesignPattern.Command.Group;
 import g56583.atl.ascii.DesignPattern.Composite.Component;
 import g56583.atl.ascii.DesignPattern.Composite.Composite;
 import org.junit.jupiter.api.BeforeEach;
@@ -262,8 +263,9 @@ class AsciiPaintTest {
         int groupIndex = asciiPaint.getShapes().size() + asciiPaint.getDrawing().getComponents().indexOf(group);
         asciiPaint.changeShapeColor(groupIndex, 'H');
 
-        char updatedColor = group.getColor();
+        char updatedColor = asciiPaint.getColorOfShape(groupIndex);
         assertEquals('H', updatedColor);
+        assertEquals('G', group.getColor());
     }
 
     /**
@@ -464,5 +466,34 @@ class AsciiPaintTest {
         assertTrue(asciiPaint.getDrawing().getShapes().contains(square));
     }
 
-
-}
\ No newline at end of file
+    @Test
+    public void testRecreateGroupUndoneAgain() {
+        asciiPaint.newCircle(1, 1, 1, 'C');
+        asciiPaint.newSquare(3, 3, 2, 'S');
+        asciiPaint.newLine(0, 0, 4, 0, 'L');
+        Group group = new Group(asciiPaint, new String[]{"1", "2"});
+        group.execute();
+        group.undo();
+        group.redo();
+        assertEquals(1, asciiPaint.getShapes().size());
+        assertEquals(1, asciiPaint.getComponents().size());
+        group.undo();
+        assertEquals(3, asciiPaint.getShapes().size());
+        assertTrue(asciiPaint.getComponents().isEmpty());
+    }
+
+    @Test
+    public void testUnchangedDrawingIsKept() {
+        AsciiPaint paint = new AsciiPaint(20, 10);
+        paint.newCircle(5, 5, 3, 'C');
+        String ascii = paint.asAscii();
+        String list = paint.getShapesList();
+        assertSame(ascii, paint.asAscii());
+        assertSame(list, paint.getShapesList());
+        paint.changeShapeColor(0, 'X');
+        assertNotEquals(ascii, paint.asAscii());
+        assertNotEquals(list, paint.getShapesList());
+        paint.createNewDrawing(20, 10);
+        assertEquals("List of Shapes:\n", paint.getShapesList());
+    }
+}
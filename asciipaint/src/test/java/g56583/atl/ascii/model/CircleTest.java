@@ -1,6 +1,9 @@
 package g56583.atl.ascii.model;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CircleTest {
@@ -29,6 +32,16 @@ class CircleTest {
         assertTrue(circle.isInside(new Point(5, 4)));
         assertFalse(circle.isInside(new Point(10, 10)));
     }
+    @Test
+    public void testIsInsideCoordinates() {
+        Circle circle = new Circle(new Point(5, 5), 2.5, 'c');
+        assertTrue(circle.isInside(7.5, 5));
+        assertFalse(circle.isInside(7, 7));
+        for (int x = 0; x < 10; x++) {
+            assertEquals(circle.isInside(new Point(x, 3)), circle.isInside(x, 3));
+        }
+    }
+
     @Test
     public void testCreateCircleNullCenter() {
         System.out.println("testCreateCircleNullCenter");
@@ -55,4 +68,29 @@ class CircleTest {
 
         assertNotSame(originalCircle, copiedCircle);
     }
-}
\ No newline at end of file
+    @Test
+    public void testIntegerCellsSameAsDistance() {
+        Random random = new Random(23);
+        for (int round = 0; round < 200; round++) {
+            double radius = 0.5 + random.nextInt(40) + (random.nextBoolean() ? 0 : random.nextDouble());
+            Circle circle = new Circle(new Point(random.nextInt(40) - 20, random.nextInt(40) - 20), radius, 'R');
+            for (int y = -70; y <= 70; y++) {
+                StringBuilder expected = new StringBuilder();
+                StringBuilder actual = new StringBuilder();
+                for (int x = -70; x <= 70; x++) {
+                    double dx = x - circle.getCenter().getX();
+                    double dy = y - circle.getCenter().getY();
+                    expected.append(dx * dx + dy * dy <= radius * radius ? 'R' : ' ');
+                    actual.append(circle.isInside(x, y) ? 'R' : ' ');
+                }
+                int row = y;
+                circle.spans(y, -70, 70, (from, to) -> {
+                    for (int x = from; x <= to; x++) {
+                        assertTrue(circle.isInside(x, row));
+                    }
+                });
+                assertEquals(expected.toString(), actual.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static g56583.atl.ascii.model.SampleDrawings.randomComponent;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverageTest {
+
+    @Test
+    public void testAreaAndOverlapSameAsCells() {
+        Random random = new Random(24);
+        for (int round = 0; round < 200; round++) {
+            Shape first = randomComponent(random, 40, 4);
+            Shape second = randomComponent(random, 40, 4);
+            long area = 0;
+            long overlap = 0;
+            for (int y = -30; y <= 80; y++) {
+                for (int x = -30; x <= 80; x++) {
+                    if (first.isInside(x, y)) {
+                        area++;
+                        if (second.isInside(x, y)) {
+                            overlap++;
+                        }
+                    }
+                }
+            }
+            assertEquals(area, Coverage.area(first));
+            assertEquals(area, first.cells().count());
+            assertEquals(overlap, Coverage.overlap(first, second));
+            assertEquals(overlap, Coverage.overlap(second, first));
+        }
+    }
+
+    @Test
+    public void testAreaByColorSameAsRendering() {
+        Random random = new Random(24);
+        for (int round = 0; round < 30; round++) {
+            Drawing drawing = new Drawing(30 + random.nextInt(30), 30 + random.nextInt(30));
+            for (int i = 0; i < 15; i++) {
+                Component shape = randomComponent(random, 40, 4);
+                if (shape instanceof Composite group) {
+                    if (random.nextInt(3) == 0) {
+                        group.setColor(' ');
+                    }
+                    drawing.addComponent(group);
+                } else {
+                    drawing.addShape(shape);
+                }
+            }
+            drawing.getTable().addCircle(20, 20, 6, 'z');
+            Map<Character, Long> expected = new TreeMap<>();
+            for (char color : new Rasterizer(drawing).render().toCharArray()) {
+                if (color != ' ' && color != '\n') {
+                    expected.merge(color, 1L, Long::sum);
+                }
+            }
+            assertEquals(expected, Coverage.areaByColor(drawing));
+        }
+    }
+
+    @Test
+    public void testVisibleArea() {
+        Drawing drawing = new Drawing(10, 3);
+        Shape back = new Rectangle(new Point(0, 0), 5, 0, 'b');
+        Shape front = new Rectangle(new Point(3, 0), 4, 1, 'f');
+        Shape hidden = new Line(new Point(4, 1), new Point(5, 1), 'h');
+        drawing.addShape(back);
+        drawing.addShape(hidden);
+        drawing.addShape(front);
+        Composite blank = new Composite(' ');
+        blank.add(new Rectangle(new Point(0, 2), 9, 0, 'x'));
+        drawing.addComponent(blank);
+        drawing.getTable().addRectangle(0, 2, 9, 1, 't');
+
+        Map<Shape, Long> areas = Coverage.visibleArea(drawing);
+        assertEquals(3, areas.get(back));
+        assertEquals(10, areas.get(front));
+        assertNull(areas.get(hidden));
+        assertNull(areas.get(blank));
+        assertEquals(2, areas.size());
+        assertEquals(Map.of('b', 3L, 'f', 10L, 't', 10L), Coverage.areaByColor(drawing));
+    }
+}
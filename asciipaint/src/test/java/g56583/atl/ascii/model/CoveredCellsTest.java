@@ -0,0 +1,72 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoveredCellsTest {
+
+    private static List<Long> cells(CoveredCells iterator) {
+        List<Long> cells = new ArrayList<>();
+        iterator.forEachRemaining((long cell) -> cells.add(cell));
+        return cells;
+    }
+
+    @Test
+    public void testRowsThenColumnsOnce() {
+        Composite group = new Composite('g');
+        group.add(new Rectangle(new Point(0, 0), 2, 1, 'a'));
+        group.add(new Rectangle(new Point(1, 1), 2, 0, 'b'));
+        group.add(new Line(new Point(-2, 1), new Point(-1, 1), 'c'));
+        List<Long> expected = new ArrayList<>();
+        for (int x = 0; x <= 2; x++) {
+            expected.add(CoveredCells.pack(x, 0));
+        }
+        for (int x = -2; x <= 3; x++) {
+            expected.add(CoveredCells.pack(x, 1));
+        }
+        assertEquals(expected, cells(new CoveredCells(group)));
+    }
+
+    @Test
+    public void testSameAsIsInside() {
+        Circle circle = new Circle(new Point(3.5, -2.25), 6.3, 'c');
+        List<Long> expected = new ArrayList<>();
+        for (int y = -20; y <= 20; y++) {
+            for (int x = -20; x <= 20; x++) {
+                if (circle.isInside(x, y) && x >= 0 && y <= 1) {
+                    expected.add(CoveredCells.pack(x, y));
+                }
+            }
+        }
+        assertEquals(expected, cells(new CoveredCells(circle, 0, -100, 100, 1)));
+    }
+
+    @Test
+    public void testPackNegativeCells() {
+        long cell = CoveredCells.pack(-7, -3);
+        assertEquals(-7, CoveredCells.x(cell));
+        assertEquals(-3, CoveredCells.y(cell));
+    }
+
+    @Test
+    public void testEmptyAndUnbounded() {
+        CoveredCells none = new CoveredCells(new Composite('g'));
+        assertFalse(none.hasNext());
+        assertThrows(NoSuchElementException.class, none::nextLong);
+        Shape plane = new Rectangle(new Point(0, 0), 1, 1, 'p') {
+            @Override
+            public Bounds bounds() {
+                return Bounds.INFINITE;
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> new CoveredCells(plane));
+        assertEquals(4, cells(new CoveredCells(plane, -5, -5, 5, 5)).size());
+        assertThrows(IllegalArgumentException.class, () -> new CoveredCells(null));
+    }
+}
@@ -0,0 +1,204 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrawingFileTest {
+
+    @TempDir
+    Path directory;
+
+    private static Drawing sampleDrawing() {
+        Drawing drawing = new Drawing(40, 30);
+        drawing.addShape(new Circle(new Point(10.5, 12), 6.25, 'C'));
+        drawing.addShape(new Rectangle(new Point(2, 3), 7, 4.5, 'R'));
+        drawing.addShape(new Square(new Point(25, 20), 5, 'S'));
+        drawing.addShape(new Line(new Point(0, 29), new Point(39, 0), 'L'));
+        drawing.addShape(new Line(new Point(5, 27), new Point(30, 27), 'H'));
+        Composite inner = new Composite('i');
+        inner.add(new Circle(new Point(30, 8), 3, 'c'));
+        Composite outer = new Composite('o');
+        outer.add(new Rectangle(new Point(18, 2), 3, 3, 'r'));
+        outer.add(inner);
+        drawing.addComponent(outer);
+        Composite blank = new Composite(' ');
+        blank.add(new Square(new Point(1, 20), 6, 's'));
+        drawing.addComponent(blank);
+        return drawing;
+    }
+
+    private static String shapesList(Drawing drawing) {
+        AsciiPaint paint = new AsciiPaint();
+        paint.setDrawing(drawing);
+        return paint.getShapesList();
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        Drawing drawing = sampleDrawing();
+        Path file = directory.resolve("drawing.bin");
+        DrawingFile.save(drawing, file);
+        Drawing loaded = DrawingFile.load(file);
+        assertEquals(drawing.getWidth(), loaded.getWidth());
+        assertEquals(drawing.getHeight(), loaded.getHeight());
+        assertEquals(new Rasterizer(drawing).render(), new Rasterizer(loaded).render());
+        assertEquals(shapesList(drawing), shapesList(loaded));
+        assertInstanceOf(Square.class, loaded.getShapes().get(2));
+        Composite outer = (Composite) loaded.getComponents().get(0);
+        assertInstanceOf(Composite.class, outer.getChildren().get(1));
+    }
+
+    @Test
+    public void testLoadLazy() throws IOException {
+        Drawing drawing = sampleDrawing();
+        Path file = directory.resolve("drawing.bin");
+        DrawingFile.save(drawing, file);
+        Drawing loaded = DrawingFile.loadLazy(file);
+        assertEquals(shapesList(drawing), shapesList(loaded));
+        for (int i = 0; i < drawing.getShapes().size(); i++) {
+            assertEquals(drawing.getShapes().get(i).bounds(), loaded.getShapes().get(i).bounds());
+        }
+        assertEquals(new Rasterizer(drawing).render(), new Rasterizer(loaded).render());
+    }
+
+    @Test
+    public void testLazyShapesCanBeChanged() throws IOException {
+        Drawing drawing = sampleDrawing();
+        Path file = directory.resolve("drawing.bin");
+        DrawingFile.save(drawing, file);
+        Drawing loaded = DrawingFile.loadLazy(file);
+        for (Drawing target : new Drawing[]{drawing, loaded}) {
+            target.recolorShape(1, 'X');
+            target.moveShape(0, 3, -2);
+            target.recolorComponent(0, 'Y');
+        }
+        assertEquals(new Rasterizer(drawing).render(), new Rasterizer(loaded).render());
+        Path again = directory.resolve("again.bin");
+        DrawingFile.save(loaded, again);
+        assertEquals(new Rasterizer(drawing).render(), new Rasterizer(DrawingFile.load(again)).render());
+    }
+
+    @Test
+    public void testSaveLazyDrawingOnItsFile() throws IOException {
+        Drawing drawing = sampleDrawing();
+        Path file = directory.resolve("drawing.bin");
+        DrawingFile.save(drawing, file);
+        Drawing loaded = DrawingFile.loadLazy(file);
+        loaded.recolorShape(1, 'X');
+        drawing.recolorShape(1, 'X');
+        DrawingFile.save(loaded, file);
+        assertEquals(new Rasterizer(drawing).render(), new Rasterizer(loaded).render());
+        assertEquals(new Rasterizer(drawing).render(), new Rasterizer(DrawingFile.load(file)).render());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testSaveAndLoadTable() throws IOException {
+        Drawing drawing = sampleDrawing();
+        ShapeTable table = drawing.getTable();
+        table.addCircle(20, 15, 4.5, 't');
+        table.addRectangle(1, 1, 30, 2, 'u');
+        table.addLine(0, 0, 39, 29, 'v');
+        Path file = directory.resolve("drawing.bin");
+        DrawingFile.save(drawing, file);
+        Drawing loaded = DrawingFile.load(file);
+        assertEquals(drawing.getShapes().size(), loaded.getShapes().size());
+        assertEquals(drawing.getComponents().size(), loaded.getComponents().size());
+        assertEquals(3, loaded.getTable().size());
+        assertEquals(shapesList(drawing), shapesList(loaded));
+        assertEquals(new Rasterizer(drawing).render(), new Rasterizer(loaded).render());
+        assertEquals('u', loaded.getTable().get(1).getColor());
+    }
+
+    @Test
+    public void testEmptyDrawing() throws IOException {
+        Path file = directory.resolve("empty.bin");
+        DrawingFile.save(new Drawing(3, 2), file);
+        Drawing loaded = DrawingFile.load(file);
+        assertEquals("   \n   \n", new Rasterizer(loaded).render());
+    }
+
+    @Test
+    public void testLoadNotADrawingFile() throws IOException {
+        Path file = directory.resolve("text.txt");
+        Files.writeString(file, "not a drawing at all");
+        assertThrows(IOException.class, () -> DrawingFile.load(file));
+    }
+
+    @Test
+    public void testLoadTruncatedFile() throws IOException {
+        Path file = directory.resolve("drawing.bin");
+        DrawingFile.save(sampleDrawing(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+        assertThrows(IOException.class, () -> DrawingFile.load(file));
+    }
+
+    @Test
+    public void testLoadCorruptedRecords() throws IOException {
+        Path file = directory.resolve("drawing.bin");
+        DrawingFile.save(sampleDrawing(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        int first = 7 * Integer.BYTES;
+        byte[] tag = bytes.clone();
+        tag[first] = 42;
+        byte[] radius = bytes.clone();
+        ByteBuffer.wrap(radius).putDouble(first + 19, 0);
+        byte[] trailing = Arrays.copyOf(bytes, bytes.length + 1);
+        byte[] group = bytes.clone();
+        int groupRecord = first + 2 * 27 + 3 * 35;
+        assertEquals(5, group[groupRecord]);
+        ByteBuffer.wrap(group).putInt(groupRecord + 3, ByteBuffer.wrap(group).getInt(groupRecord + 3) - 1);
+        for (byte[] corrupted : List.of(tag, radius, trailing, group)) {
+            Files.write(file, corrupted);
+            assertThrows(IOException.class, () -> DrawingFile.loadLazy(file));
+            assertThrows(IOException.class, () -> DrawingFile.load(file));
+        }
+    }
+
+    @Test
+    public void testSaveUnknownShape() throws IOException {
+        Drawing drawing = new Drawing(5, 5);
+        drawing.addShape(new Component('u') {
+            @Override
+            public void move(double dx, double dy) {
+            }
+
+            @Override
+            public boolean isInside(double x, double y) {
+                return false;
+            }
+
+            @Override
+            public Bounds bounds() {
+                return Bounds.EMPTY;
+            }
+
+            @Override
+            public Component copy() {
+                return this;
+            }
+        });
+        Path file = directory.resolve("u.bin");
+        Files.writeString(file, "previous content");
+        assertThrows(IllegalArgumentException.class, () -> DrawingFile.save(drawing, file));
+        assertEquals("previous content", Files.readString(file));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
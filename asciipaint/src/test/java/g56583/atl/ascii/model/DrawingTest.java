@@ -1,8 +1,12 @@
 package g56583.atl.ascii.model;
 
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class DrawingTest {
@@ -100,4 +104,190 @@ class DrawingTest {
         drawing.removeShape(nonExistingShape);
         assertEquals(0, drawing.getShapes().size());
     }
+    @Test
+    public void testGetShapeAtAfterMove() {
+        drawing.addShape(circle);
+        drawing.addShape(rectangle);
+        drawing.moveShape(1, 100, 100);
+        assertEquals(circle, drawing.getShapeAt(new Point(7, 7)));
+        assertEquals(drawing.getShapes().get(1), drawing.getShapeAt(new Point(107, 107)));
+        assertNull(drawing.getShapeAt(new Point(2, 2)));
+    }
+    @Test
+    public void testGetShapeAtAfterRemoveAndInsert() {
+        drawing.addShape(circle);
+        drawing.addShape(rectangle);
+        drawing.removeShape(1);
+        assertEquals(circle, drawing.getShapeAt(new Point(7, 7)));
+        drawing.addShapeAt(0, rectangle);
+        assertEquals(circle, drawing.getShapeAt(new Point(7, 7)));
+        assertEquals(rectangle, drawing.getShapeAt(new Point(5, 5)));
+    }
+    @Test
+    public void testGetShapesIsReadOnly() {
+        drawing.addShape(circle);
+        assertThrows(UnsupportedOperationException.class, () -> drawing.getShapes().remove(0));
+    }
+    @Test
+    public void testSnapshotIsNotChangedByTheDrawing() {
+        drawing.addShape(circle);
+        drawing.addShape(rectangle);
+        Composite group = new Composite('G');
+        group.add(new Square(new Point(0, 0), 3, 's'));
+        drawing.addComponent(group);
+        String before = new Rasterizer(drawing).render();
+        Drawing snapshot = drawing.snapshot();
+        drawing.moveShape(0, 3, 1);
+        drawing.recolorShape(1, 'X');
+        drawing.moveComponent(0, 10, 10);
+        drawing.recolorComponent(0, 'Y');
+        drawing.addShape(new Line(new Point(0, 19), new Point(19, 0), 'L'));
+        drawing.removeShape(0);
+        assertEquals(before, new Rasterizer(snapshot).render());
+        assertSame(circle, snapshot.getShapes().get(0));
+        assertEquals('B', rectangle.getColor());
+        assertEquals(new Bounds(0, 0, 3, 3), group.bounds());
+    }
+    @Test
+    public void testSnapshotIsNotChangedFromOutside() {
+        drawing.addShape(circle);
+        Composite group = new Composite('G');
+        Square square = new Square(new Point(0, 0), 3, 's');
+        group.add(square);
+        drawing.addComponent(group);
+        String before = new Rasterizer(drawing).render();
+        Drawing snapshot = drawing.snapshot();
+        assertThrows(IllegalStateException.class, () -> circle.move(5, 5));
+        assertThrows(IllegalStateException.class, () -> ((Circle) circle).setColor('X'));
+        assertThrows(IllegalStateException.class, () -> snapshot.getShapes().get(0).move(5, 5));
+        assertThrows(IllegalStateException.class, () -> group.move(5, 5));
+        assertThrows(IllegalStateException.class, () -> group.add(new Circle(new Point(9, 9), 2, 'c')));
+        assertThrows(IllegalStateException.class, () -> square.move(5, 5));
+        drawing.moveComponent(0, 4, 4);
+        Composite moved = (Composite) drawing.getComponents().get(0);
+        assertThrows(IllegalStateException.class, () -> moved.getChildren().get(0).move(1, 1));
+        assertEquals(before, new Rasterizer(snapshot).render());
+        Shape copy = circle.copy();
+        copy.move(5, 5);
+        assertEquals(circle.bounds().translate(5, 5), copy.bounds());
+    }
+    @Test
+    public void testDrawingIsNotChangedBySnapshot() {
+        drawing.addShape(circle);
+        drawing.addShape(rectangle);
+        String before = new Rasterizer(drawing).render();
+        Drawing snapshot = drawing.snapshot();
+        snapshot.moveShape(1, 5, 5);
+        snapshot.removeShape(0);
+        assertEquals(before, new Rasterizer(drawing).render());
+        assertEquals(2, drawing.getShapes().size());
+        assertEquals(rectangle, drawing.getShapeAt(new Point(7, 7)));
+        assertEquals(1, snapshot.getShapes().size());
+    }
+    @Test
+    public void testSnapshotOfSnapshot() {
+        drawing.addShape(circle);
+        Drawing first = drawing.snapshot();
+        drawing.addShape(rectangle);
+        Drawing second = drawing.snapshot();
+        drawing.removeShape(0);
+        assertEquals(1, first.getShapes().size());
+        assertEquals(2, second.getShapes().size());
+        assertEquals(1, drawing.getShapes().size());
+        assertEquals(new Rasterizer(second).render(), new Rasterizer(second.snapshot()).render());
+    }
+
+    @Test
+    public void testDepthAfterManyInsertions() {
+        Drawing drawing = new Drawing(3, 1);
+        Shape front = new Rectangle(new Point(0, 0), 1, 0, 'F');
+        drawing.addShape(front);
+        drawing.addShape(new Line(new Point(2, 0), new Point(2, 0), 'L'));
+        Drawing snapshot = null;
+        for (int i = 0; i < 500; i++) {
+            char color = (char) ('a' + i % 26);
+            drawing.addShapeAt(Math.min(i, 1), new Rectangle(new Point(0, 0), 1, 0, color));
+            if (i == 250) {
+                snapshot = drawing.snapshot();
+            }
+        }
+        drawing.addShapeAt(501, new Line(new Point(0, 0), new Point(0, 0), 'M'));
+        assertEquals("MFL\n", new Rasterizer(drawing).render());
+        assertSame(front, drawing.getShapeAt(new Point(1, 0)));
+        List<Shape> backToFront = new ArrayList<>();
+        for (ShapeIndex.Entry entry : drawing.candidates(0, 0, 2, 0)) {
+            backToFront.add(0, entry.shape);
+        }
+        assertEquals(drawing.getShapes(), backToFront);
+        assertEquals("FFL\n", new Rasterizer(snapshot).render());
+        assertEquals(253, snapshot.getShapes().size());
+    }
+
+    @Test
+    public void testEveryChangeIncreasesTheVersion() {
+        AsciiPaint paint = new AsciiPaint(20, 20);
+        Drawing drawing = paint.getDrawing();
+        long version = drawing.getVersion();
+        paint.addShape(circle);
+        assertTrue(drawing.getVersion() > version);
+        Runnable[] changes = {
+                () -> paint.addShape(rectangle),
+                () -> paint.moveShape(0, 1, 1),
+                () -> paint.changeShapeColor(1, 'X'),
+                () -> paint.createGroup(new ArrayList<>(List.of(0, 1)), 'G'),
+                () -> paint.changeShapeColor(0, 'Y'),
+                () -> paint.ungroupShape(0),
+                () -> paint.removeShape(0),
+        };
+        for (Runnable change : changes) {
+            version = drawing.getVersion();
+            change.run();
+            assertTrue(drawing.getVersion() > version);
+        }
+    }
+
+    @Test
+    public void testSnapshotKeepsTheVersion() {
+        drawing.addShape(circle);
+        Drawing snapshot = drawing.snapshot();
+        assertEquals(drawing.getVersion(), snapshot.getVersion());
+        drawing.moveShape(0, 1, 1);
+        assertEquals(snapshot.getVersion() + 1, drawing.getVersion());
+    }
+
+    @Test
+    public void testShapeIdsAreStable() {
+        drawing.addShape(circle);
+        drawing.addShape(rectangle);
+        long id = drawing.getShapeId(1);
+        assertNotEquals(drawing.getShapeId(0), id);
+        drawing.moveShape(1, 2, 2);
+        assertEquals(id, drawing.getShapeId(1));
+        Drawing snapshot = drawing.snapshot();
+        drawing.removeShape(0);
+        assertEquals(0, drawing.indexOfShape(id));
+        assertEquals(1, snapshot.indexOfShape(id));
+        drawing.removeShape(0);
+        assertEquals(-1, drawing.indexOfShape(id));
+    }
+
+    @Test
+    public void testBatchCountsAsOneChange() {
+        long version = drawing.getVersion();
+        drawing.batch(() -> {
+            drawing.addShapes(circle, rectangle);
+            drawing.moveShape(0, 1, 1);
+            drawing.removeShape(1);
+        });
+        assertEquals(version + 1, drawing.getVersion());
+        assertEquals(1, drawing.getShapes().size());
+        drawing.batch(() -> {
+            drawing.moveShape(0, 1, 1);
+            long seen = drawing.getVersion();
+            drawing.moveShape(0, 1, 1);
+            assertTrue(drawing.getVersion() > seen);
+        });
+        assertThrows(IllegalArgumentException.class, () -> drawing.addShapes(circle, null));
+        assertEquals(1, drawing.getShapes().size());
+    }
 }
@@ -0,0 +1,102 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Command.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameBufferTest {
+
+    private static void assertUpToDate(AsciiPaint paint) {
+        assertEquals(new Rasterizer(paint.getDrawing()).render(), paint.asAscii());
+    }
+
+    @Test
+    public void testRenderAfterEachCommand() {
+        AsciiPaint paint = new AsciiPaint(120, 90);
+        Random random = new Random(3);
+        Deque<Command> undo = new ArrayDeque<>();
+        for (int i = 0; i < 20; i++) {
+            Command add = new Add(paint, new String[]{"add", "rectangle", "" + random.nextInt(110),
+                    "" + random.nextInt(80), "" + (1 + random.nextInt(9)), "" + (1 + random.nextInt(9)), "r"});
+            add.execute();
+            undo.push(add);
+        }
+        assertUpToDate(paint);
+        for (int i = 0; i < 150; i++) {
+            int shapes = paint.getShapes().size();
+            int groups = paint.getComponents().size();
+            Command command = switch (random.nextInt(7)) {
+                case 0 -> new Add(paint, new String[]{"add", "circle", "" + random.nextInt(120),
+                        "" + random.nextInt(90), "" + (1 + random.nextInt(6)), "c"});
+                case 1 -> shapes > 1 ? new Remove(paint, random.nextInt(shapes)) : null;
+                case 2 -> shapes > 0 ? new Move(paint, random.nextInt(shapes),
+                        random.nextInt(21) - 10, random.nextInt(21) - 10) : null;
+                case 3 -> new Color(paint, new String[]{"color", "" + random.nextInt(shapes + groups),
+                        "" + (char) ('a' + random.nextInt(26))});
+                case 4 -> shapes > 2 ? new Group(paint, new String[]{"" + random.nextInt(shapes / 2),
+                        "" + (shapes / 2 + random.nextInt(shapes - shapes / 2))}) : null;
+                case 5 -> groups > 0 ? new Ungroup(paint, shapes + random.nextInt(groups)) : null;
+                default -> null;
+            };
+            if (command != null) {
+                command.execute();
+                undo.push(command);
+            } else if (!undo.isEmpty()) {
+                undo.pop().undo();
+            }
+            assertUpToDate(paint);
+        }
+    }
+
+    @Test
+    public void testRenderAfterNewDrawing() {
+        AsciiPaint paint = new AsciiPaint(10, 5);
+        paint.newSquare(1, 1, 2, 'S');
+        assertUpToDate(paint);
+        Create create = new Create(paint, 6, 4);
+        create.execute();
+        assertEquals("      \n      \n      \n      \n", paint.asAscii());
+        create.undo();
+        assertUpToDate(paint);
+        assertTrue(paint.asAscii().contains("S"));
+    }
+
+    @Test
+    public void testRenderAfterDirectDrawingChanges() {
+        AsciiPaint paint = new AsciiPaint(40, 40);
+        paint.newCircle(10, 10, 5, 'A');
+        paint.newLine(0, 0, 39, 20, 'L');
+        assertUpToDate(paint);
+        paint.getDrawing().moveShape(0, 15, 15);
+        assertUpToDate(paint);
+        paint.getDrawing().recolorShape(1, 'M');
+        assertUpToDate(paint);
+        paint.getDrawing().removeShape(0);
+        assertUpToDate(paint);
+    }
+
+    @Test
+    public void testShowFromTheFrame() throws IOException {
+        AsciiPaint paint = new AsciiPaint(30, 20);
+        paint.newRectangle(2, 2, 8, 5, 'R');
+        paint.newCircle(20, 10, 4, 'C');
+        StringBuilder shown = new StringBuilder();
+        paint.show(shown);
+        assertEquals(new Rasterizer(paint.getDrawing()).render(), shown.toString());
+        paint.getDrawing().moveShape(1, -5, 3);
+        StringWriter written = new StringWriter();
+        paint.show(written);
+        assertEquals(new Rasterizer(paint.getDrawing()).render(), written.toString());
+        assertUpToDate(paint);
+        shown.setLength(0);
+        paint.show(shown);
+        assertEquals(paint.asAscii(), shown.toString());
+    }
+}
@@ -2,6 +2,12 @@ package g56583.atl.ascii.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class LineTest {
@@ -52,6 +58,16 @@ class LineTest {
         assertFalse(line.isInside(testPoint));
     }
 
+    @Test
+    public void testIsInsideCoordinatesAfterMove() {
+        Line line = new Line(new Point(0, 0), new Point(4, 2), 'R');
+        assertTrue(line.isInside(2, 1));
+        line.move(0.3, 1.7);
+        assertFalse(line.isInside(2, 1));
+        assertTrue(line.isInside(2.3, 2.7));
+        assertEquals(line.isInside(new Point(4.3, 3.7)), line.isInside(4.3, 3.7));
+    }
+
     @Test
     public void testToString() {
         Point startPoint = new Point(0, 0);
@@ -115,4 +131,129 @@ class LineTest {
         assertFalse(diagonalLine.isInside(closePoint));
     }
 
-}
\ No newline at end of file
+    /**
+     * Reference of the cells of a line between two cells: for each step along the longer
+     * axis, the closest cell along the shorter one, rounded half up.
+     */
+    private static Set<Long> bresenham(int x1, int y1, int x2, int y2) {
+        Set<Long> cells = new HashSet<>();
+        if (Math.abs(x2 - x1) >= Math.abs(y2 - y1)) {
+            if (x2 < x1) {
+                return bresenham(x2, y2, x1, y1);
+            }
+            for (int x = x1; x <= x2; x++) {
+                double y = x2 == x1 ? y1 : y1 + (double) ((x - x1) * (y2 - y1)) / (x2 - x1);
+                cells.add(CoveredCells.pack(x, (int) Math.floor(y + 0.5)));
+            }
+        } else {
+            if (y2 < y1) {
+                return bresenham(x2, y2, x1, y1);
+            }
+            for (int y = y1; y <= y2; y++) {
+                double x = x1 + (double) ((y - y1) * (x2 - x1)) / (y2 - y1);
+                cells.add(CoveredCells.pack((int) Math.floor(x + 0.5), y));
+            }
+        }
+        return cells;
+    }
+
+    @Test
+    public void testCellsOfBresenham() {
+        Random random = new Random(23);
+        for (int round = 0; round < 500; round++) {
+            int x1 = random.nextInt(60) - 30;
+            int y1 = random.nextInt(60) - 30;
+            int x2 = random.nextInt(60) - 30;
+            int y2 = random.nextInt(60) - 30;
+            double fraction = random.nextBoolean() ? 0 : random.nextDouble() * 0.9 - 0.45;
+            Line line = new Line(new Point(x1 + fraction, y1 - fraction), new Point(x2 - fraction, y2 + fraction), 'L');
+            Set<Long> expected = bresenham(x1, y1, x2, y2);
+            assertEquals(Math.max(Math.abs(x2 - x1), Math.abs(y2 - y1)) + 1, expected.size());
+            List<Long> cells = new ArrayList<>();
+            new CoveredCells(line).forEachRemaining((long cell) -> cells.add(cell));
+            assertEquals(expected, new HashSet<>(cells));
+            assertEquals(expected.size(), cells.size());
+            for (int y = -32; y <= 32; y++) {
+                for (int x = -32; x <= 32; x++) {
+                    assertEquals(expected.contains(CoveredCells.pack(x, y)), line.isInside(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLongDiagonalFollowsItsLength() {
+        Line line = new Line(new Point(0, 0), new Point(9_999, 4_999), 'L');
+        assertEquals(new Bounds(-0.5, -0.5, 9_999.5, 4_999.5), line.bounds());
+        int[] rows = new int[1];
+        for (int y = -10; y < 5_010; y++) {
+            line.spans(y, Integer.MIN_VALUE, Integer.MAX_VALUE, (from, to) -> rows[0] += to - from + 1);
+        }
+        assertEquals(10_000, rows[0]);
+        CoveredCells cells = new CoveredCells(line, 5_000, 0, 5_001, 10_000);
+        assertEquals(CoveredCells.pack(5_000, 2_500), cells.nextLong());
+        assertEquals(CoveredCells.pack(5_001, 2_500), cells.nextLong());
+        assertFalse(cells.hasNext());
+    }
+
+    @Test
+    public void testFarPointKeepsTheDirection() {
+        Line far = new Line(new Point(0, 0), new Point(2e10, 1e10), 'L');
+        Line near = new Line(new Point(0, 0), new Point(2_000, 1_000), 'L');
+        assertEquals(new Bounds(-0.5, -0.5, Line.LIMIT + 0.5, Line.LIMIT / 2 + 0.5), far.bounds());
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 200; x++) {
+                assertEquals(near.isInside(x, y), far.isInside(x, y));
+            }
+            List<Integer> spans = new ArrayList<>();
+            List<Integer> farSpans = new ArrayList<>();
+            near.spans(y, 0, 199, (from, to) -> spans.addAll(List.of(from, to)));
+            far.spans(y, 0, 199, (from, to) -> farSpans.addAll(List.of(from, to)));
+            assertEquals(spans, farSpans);
+        }
+        assertFalse(far.isInside(100, 100));
+    }
+
+    @Test
+    public void testLineAtTheEndOfTheInts() {
+        Line line = new Line(new Point(0, 0), new Point(2e9, 1e9 + 1), 'L');
+        assertEquals(new Bounds(-0.5, -0.5, 2e9 + 0.5, 1e9 + 1.5), line.bounds());
+        assertTrue(line.isInside(2e9, 1e9 + 1));
+        assertTrue(line.isInside(1e9, 5e8 + 1));
+        assertFalse(line.isInside(1e9, 5e8));
+        for (int y = 999_999_998; y <= 1_000_000_001; y++) {
+            int row = y;
+            line.spans(y, 1_999_999_990, Integer.MAX_VALUE, (from, to) -> {
+                assertFalse(line.isInside(from - 1, row));
+                for (int x = from; x <= to; x++) {
+                    assertTrue(line.isInside(x, row));
+                }
+                assertFalse(line.isInside(to + 1, row));
+            });
+        }
+        List<Integer> spans = new ArrayList<>();
+        line.spans(1_000_000_001, 0, Integer.MAX_VALUE, (from, to) -> spans.addAll(List.of(from, to)));
+        assertEquals(List.of(2_000_000_000, 2_000_000_000), spans);
+        Line diagonal = new Line(new Point(-4e9, -4e9), new Point(4e9, 4e9), 'L');
+        assertTrue(diagonal.isInside(2e9, 2e9));
+        assertFalse(diagonal.isInside(2e9, 2e9 + 1));
+        List<Integer> diagonalSpans = new ArrayList<>();
+        diagonal.spans(2_000_000_000, 0, Integer.MAX_VALUE, (from, to) -> diagonalSpans.addAll(List.of(from, to)));
+        assertEquals(List.of(2_000_000_000, 2_000_000_000), diagonalSpans);
+        Line wide = new Line(new Point(Integer.MAX_VALUE, 3), new Point(3e9, 5), 'L');
+        assertTrue(wide.isInside(Integer.MAX_VALUE, 3));
+        assertTrue(new CoveredCells(wide).hasNext());
+    }
+
+    @Test
+    public void testLineOutOfTheSquare() {
+        Line line = new Line(new Point(5e9, 0), new Point(6e9, 5), 'L');
+        assertTrue(line.bounds().isEmpty());
+        assertFalse(line.isInside(5e9, 0));
+        assertFalse(new CoveredCells(line).hasNext());
+        Line across = new Line(new Point(-1e18, 3), new Point(1e18, 3), 'L');
+        assertEquals(new Bounds(-Line.LIMIT - 0.5, 2.5, Line.LIMIT + 0.5, 3.5), across.bounds());
+        assertTrue(across.isInside(-12_345, 3));
+        assertFalse(across.isInside(-12_345, 4));
+    }
+}
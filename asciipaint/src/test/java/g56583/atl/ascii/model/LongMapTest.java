@@ -0,0 +1,49 @@
+package g56583.atl.ascii.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongMapTest {
+
+    @Test
+    public void testSameAsTreeMap() {
+        Random random = new Random(3);
+        LongMap<Integer> map = LongMap.empty();
+        TreeMap<Long, Integer> expected = new TreeMap<>();
+        for (int step = 0; step < 20000; step++) {
+            long key = random.nextInt(500) - 250;
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, step);
+                expected.put(key, step);
+            }
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.size(), map.size());
+        }
+        List<Integer> values = new ArrayList<>();
+        map.forEach(values::add);
+        assertEquals(new ArrayList<>(expected.values()), values);
+    }
+
+    @Test
+    public void testOlderMapsAreKept() {
+        LongMap<String> empty = LongMap.empty();
+        LongMap<String> first = empty.put(1, "a").put(2, "b");
+        LongMap<String> second = first.put(1, "c").remove(2).put(3, "d");
+        assertEquals("a", first.get(1));
+        assertEquals("b", first.get(2));
+        assertNull(first.get(3));
+        assertEquals("c", second.get(1));
+        assertNull(second.get(2));
+        assertEquals(0, empty.size());
+        assertSame(second, second.remove(7));
+    }
+}
@@ -0,0 +1,52 @@
+package g56583.atl.ascii.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static g56583.atl.ascii.model.SampleDrawings.randomDrawing;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelRendererTest {
+
+    @Test
+    public void testSameOutputAsSequentialRendering() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(7);
+            for (int round = 0; round < 5; round++) {
+                Drawing drawing = randomDrawing(random, 150 + random.nextInt(300), 100 + random.nextInt(400), 200);
+                drawing.removeShape(0);
+                assertEquals(new Rasterizer(drawing).render(), new ParallelRenderer(pool, 0).render(drawing));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSmallDrawingBelowThreshold() {
+        Drawing drawing = new Drawing(5, 2);
+        drawing.addShape(new Rectangle(new Point(1, 0), 2, 1, 'r'));
+        assertEquals(" rrr \n rrr \n", new ParallelRenderer().render(drawing));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelRenderer(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelRenderer(ForkJoinPool.commonPool(), -1));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelRenderer().render(null));
+    }
+
+    @Test
+    public void testAsciiPaintRendersInParallel() {
+        AsciiPaint paint = new AsciiPaint(300, 200);
+        paint.newCircle(100, 100, 60, 'c');
+        paint.newLine(0, 0, 299, 199, 'l');
+        String expected = new Rasterizer(paint.getDrawing()).render();
+        paint.setParallelThreshold(0);
+        assertEquals(expected, paint.asAscii());
+        assertThrows(IllegalArgumentException.class, () -> paint.setParallelThreshold(-1));
+    }
+}
@@ -0,0 +1,282 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static g56583.atl.ascii.model.SampleDrawings.randomShape;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RasterizerTest {
+
+    /**
+     * Reference implementation: tests every shape for every cell of the drawing.
+     */
+    private static String naiveAscii(Drawing drawing) {
+        StringBuilder sb = new StringBuilder();
+        List<Shape> reversedShapes = new ArrayList<>(drawing.getShapes());
+        Collections.reverse(reversedShapes);
+        List<Component> reversedComponents = new ArrayList<>(drawing.getComponents());
+        Collections.reverse(reversedComponents);
+        for (int i = 0; i < drawing.getHeight(); i++) {
+            for (int j = 0; j < drawing.getWidth(); j++) {
+                Point p = new Point(j, i);
+                char colorChar = ' ';
+                for (Component component : reversedComponents) {
+                    if (component.isInside(p)) {
+                        colorChar = component.getColor();
+                        break;
+                    }
+                }
+                if (colorChar == ' ') {
+                    for (Shape shape : reversedShapes) {
+                        if (shape.isInside(p)) {
+                            colorChar = shape.getColor();
+                            break;
+                        }
+                    }
+                }
+                sb.append(colorChar);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testRenderToAppendables() throws IOException {
+        Random random = new Random(5);
+        Drawing drawing = new Drawing(60, 40);
+        for (int i = 0; i < 20; i++) {
+            drawing.addShape(randomShape(random, 40));
+        }
+        String expected = new Rasterizer(drawing).render();
+        StringBuilder builder = new StringBuilder();
+        new Rasterizer(drawing).renderTo(builder);
+        assertEquals(expected, builder.toString());
+        StringWriter writer = new StringWriter();
+        new Rasterizer(drawing).renderTo(writer);
+        assertEquals(expected, writer.toString());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream stream = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        new Rasterizer(drawing).renderTo(stream);
+        assertEquals(expected, bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRenderToChannel() throws IOException {
+        Drawing drawing = new Drawing(5, 3);
+        drawing.addShape(new Rectangle(new Point(1, 1), 2, 1, 'é'));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new Rasterizer(drawing).renderTo(Channels.newChannel(bytes));
+        assertEquals("     \n ééé \n ééé \n", bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEmptyDrawing() {
+        Drawing drawing = new Drawing(7, 3);
+        assertEquals("       \n       \n       \n", new Rasterizer(drawing).render());
+    }
+
+    @Test
+    public void testSameOutputAsCellByCellRendering() {
+        Random random = new Random(42);
+        for (int round = 0; round < 40; round++) {
+            int size = 10 + random.nextInt(40);
+            Drawing drawing = new Drawing(size, size + random.nextInt(10));
+            for (int i = 0; i < 1 + random.nextInt(15); i++) {
+                drawing.addShape(randomShape(random, size));
+            }
+            for (int i = 0; i < random.nextInt(3); i++) {
+                Composite group = new Composite((char) ('a' + random.nextInt(26)));
+                for (int j = 0; j < 1 + random.nextInt(3); j++) {
+                    group.add(randomShape(random, size));
+                }
+                drawing.addComponent(group);
+            }
+            assertEquals(naiveAscii(drawing), new Rasterizer(drawing).render());
+        }
+    }
+
+    @Test
+    public void testLargeDrawingAfterEdits() {
+        Random random = new Random(7);
+        Drawing drawing = new Drawing(150, 110);
+        for (int i = 0; i < 200; i++) {
+            drawing.addShape(randomShape(random, 150));
+        }
+        for (int i = 0; i < 60; i++) {
+            switch (random.nextInt(4)) {
+                case 0 -> drawing.moveShape(random.nextInt(drawing.getShapes().size()),
+                        random.nextInt(41) - 20, random.nextInt(41) - 20.5);
+                case 1 -> drawing.removeShape(random.nextInt(drawing.getShapes().size()));
+                case 2 -> drawing.addShapeAt(random.nextInt(drawing.getShapes().size()), randomShape(random, 150));
+                default -> drawing.replaceShape(random.nextInt(drawing.getShapes().size()), randomShape(random, 150));
+            }
+        }
+        Composite group = new Composite('g');
+        group.add(randomShape(random, 150));
+        group.add(randomShape(random, 150));
+        drawing.addComponent(group);
+        drawing.moveComponent(0, 33, -12);
+        assertEquals(naiveAscii(drawing), new Rasterizer(drawing).render());
+    }
+
+    @Test
+    public void testBlankGroupShowsShapesBehind() {
+        Drawing drawing = new Drawing(10, 10);
+        drawing.addShape(new Rectangle(new Point(0, 0), 9, 9, 'R'));
+        Composite blank = new Composite(' ');
+        blank.add(new Square(new Point(2, 2), 3, 'S'));
+        Composite front = new Composite('G');
+        front.add(new Circle(new Point(6, 6), 2, 'C'));
+        drawing.addComponent(front);
+        drawing.addComponent(blank);
+        assertEquals(naiveAscii(drawing), new Rasterizer(drawing).render());
+    }
+
+    @Test
+    public void testMovedShapes() {
+        AsciiPaint paint = new AsciiPaint(30, 20);
+        paint.newCircle(5, 5, 3.5, 'A');
+        paint.newLine(0, 0, 29, 13, 'L');
+        paint.newRectangle(10, 4, 7.5, 3.0, 'B');
+        paint.moveShape(0, 0.5, 1.25);
+        paint.moveShape(1, 0.3, 0);
+        paint.moveShape(2, -0.5, 0.5);
+        assertEquals(naiveAscii(paint.getDrawing()), paint.asAscii());
+    }
+
+    /**
+     * Reference implementation of a zoomed out window: counts the painted cells of each block
+     * of the whole rendering.
+     */
+    private static String naiveZoomedOut(Drawing drawing, int x0, int y0, int width, int height, int scale) {
+        String[] rows = naiveAscii(drawing).split("\n");
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < height; row++) {
+            for (int column = 0; column < width; column++) {
+                int[] counts = new int[128];
+                char best = ' ';
+                for (int y = y0 + row * scale; y < y0 + (row + 1) * scale; y++) {
+                    for (int x = x0 + column * scale; x < x0 + (column + 1) * scale; x++) {
+                        if (y >= 0 && y < rows.length && x >= 0 && x < rows[y].length() && rows[y].charAt(x) != ' ') {
+                            char c = rows[y].charAt(x);
+                            if (++counts[c] > counts[best]) {
+                                best = c;
+                            }
+                        }
+                    }
+                }
+                sb.append(best);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testViewportSameAsWholeRendering() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            int size = 20 + random.nextInt(40);
+            Drawing drawing = new Drawing(size, size);
+            for (int i = 0; i < 1 + random.nextInt(15); i++) {
+                drawing.addShape(randomShape(random, size));
+            }
+            int x = random.nextInt(size) - 5;
+            int y = random.nextInt(size) - 5;
+            int width = 1 + random.nextInt(size);
+            int height = 1 + random.nextInt(size);
+            int scale = 1 + random.nextInt(8);
+            assertEquals(naiveZoomedOut(drawing, x, y, width, height, 1),
+                    new Rasterizer(drawing).render(new Viewport(x, y, width, height)));
+            assertEquals(naiveZoomedOut(drawing, x, y, width, height, scale),
+                    new Rasterizer(drawing).render(new Viewport(x, y, width, height, scale)));
+        }
+    }
+
+    @Test
+    public void testZoomedOutMajority() {
+        Drawing drawing = new Drawing(8, 4);
+        drawing.addShape(new Rectangle(new Point(0, 0), 3, 4, 'A'));
+        drawing.addShape(new Line(new Point(3, 0), new Point(3, 3), 'B'));
+        drawing.addShape(new Line(new Point(7, 0), new Point(7, 0), 'C'));
+        Rasterizer rasterizer = new Rasterizer(drawing);
+        assertEquals("AC\n", rasterizer.render(new Viewport(0, 0, 2, 1, 4)));
+        assertEquals("A \n", rasterizer.render(new Viewport(0, 1, 2, 1, 4)));
+        assertEquals("AC\n", rasterizer.render(new Viewport(0, 0, 2, 1, 4)));
+    }
+
+    @Test
+    public void testZoomedOutHugeCanvas() {
+        Drawing drawing = new Drawing(100_000, 100_000);
+        drawing.addShape(new Rectangle(new Point(0, 0), 50_000, 100_000, 'L'));
+        drawing.addShape(new Circle(new Point(75_000, 50_000), 10_000, 'C'));
+        drawing.addShape(new Line(new Point(0, 99_999), new Point(99_999, 0), 'D'));
+        String frame = new Rasterizer(drawing).render(new Viewport(0, 20_000, 200, 60, 500));
+        String[] rows = frame.split("\n");
+        assertEquals(60, rows.length);
+        assertEquals(200, rows[0].length());
+        assertEquals('L', rows[0].charAt(0));
+        assertEquals('D', rows[0].charAt(159));
+        assertEquals(' ', rows[0].charAt(199));
+        assertEquals('C', rows[59].charAt(150));
+    }
+
+    @Test
+    public void testRunsSameAsRendering() {
+        Random random = new Random(5);
+        for (int round = 0; round < 40; round++) {
+            int size = 10 + random.nextInt(40);
+            Drawing drawing = new Drawing(size, size + random.nextInt(10));
+            for (int i = 0; i < 1 + random.nextInt(15); i++) {
+                drawing.addShape(randomShape(random, size));
+            }
+            for (int i = 0; i < random.nextInt(3); i++) {
+                Composite group = new Composite(random.nextInt(4) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+                for (int j = 0; j < 1 + random.nextInt(3); j++) {
+                    group.add(randomShape(random, size));
+                }
+                drawing.addComponent(group);
+            }
+            assertEquals(new Rasterizer(drawing).render(), new Rasterizer(drawing).renderRuns().toAscii());
+        }
+    }
+
+    @Test
+    public void testVectorBackendSameAsScalar() {
+        assertTrue(RowBackend.VECTOR.isAvailable());
+        Random random = new Random(22);
+        for (int round = 0; round < 40; round++) {
+            int size = 10 + random.nextInt(80);
+            Drawing drawing = new Drawing(size, size + random.nextInt(10));
+            for (int i = 0; i < 1 + random.nextInt(25); i++) {
+                drawing.addShape(randomShape(random, size));
+            }
+            for (int i = 0; i < random.nextInt(3); i++) {
+                Composite group = new Composite(random.nextInt(3) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+                for (int j = 0; j < 1 + random.nextInt(3); j++) {
+                    group.add(randomShape(random, size));
+                }
+                drawing.addComponent(group);
+            }
+            Rasterizer vector = new Rasterizer(drawing, RowBackend.VECTOR);
+            assertEquals(new Rasterizer(drawing, RowBackend.SCALAR).render(), vector.render());
+            Viewport viewport = new Viewport(random.nextInt(size) - 5, random.nextInt(size) - 5,
+                    1 + random.nextInt(size), 1 + random.nextInt(size));
+            assertEquals(new Rasterizer(drawing, RowBackend.SCALAR).render(viewport), vector.render(viewport));
+        }
+    }
+}
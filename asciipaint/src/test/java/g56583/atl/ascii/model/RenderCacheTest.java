@@ -0,0 +1,113 @@
+package g56583.atl.ascii.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderCacheTest {
+
+    private static Drawing sample() {
+        Drawing drawing = new Drawing(20, 10);
+        drawing.addShape(new Circle(new Point(5, 5), 3, 'C'));
+        drawing.addShape(new Rectangle(new Point(10, 1), 6, 4, 'R'));
+        return drawing;
+    }
+
+    @Test
+    public void testUnchangedDrawingIsNotRenderedAgain() {
+        RenderCache cache = new RenderCache();
+        Drawing drawing = sample();
+        String first = cache.render(drawing);
+        assertEquals(new Rasterizer(drawing).render(), first);
+        assertSame(first, cache.render(drawing));
+        drawing.moveShape(0, 2, 0);
+        String moved = cache.render(drawing);
+        assertNotSame(first, moved);
+        assertEquals(new Rasterizer(drawing).render(), moved);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsForgotten() {
+        RenderCache cache = new RenderCache(2);
+        Drawing first = sample();
+        Drawing second = sample();
+        Drawing third = sample();
+        String kept = cache.render(first);
+        String forgotten = cache.render(second);
+        cache.render(first);
+        cache.render(third);
+        assertEquals(2, cache.size());
+        assertSame(kept, cache.render(first));
+        assertNotSame(forgotten, cache.render(second));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testViewport() {
+        RenderCache cache = new RenderCache();
+        Drawing drawing = sample();
+        String whole = cache.render(drawing);
+        String inside = cache.render(drawing, new Viewport(10, 1, 6, 2));
+        assertEquals("RRRRRR\nRRRRRR\n", inside);
+        String across = cache.render(drawing, new Viewport(-2, 8, 5, 4));
+        String[] rows = whole.split("\n");
+        assertEquals("  " + rows[8].substring(0, 3) + "\n  " + rows[9].substring(0, 3) + "\n     \n     \n", across);
+        assertEquals(whole, cache.render(drawing, Viewport.of(drawing)));
+        assertSame(inside, cache.render(drawing, new Viewport(10, 1, 6, 2)));
+        assertThrows(IllegalArgumentException.class, () -> new Viewport(0, 0, 0, 3));
+    }
+
+    @Test
+    public void testSnapshotsShareRenderingsWhileUnchanged() {
+        RenderCache cache = new RenderCache();
+        Drawing drawing = sample();
+        String first = cache.render(drawing);
+        Drawing snapshot = drawing.snapshot();
+        assertSame(first, cache.render(snapshot));
+        drawing.moveShape(0, 1, 0);
+        snapshot.moveShape(1, 0, 1);
+        assertEquals(drawing.getVersion(), snapshot.getVersion());
+        assertEquals(new Rasterizer(drawing).render(), cache.render(drawing));
+        assertEquals(new Rasterizer(snapshot).render(), cache.render(snapshot));
+        assertNotEquals(cache.render(drawing), cache.render(snapshot));
+    }
+
+    @Test
+    public void testDrawingsAreNotKept() throws InterruptedException {
+        RenderCache cache = new RenderCache();
+        Drawing drawing = sample();
+        cache.render(drawing.snapshot());
+        WeakReference<Drawing> snapshot = new WeakReference<>(drawing.snapshot());
+        cache.render(snapshot.get());
+        for (int i = 0; i < 50 && snapshot.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(snapshot.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLimitInCharacters() {
+        RenderCache cache = new RenderCache(100, 500);
+        Drawing drawing = sample();
+        String whole = cache.render(drawing);
+        assertEquals(210, cache.chars());
+        cache.render(drawing, new Viewport(0, 0, 10, 10));
+        assertEquals(320, cache.chars());
+        cache.render(drawing, new Viewport(0, 0, 19, 10));
+        assertEquals(2, cache.size());
+        assertEquals(310, cache.chars());
+        assertNotSame(whole, cache.render(drawing));
+        String large = cache.render(drawing, new Viewport(0, 0, 100, 100));
+        assertNotSame(large, cache.render(drawing, new Viewport(0, 0, 100, 100)));
+        assertEquals(2, cache.size());
+        assertEquals(410, cache.chars());
+        cache.clear();
+        assertEquals(0, cache.chars());
+        assertThrows(IllegalArgumentException.class, () -> new RenderCache(1, 0));
+    }
+}
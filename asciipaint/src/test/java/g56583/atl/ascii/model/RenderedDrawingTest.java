@@ -0,0 +1,97 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderedDrawingTest {
+
+    @Test
+    public void testSameAsRenderingAfterChanges() {
+        Random random = new Random(25);
+        Drawing drawing = new Drawing(70, 90);
+        RenderedDrawing rendered = new RenderedDrawing(drawing);
+        for (int step = 0; step < 300; step++) {
+            int shapes = drawing.getShapes().size();
+            switch (random.nextInt(5)) {
+                case 0, 1 -> drawing.addShape(new Rectangle(new Point(random.nextInt(70), random.nextInt(90)),
+                        1 + random.nextInt(10), random.nextInt(10), (char) ('a' + random.nextInt(26))));
+                case 2 -> {
+                    if (shapes > 0) {
+                        drawing.moveShape(random.nextInt(shapes), random.nextInt(11) - 5, random.nextInt(11) - 5);
+                    }
+                }
+                case 3 -> {
+                    if (shapes > 0) {
+                        drawing.recolorShape(random.nextInt(shapes), (char) ('a' + random.nextInt(26)));
+                    }
+                }
+                default -> {
+                    Composite group = new Composite((char) ('A' + random.nextInt(26)));
+                    group.add(new Circle(new Point(random.nextInt(70), random.nextInt(90)), 1 + random.nextInt(5), 'c'));
+                    drawing.addComponent(group);
+                }
+            }
+            String expected = new Rasterizer(drawing).render();
+            for (int i = 0; i < 20; i++) {
+                int index = random.nextInt(expected.length());
+                assertEquals(expected.charAt(index), rendered.charAt(index));
+            }
+            int start = random.nextInt(expected.length());
+            int end = start + random.nextInt(expected.length() - start + 1);
+            assertEquals(expected.substring(start, end), rendered.subSequence(start, end));
+            if (step % 50 == 0) {
+                assertEquals(expected, rendered.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testRowsRenderedOnDemandAndKept() {
+        Drawing drawing = new Drawing(10, 100);
+        drawing.addShape(new Rectangle(new Point(0, 0), 3, 1, 'a'));
+        drawing.addShape(new Rectangle(new Point(0, 80), 3, 1, 'b'));
+        RenderedDrawing rendered = new RenderedDrawing(drawing);
+        assertEquals(0, rendered.renderedRows());
+        assertEquals("aaaa      ", rendered.getRow(1));
+        assertEquals('b', rendered.charAt(2, 81));
+        assertEquals(2, rendered.renderedRows());
+
+        drawing.moveShape(1, 1, 0);
+        assertEquals(1, rendered.renderedRows());
+        assertEquals(" bbbb     ", rendered.getRow(81));
+        drawing.batch(() -> drawing.recolorShape(0, 'c'));
+        assertEquals(1, rendered.renderedRows());
+        assertEquals("cccc      ", rendered.getRow(0));
+        assertEquals(1000 + 100, rendered.length());
+    }
+
+    @Test
+    public void testOutOfRange() {
+        RenderedDrawing rendered = new RenderedDrawing(new Drawing(4, 2));
+        assertEquals("    \n    \n", rendered.toString());
+        assertEquals("\n  ", rendered.subSequence(4, 7).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> rendered.getRow(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> rendered.charAt(4, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> rendered.charAt(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> rendered.subSequence(3, 2));
+        assertThrows(IllegalArgumentException.class, () -> new RenderedDrawing(null));
+    }
+
+    @Test
+    public void testAsRenderedFollowsTheDrawing() {
+        AsciiPaint paint = new AsciiPaint(30, 20);
+        paint.newCircle(10, 10, 4, 'c');
+        RenderedDrawing rendered = paint.asRendered();
+        assertSame(rendered, paint.asRendered());
+        assertEquals(paint.asAscii(), rendered.toString());
+        paint.newLine(0, 0, 29, 19, 'l');
+        assertEquals(paint.asAscii(), paint.asRendered().toString());
+        paint.setDrawing(new Drawing(5, 5));
+        assertNotSame(rendered, paint.asRendered());
+        assertEquals(paint.asAscii(), paint.asRendered().toString());
+    }
+}
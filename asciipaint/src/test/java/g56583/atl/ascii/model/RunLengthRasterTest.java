@@ -0,0 +1,106 @@
+package g56583.atl.ascii.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static g56583.atl.ascii.model.SampleDrawings.samplePaint;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunLengthRasterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSameAsAscii() throws IOException {
+        AsciiPaint paint = samplePaint();
+        RunLengthRaster raster = paint.asRunLength();
+        assertEquals(paint.asAscii(), raster.toAscii());
+        StringWriter out = new StringWriter();
+        raster.writeTo(out);
+        assertEquals(paint.asAscii(), out.toString());
+        String[] rows = paint.asAscii().split("\n");
+        for (int y = 0; y < raster.getHeight(); y++) {
+            for (int x = 0; x < raster.getWidth(); x++) {
+                assertEquals(rows[y].charAt(x), raster.charAt(x, y));
+            }
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> raster.charAt(30, 0));
+    }
+
+    @Test
+    public void testRuns() {
+        AsciiPaint paint = new AsciiPaint(10, 4);
+        paint.newRectangle(2, 1, 3, 1, 'R');
+        RunLengthRaster raster = paint.asRunLength();
+        assertEquals(List.of(new RunLengthRaster.Run(0, 0, 10, ' ')), raster.getRuns(0));
+        assertEquals(List.of(new RunLengthRaster.Run(0, 1, 2, ' '), new RunLengthRaster.Run(2, 1, 4, 'R'),
+                new RunLengthRaster.Run(6, 1, 4, ' ')), raster.getRuns(1));
+        // The two rows of the rectangle share their runs.
+        assertEquals(5, raster.getRunCount());
+    }
+
+    @Test
+    public void testLargeSparseDrawing() {
+        AsciiPaint paint = new AsciiPaint(20_000, 20_000);
+        paint.newRectangle(1_000, 1_000, 5_000, 5_000, 'R');
+        paint.newCircle(15_000, 15_000, 10, 'C');
+        RunLengthRaster raster = paint.asRunLength();
+        assertTrue(raster.getRunCount() < 100);
+        assertEquals('R', raster.charAt(3_000, 3_000));
+        assertEquals('C', raster.charAt(15_000, 15_000));
+        assertEquals(' ', raster.charAt(19_999, 0));
+    }
+
+    @Test
+    public void testDiff() {
+        AsciiPaint paint = samplePaint();
+        RunLengthRaster before = paint.asRunLength();
+        paint.moveShape(1, 2, 1);
+        paint.changeShapeColor(0, 'X');
+        RunLengthRaster after = paint.asRunLength();
+        assertTrue(before.diff(before).isEmpty());
+        List<RunLengthRaster.Run> changes = before.diff(after);
+        char[][] cells = new char[20][];
+        String[] rows = before.toAscii().split("\n");
+        for (int y = 0; y < 20; y++) {
+            cells[y] = rows[y].toCharArray();
+        }
+        for (RunLengthRaster.Run run : changes) {
+            for (int x = run.x(); x < run.x() + run.length(); x++) {
+                assertNotEquals(cells[run.y()][x], run.color());
+                cells[run.y()][x] = run.color();
+            }
+        }
+        StringBuilder patched = new StringBuilder();
+        for (char[] row : cells) {
+            patched.append(row).append('\n');
+        }
+        assertEquals(after.toAscii(), patched.toString());
+        assertThrows(IllegalArgumentException.class, () -> before.diff(new AsciiPaint(5, 5).asRunLength()));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        RunLengthRaster raster = samplePaint().asRunLength();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        raster.write(bytes);
+        RunLengthRaster read = RunLengthRaster.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(raster, read);
+        assertEquals(raster.hashCode(), read.hashCode());
+        assertEquals(raster.toAscii(), read.toAscii());
+        Path path = directory.resolve("raster.rle");
+        raster.save(path);
+        assertEquals(raster, RunLengthRaster.load(path));
+        assertTrue(Files.size(path) < raster.toAscii().length());
+        assertThrows(IOException.class, () -> RunLengthRaster.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+    }
+}
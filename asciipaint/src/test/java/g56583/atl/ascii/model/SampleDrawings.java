@@ -0,0 +1,113 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+import g56583.atl.ascii.DesignPattern.Composite.Composite;
+
+import java.util.Random;
+
+/**
+ * The drawings and shapes shared by the tests: a small sample AsciiPaint, and random shapes
+ * and drawings built from the given Random, so that the tests using them stay reproducible.
+ * Public for the tests of the commands and of the groups, in other packages.
+ */
+public final class SampleDrawings {
+    private SampleDrawings() {
+    }
+
+    /**
+     * Gets a 30x20 AsciiPaint holding a circle 'A', a rectangle 'B' and a line 'C' across it.
+     *
+     * @return A new sample AsciiPaint.
+     */
+    public static AsciiPaint samplePaint() {
+        AsciiPaint paint = new AsciiPaint(30, 20);
+        paint.newCircle(5, 5, 3, 'A');
+        paint.newRectangle(12, 4, 6, 3, 'B');
+        paint.newLine(0, 19, 29, 0, 'C');
+        return paint;
+    }
+
+    /**
+     * Gets a random shape of any color from 'A' to 'Z'.
+     *
+     * @param random The source of the shape.
+     * @param size   The size of the square the shape is mostly in, at least 3.
+     * @return A circle, a rectangle, a square or a line, possibly horizontal or vertical.
+     */
+    public static Component randomShape(Random random, int size) {
+        return randomShape(random, size, 26);
+    }
+
+    /**
+     * Gets a random shape of one of the given number of colors, from 'A'. The position and
+     * the size of the shape are not always whole.
+     *
+     * @param random The source of the shape.
+     * @param size   The size of the square the shape is mostly in, at least 3.
+     * @param colors The number of colors.
+     * @return A circle, a rectangle, a square or a line, possibly horizontal or vertical.
+     */
+    public static Component randomShape(Random random, int size, int colors) {
+        char color = (char) ('A' + random.nextInt(colors));
+        double x = random.nextInt(size + 10) - 5 + (random.nextBoolean() ? 0 : random.nextDouble());
+        double y = random.nextInt(size + 10) - 5 + (random.nextBoolean() ? 0 : random.nextDouble());
+        return switch (random.nextInt(5)) {
+            case 0 -> new Circle(new Point(x, y), 0.5 + random.nextDouble() * size / 3, color);
+            case 1 -> new Rectangle(new Point(x, y), random.nextInt(size / 2) + random.nextDouble(),
+                    random.nextInt(size / 2) + 1, color);
+            case 2 -> new Square(new Point(x, y), random.nextInt(size / 3) + 1, color);
+            case 3 -> new Line(new Point(x, y), new Point(random.nextInt(size), random.nextInt(size)), color);
+            default -> random.nextBoolean()
+                    ? new Line(new Point(x, y), new Point(x, random.nextInt(size)), color)
+                    : new Line(new Point(x, y), new Point(random.nextInt(size), y), color);
+        };
+    }
+
+    /**
+     * Gets a random shape, or one time out of four a group of one to four random shapes or
+     * groups.
+     *
+     * @param random The source of the shape.
+     * @param size   The size of the square the shapes are mostly in, at least 3.
+     * @param colors The number of colors, from 'A'.
+     * @return A shape or a group.
+     */
+    public static Component randomComponent(Random random, int size, int colors) {
+        if (random.nextInt(4) != 0) {
+            return randomShape(random, size, colors);
+        }
+        Composite group = new Composite((char) ('A' + random.nextInt(colors)));
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+            group.add(randomComponent(random, size, colors));
+        }
+        return group;
+    }
+
+    /**
+     * Gets a drawing of random circles, rectangles and lines, as large as the drawing, with a
+     * blank group at its center.
+     *
+     * @param random The source of the drawing.
+     * @param width  The width of the drawing.
+     * @param height The height of the drawing.
+     * @param count  The number of shapes.
+     * @return A new drawing.
+     */
+    public static Drawing randomDrawing(Random random, int width, int height, int count) {
+        Drawing drawing = new Drawing(width, height);
+        for (int i = 0; i < count; i++) {
+            char color = (char) ('A' + random.nextInt(26));
+            Point corner = new Point(random.nextInt(width), random.nextInt(height));
+            switch (random.nextInt(3)) {
+                case 0 -> drawing.addShape(new Circle(corner, 1 + random.nextInt(40), color));
+                case 1 -> drawing.addShape(new Rectangle(corner, 1 + random.nextInt(80), 1 + random.nextInt(80), color));
+                default -> drawing.addShape(new Line(corner,
+                        new Point(random.nextInt(width), random.nextInt(height)), color));
+            }
+        }
+        Composite group = new Composite(' ');
+        group.add(new Circle(new Point(width / 2.0, height / 2.0), 30, 'g'));
+        drawing.addComponent(group);
+        return drawing;
+    }
+}
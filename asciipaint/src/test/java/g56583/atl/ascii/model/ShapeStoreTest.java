@@ -0,0 +1,147 @@
+package g56583.atl.ascii.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShapeStoreTest {
+
+    @Test
+    public void testSameAsArrayList() {
+        Random random = new Random(19);
+        ShapeStore<Object> store = new ShapeStore<>();
+        List<Object> expected = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            values.add(new Object());
+        }
+        for (int step = 0; step < 20000; step++) {
+            int size = expected.size();
+            Object value = values.get(random.nextInt(values.size()));
+            switch (random.nextInt(5)) {
+                case 0, 1 -> {
+                    int index = random.nextInt(size + 1);
+                    store.add(index, value);
+                    expected.add(index, value);
+                }
+                case 2 -> {
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        assertSame(expected.remove(index), store.remove(index));
+                    }
+                }
+                case 3 -> {
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        assertSame(expected.set(index, value), store.set(index, value));
+                    }
+                }
+                default -> {
+                    assertEquals(expected.indexOf(value), store.indexOf(value));
+                    assertEquals(expected.contains(value), store.contains(value));
+                }
+            }
+            assertEquals(expected.size(), store.size());
+            if (step % 1000 == 0) {
+                assertEquals(expected, store);
+                assertEquals(expected, new ShapeStore<>(store));
+            }
+        }
+        assertEquals(expected, store);
+    }
+
+    @Test
+    public void testIdsAreKept() {
+        ShapeStore<String> store = new ShapeStore<>();
+        store.add("a");
+        store.add("b");
+        store.add("c");
+        long id = store.idAt(2);
+        store.remove(0);
+        store.set(1, "d");
+        store.add(0, "e");
+        assertEquals(2, store.indexOfId(id));
+        assertEquals("d", store.get(2));
+        ShapeStore<String> copy = new ShapeStore<>(store);
+        assertEquals(2, copy.indexOfId(id));
+        copy.add("f");
+        assertNotEquals(id, copy.idAt(3));
+        store.remove(2);
+        assertEquals(-1, store.indexOfId(id));
+        assertEquals(2, copy.indexOfId(id));
+    }
+
+    @Test
+    public void testListIterator() {
+        ShapeStore<Integer> store = new ShapeStore<>();
+        for (int i = 0; i < 100; i++) {
+            store.add(i / 2, i);
+        }
+        List<Integer> expected = new ArrayList<>(store);
+        ListIterator<Integer> iterator = store.listIterator(40);
+        assertEquals(expected.get(40), iterator.next());
+        assertEquals(expected.get(40), iterator.previous());
+        assertEquals(expected.get(39), iterator.previous());
+        assertEquals(38, iterator.previousIndex());
+        ListIterator<Integer> end = store.listIterator(100);
+        assertFalse(end.hasNext());
+        assertEquals(expected.get(99), end.previous());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(100));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.add(102, 0));
+    }
+
+    @Test
+    public void testLabelsAreSpread() {
+        ShapeStore<Integer> store = new ShapeStore<>();
+        Map<Long, Long> labels = new HashMap<>();
+        List<Integer> expected = new ArrayList<>();
+        store.add(0, -1);
+        store.add(1, -2);
+        expected.add(-1);
+        expected.add(-2);
+        Random random = new Random(5);
+        for (int i = 0; i < 3000; i++) {
+            int index = i < 1000 ? 1 : i < 2000 ? 0 : random.nextInt(store.size() + 1);
+            store.add(index, i, labels::put);
+            expected.add(index, i);
+        }
+        assertEquals(expected, store);
+        for (int i = 1; i < store.size(); i++) {
+            assertTrue(store.labelAt(i - 1) < store.labelAt(i));
+        }
+        for (Map.Entry<Long, Long> relabeled : labels.entrySet()) {
+            int index = store.indexOfId(relabeled.getKey());
+            assertEquals(store.labelAt(index), (long) relabeled.getValue());
+        }
+        assertFalse(labels.isEmpty());
+    }
+
+    @Test
+    public void testCopyIsNotChanged() {
+        ShapeStore<Integer> store = new ShapeStore<>();
+        for (int i = 0; i < 200; i++) {
+            store.add(i);
+        }
+        ShapeStore<Integer> copy = new ShapeStore<>(store);
+        List<Integer> expected = new ArrayList<>(store);
+        long id = store.idAt(100);
+        for (int i = 0; i < 100; i++) {
+            store.add(1, -i);
+            store.set(50, i);
+            store.remove(150);
+        }
+        assertEquals(expected, copy);
+        assertEquals(100, copy.indexOfId(id));
+        assertEquals(100, copy.indexOf(100));
+        assertEquals(-1, store.indexOf(100));
+        copy.remove(0);
+        assertEquals(expected.subList(1, 200), copy);
+    }
+}
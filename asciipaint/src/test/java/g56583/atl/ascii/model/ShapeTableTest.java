@@ -0,0 +1,137 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Composite.Component;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShapeTableTest {
+
+    @Test
+    public void testSameAsShapes() {
+        Random random = new Random(21);
+        for (int round = 0; round < 20; round++) {
+            Drawing objects = new Drawing(70, 90);
+            Drawing columns = new Drawing(70, 90);
+            ShapeTable table = columns.getTable();
+            for (int i = 0; i < 60; i++) {
+                char color = (char) ('a' + random.nextInt(26));
+                double x = random.nextInt(90) - 10 + random.nextDouble();
+                double y = random.nextInt(110) - 10 + random.nextDouble();
+                Shape shape = switch (random.nextInt(4)) {
+                    case 0 -> new Circle(new Point(x, y), 0.5 + random.nextDouble() * 12, color);
+                    case 1 -> new Rectangle(new Point(x, y), 1 + random.nextInt(20), 1 + random.nextInt(20), color);
+                    case 2 -> new Square(new Point(x, y), 1 + random.nextInt(15), color);
+                    default -> random.nextBoolean()
+                            ? new Line(new Point(x, y), new Point(x + random.nextInt(30) - 15, y), color)
+                            : new Line(new Point(x, y), new Point(random.nextInt(70), random.nextInt(90)), color);
+                };
+                objects.addShape(shape);
+                table.add(shape);
+            }
+            String expected = new Rasterizer(objects).render();
+            assertEquals(expected, new Rasterizer(columns).render());
+            assertEquals(expected, new Rasterizer(columns).renderRuns().toAscii());
+        }
+    }
+
+    @Test
+    public void testBehindShapes() {
+        Drawing drawing = new Drawing(6, 2);
+        drawing.getTable().addRectangle(0, 0, 5, 1, 't');
+        drawing.addShape(new Rectangle(new Point(2, 0), 1, 1, 's'));
+        assertEquals("ttsstt\nttsstt\n", new Rasterizer(drawing).render());
+        assertEquals('s', drawing.getShapeAt(new Point(2, 0)).getColor());
+        assertEquals('t', drawing.getShapeAt(new Point(0, 0)).getColor());
+        assertNull(drawing.getShapeAt(new Point(0, 3)));
+    }
+
+    @Test
+    public void testViewsChangeTheTable() {
+        Drawing drawing = new Drawing(6, 2);
+        ShapeTable table = drawing.getTable();
+        table.addLine(0, 0, 1, 0, 'l');
+        long version = drawing.getVersion();
+        Component view = table.get(0);
+        view.move(2, 1);
+        view.setColor('m');
+        assertEquals("      \n  mm  \n", new Rasterizer(drawing).render());
+        assertTrue(drawing.getVersion() > version);
+        Component copy = view.copy();
+        table.move(0, 1, 0);
+        assertEquals(new Bounds(1.5, 0.5, 3.5, 1.5), copy.bounds());
+        assertEquals(new Bounds(2.5, 0.5, 4.5, 1.5), view.bounds());
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(1));
+        assertThrows(IllegalArgumentException.class, () -> table.addCircle(0, 0, -1, 'c'));
+        assertThrows(IllegalArgumentException.class, () -> table.addRectangle(0, 0, 2, 0, 'r'));
+    }
+
+    @Test
+    public void testBandsFollowTheChanges() {
+        Drawing drawing = new Drawing(10, 100);
+        ShapeTable table = drawing.getTable();
+        table.addRectangle(0, 0, 2, 2, 'a');
+        table.addRectangle(4, 0, 2, 2, 'b');
+        table.addRectangle(7, 40, 2, 40, 'c');
+        assertEquals('a', drawing.getShapeAt(new Point(1, 1)).getColor());
+        Drawing snapshot = drawing.snapshot();
+        table.move(0, 0, 70);
+        table.move(1, 0, 1);
+        table.addCircle(8, 90, 1, 'd');
+        assertEquals('a', drawing.getShapeAt(new Point(1, 71)).getColor());
+        assertNull(drawing.getShapeAt(new Point(1, 1)));
+        assertEquals('b', drawing.getShapeAt(new Point(5, 2)).getColor());
+        assertEquals('d', drawing.getShapeAt(new Point(8, 90)).getColor());
+        assertEquals('a', snapshot.getShapeAt(new Point(1, 1)).getColor());
+        assertEquals('c', snapshot.getShapeAt(new Point(8, 71)).getColor());
+        assertNull(snapshot.getShapeAt(new Point(1, 71)));
+        assertNull(snapshot.getShapeAt(new Point(8, 90)));
+        Drawing objects = new Drawing(10, 100);
+        for (int i = 0; i < table.size(); i++) {
+            objects.addShape(table.get(i).copy());
+        }
+        assertEquals(new Rasterizer(objects).render(), new Rasterizer(drawing).render());
+    }
+
+    @Test
+    public void testSnapshotsKeepTheirTable() throws Exception {
+        Drawing drawing = new Drawing(4, 1);
+        drawing.getTable().addRectangle(0, 0, 1, 1, 'a');
+        Drawing snapshot = drawing.snapshot();
+        drawing.getTable().addRectangle(2, 0, 1, 1, 'b');
+        drawing.getTable().setColor(0, 'c');
+        assertEquals("ccbb\n", new Rasterizer(drawing).render());
+        assertEquals("aa  \n", new Rasterizer(snapshot).render());
+        Path file = Files.createTempFile("table", ".ascp");
+        try {
+            DrawingFile.save(drawing, file);
+            assertEquals("ccbb\n", new Rasterizer(DrawingFile.load(file)).render());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSnapshotsKeepTheirPages() {
+        Drawing drawing = new Drawing(10, 10);
+        ShapeTable table = drawing.getTable();
+        for (int i = 0; i < 3000; i++) {
+            table.addRectangle(i % 10, 0, 1, 1, 'r');
+        }
+        Drawing snapshot = drawing.snapshot();
+        table.move(2500, 0, 5);
+        table.setColor(10, 'x');
+        table.clear();
+        table.addCircle(5, 5, 1, 'c');
+        ShapeTable kept = snapshot.getTable();
+        assertEquals(3000, kept.size());
+        assertEquals(new Bounds(0, 0, 1, 1), kept.bounds(2500));
+        assertEquals('r', kept.get(10).getColor());
+        assertEquals(1, table.size());
+        assertEquals('c', table.get(0).getColor());
+    }
+}
@@ -0,0 +1,131 @@
+package g56583.atl.ascii.model;
+
+import g56583.atl.ascii.DesignPattern.Command.Add;
+import g56583.atl.ascii.DesignPattern.Command.Color;
+import g56583.atl.ascii.DesignPattern.Command.Move;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedPaintTest {
+
+    private static Shape shape(int i) {
+        return switch (i % 3) {
+            case 0 -> new Circle(new Point(i * 7 % 60, i * 5 % 30), 2 + i % 4, (char) ('A' + i % 26));
+            case 1 -> new Rectangle(new Point(i * 11 % 60, i * 3 % 30), 4, 3, (char) ('A' + i % 26));
+            default -> new Line(new Point(i % 60, 0), new Point(59 - i % 60, 29), (char) ('A' + i % 26));
+        };
+    }
+
+    @Test
+    public void testSnapshotIsKeptUntilTheNextChange() {
+        SharedPaint shared = new SharedPaint(new AsciiPaint(20, 10));
+        Drawing first = shared.snapshot();
+        assertSame(first, shared.snapshot());
+        shared.execute(paint -> new Add(paint, new Circle(new Point(5, 5), 3, 'C')));
+        Drawing second = shared.snapshot();
+        assertNotSame(first, second);
+        assertEquals(0, first.getShapes().size());
+        assertEquals(1, second.getShapes().size());
+        assertEquals(1, shared.getVersion());
+    }
+
+    @Test
+    public void testUndoAndRedo() {
+        AsciiPaint expected = new AsciiPaint(20, 10);
+        expected.newCircle(5, 5, 3, 'C');
+        SharedPaint shared = new SharedPaint(new AsciiPaint(20, 10));
+        shared.execute(paint -> new Add(paint, new Circle(new Point(5, 5), 3, 'C')));
+        shared.execute(paint -> new Move(paint, 0, 4, 1));
+        shared.execute(paint -> new Color(paint, 0, 'X'));
+        String changed = shared.asAscii();
+        assertTrue(shared.undo());
+        assertTrue(shared.undo());
+        assertEquals(expected.asAscii(), shared.asAscii());
+        assertTrue(shared.redo());
+        assertTrue(shared.redo());
+        assertEquals(changed, shared.asAscii());
+    }
+
+    @Test
+    public void testFailedCommandLeavesTheDrawing() {
+        SharedPaint shared = new SharedPaint(new AsciiPaint(20, 10));
+        String before = shared.asAscii();
+        assertThrows(RuntimeException.class, () -> shared.execute(paint -> new Move(paint, 3, 1, 1)));
+        assertEquals(before, shared.asAscii());
+        assertFalse(shared.undo());
+    }
+
+    @Test
+    public void testWriteReplacingTheDrawing() throws IOException {
+        SharedPaint shared = new SharedPaint(new AsciiPaint(20, 10));
+        shared.execute(paint -> new Add(paint, new Circle(new Point(5, 5), 3, 'C')));
+        shared.write((paint, history) -> {
+            paint.setDrawing(new Drawing(4, 2));
+            history.clear();
+        });
+        assertEquals("    \n    \n", shared.asAscii());
+        assertFalse(shared.undo());
+    }
+
+    @Test
+    public void testReadersSeeWholeVersions() throws InterruptedException, IOException {
+        int count = 150;
+        AsciiPaint sequential = new AsciiPaint(60, 30);
+        // Different versions may look the same: each frame maps to its first and last version.
+        Map<String, int[]> versions = new HashMap<>();
+        versions.put(sequential.asAscii(), new int[]{0, 0});
+        for (int i = 0; i < count; i++) {
+            sequential.addShape(shape(i));
+            if (i % 2 == 1) {
+                sequential.moveShape(i / 2, 1, 1);
+            }
+            int version = i + 1;
+            versions.computeIfAbsent(sequential.asAscii(), frame -> new int[]{version, 0})[1] = version;
+        }
+        SharedPaint shared = new SharedPaint(new AsciiPaint(60, 30));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    int last = 0;
+                    while (done.getCount() > 0) {
+                        int[] version = versions.get(shared.asAscii());
+                        assertNotNull(version, "A frame mixes two versions");
+                        assertTrue(version[1] >= last, "A frame goes back in time");
+                        last = Math.max(last, version[0]);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            shared.write((paint, history) -> {
+                paint.addShape(shape(index));
+                if (index % 2 == 1) {
+                    paint.moveShape(index / 2, 1, 1);
+                }
+            });
+        }
+        done.countDown();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(sequential.asAscii(), shared.asAscii());
+    }
+}